@@ -0,0 +1,33 @@
+package com.thinban.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * benchmarks.jar 的入口：在 JMH 命令行参数的基础上固定开启 GC profiler，结果以JSON写到 target/jmh-result.json
+ * <p>
+ * 支持所有 JMH 命令行参数，例如：
+ * <pre>
+ * java -jar target/benchmarks.jar                      # 全部基准
+ * java -jar target/benchmarks.jar Jwt -t 16            # 只跑JwtFilterBenchmark，16线程
+ * java -jar target/benchmarks.jar Sensitive -p bodySize=1048576
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options cli = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(cli)
+                // 每次操作的分配字节数（gc.alloc.rate.norm）和GC次数，过滤器优化主要看这一项
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,104 @@
+package com.thinban.benchmark;
+
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.limit.LocalRateLimitBackend;
+import com.thinban.limit.RateLimitBackend;
+import com.thinban.metrics.TbMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 集群限流模拟：多个节点共享一个进程内的计数存储（注入同步延迟），统计每个窗口全集群实际放行的请求数
+ * <p>
+ * 运行中途让共享存储不可用一段时间，观察降级为单机限流（每个节点各放行 max-requests）以及恢复后的表现。
+ * 不开启集群限流时，全集群的有效上限是 节点数 × max-requests。
+ * <pre>
+ * java -cp target/benchmarks.jar com.thinban.benchmark.ClusterRateLimitSimulation
+ * </pre>
+ */
+public class ClusterRateLimitSimulation {
+    private static final int NODES = 12;
+    private static final int MAX_REQUESTS = 1000;
+    private static final int WINDOW_SECONDS = 2;
+    private static final long SYNC_INTERVAL_MS = 5;
+    private static final long BACKEND_LATENCY_MICROS = 500;
+    // 每个节点两次请求之间的间隔，即每个节点约 2000 req/s
+    private static final long REQUEST_INTERVAL_MICROS = 500;
+    private static final int[] PHASE_WINDOWS = {3, 2, 3}; // 正常、共享存储不可用、恢复
+
+    private static volatile boolean backendDown;
+    private static volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        LocalRateLimitBackend local = new LocalRateLimitBackend();
+        RateLimitBackend backend = (windowId, windowSeconds, deltas) -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(BACKEND_LATENCY_MICROS));
+            if (backendDown) {
+                throw new IOException("backend unavailable");
+            }
+            return local.incrementAndGet(windowId, windowSeconds, deltas);
+        };
+
+        Map<Long, LongAdder> allowed = new ConcurrentHashMap<>();
+        Map<Long, LongAdder> rejected = new ConcurrentHashMap<>();
+        List<ClusterRateLimiter> limiters = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ClusterRateLimiter limiter = new ClusterRateLimiter(backend, MAX_REQUESTS, WINDOW_SECONDS, SYNC_INTERVAL_MS, TbMetrics.noop());
+            limiters.add(limiter);
+            Thread thread = new Thread(() -> {
+                long intervalNanos = TimeUnit.MICROSECONDS.toNanos(REQUEST_INTERVAL_MICROS);
+                while (running) {
+                    long windowId = System.currentTimeMillis() / 1000 / WINDOW_SECONDS;
+                    Map<Long, LongAdder> target = limiter.isOverLimit("client") ? rejected : allowed;
+                    target.computeIfAbsent(windowId, k -> new LongAdder()).increment();
+                    LockSupport.parkNanos(intervalNanos);
+                }
+            }, "node-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        // 从窗口边界开始，保证每个窗口都是完整的
+        long windowMillis = WINDOW_SECONDS * 1000L;
+        Thread.sleep(windowMillis - System.currentTimeMillis() % windowMillis);
+        long firstWindow = System.currentTimeMillis() / windowMillis;
+        threads.forEach(Thread::start);
+
+        Thread.sleep(PHASE_WINDOWS[0] * windowMillis);
+        backendDown = true;
+        Thread.sleep(PHASE_WINDOWS[1] * windowMillis);
+        backendDown = false;
+        Thread.sleep(PHASE_WINDOWS[2] * windowMillis);
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        limiters.forEach(ClusterRateLimiter::close);
+
+        System.out.printf("节点数=%d, max-requests=%d, window=%ds, sync=%dms, 单机计数时的有效上限=%d%n",
+                NODES, MAX_REQUESTS, WINDOW_SECONDS, SYNC_INTERVAL_MS, NODES * MAX_REQUESTS);
+        System.out.printf("%-8s%-14s%12s%12s%n", "窗口", "共享存储", "放行", "拒绝");
+        int downFrom = PHASE_WINDOWS[0];
+        int downTo = PHASE_WINDOWS[0] + PHASE_WINDOWS[1];
+        int total = downTo + PHASE_WINDOWS[2];
+        for (Map.Entry<Long, LongAdder> entry : new TreeMap<>(allowed).entrySet()) {
+            int index = (int) (entry.getKey() - firstWindow);
+            if (index >= total) {
+                // 停止时刚开始的窗口，不完整
+                continue;
+            }
+            LongAdder rejectedCount = rejected.get(entry.getKey());
+            System.out.printf("%-8d%-14s%12d%12d%n", index, index >= downFrom && index < downTo ? "不可用" : "正常",
+                    entry.getValue().sum(), rejectedCount == null ? 0 : rejectedCount.sum());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.thinban.benchmark;
+
+import com.thinban.compress.ContentEncoder;
+import com.thinban.compress.ContentEncoders;
+import com.thinban.config.CompressionFilter;
+import com.thinban.util.DeflaterPool;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CompressionFilter：R&lt;List&gt; 响应按不同编码压缩的耗时，Setup 时打印压缩前后的字节数
+ * <p>
+ * encoding=identity 不带 Accept-Encoding，作为对照；gzip-unpooled 每次请求用 GZIPOutputStream（新建 Deflater），
+ * 与 DeflaterPool 对比。1KB 小于默认的 min-size（2048），不压缩，测的是缓存判断本身的开销；
+ * 4KB 是刚超过 min-size 的小响应，新建 Deflater 的固定开销在这里占比最大（单独测量见 DeflaterPoolBenchmark）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    private static final int MIN_SIZE = 2048;
+
+    @Param({"1024", "4096", "65536", "1048576"})
+    public int bodySize;
+
+    @Param({"identity", "gzip", "gzip-unpooled", "br", "zstd"})
+    public String encoding;
+
+    private CompressionFilter filter;
+    private MockHttpServletRequest request;
+    private FilterChain servlet;
+
+    @Setup
+    public void setup() throws Exception {
+        DeflaterPool pool = new DeflaterPool(Runtime.getRuntime().availableProcessors() * 2, 6);
+        List<ContentEncoder> encoders = switch (encoding) {
+            case "identity" -> ContentEncoders.create(List.of("gzip"), pool);
+            case "gzip-unpooled" -> List.of(new UnpooledGzipEncoder());
+            default -> ContentEncoders.create(List.of(encoding), pool);
+        };
+        if (encoders.isEmpty()) {
+            throw new IllegalStateException("编码不可用: " + encoding);
+        }
+        filter = new CompressionFilter(encoders, MIN_SIZE, List.of("application/json"));
+
+        request = new MockHttpServletRequest("GET", "/api/user/list");
+        if (!"identity".equals(encoding)) {
+            request.addHeader("Accept-Encoding", encoders.get(0).getName());
+        }
+        byte[] body = Payloads.userListJson(bodySize);
+        servlet = (req, resp) -> {
+            resp.setContentType("application/json");
+            // 按8KB分块写出，与容器缓冲区大小接近
+            for (int off = 0; off < body.length; off += 8192) {
+                resp.getOutputStream().write(body, off, Math.min(8192, body.length - off));
+            }
+        };
+
+        MockHttpServletResponse response = compress();
+        int compressed = response.getContentAsByteArray().length;
+        System.out.printf("%n[CompressionBenchmark] encoding=%s, bodySize=%d: %d -> %d 字节，节省 %.1f%%%n",
+                encoding, bodySize, body.length, compressed, 100.0 * (body.length - compressed) / body.length);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse compress() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, servlet);
+        return response;
+    }
+
+    /**
+     * 每次新建 Deflater 的 gzip，作为 DeflaterPool 的对照
+     */
+    private static final class UnpooledGzipEncoder implements ContentEncoder {
+
+        @Override
+        public String getName() {
+            return "gzip";
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 8192, true);
+        }
+    }
+}
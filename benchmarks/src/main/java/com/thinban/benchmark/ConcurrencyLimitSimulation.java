@@ -0,0 +1,183 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.ConcurrencyLimitFilter;
+import com.thinban.limit.GradientConcurrencyLimiter;
+import com.thinban.metrics.TbMetrics;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ConcurrencyLimitFilter 负载模拟：对比有无并发限制时，数据库变慢期间普通接口和健康检查的表现
+ * <p>
+ * 模型：容器有固定数量的工作线程（无界等待队列），业务接口需要占用一个"数据库连接"并按注入的耗时处理，
+ * 运行中途把耗时从5ms提高到40ms模拟慢SQL故障，之后恢复。大量客户端线程闭环请求业务接口（超时2秒），
+ * 另一个线程定时请求 /actuator/health（不访问数据库）。客户端收到503后退避100ms再重试（真实客户端会按Retry-After退避）。
+ * <pre>
+ * java -cp target/benchmarks.jar com.thinban.benchmark.ConcurrencyLimitSimulation
+ * </pre>
+ */
+public class ConcurrencyLimitSimulation {
+    private static final int WORKER_THREADS = 64;
+    private static final int DB_CONNECTIONS = 16;
+    private static final int CLIENTS = 256;
+    private static final long CLIENT_TIMEOUT_MS = 2000;
+    private static final long SHED_BACKOFF_MS = 100;
+    private static final long NORMAL_LATENCY_MS = 5;
+    private static final long INCIDENT_LATENCY_MS = 40;
+    private static final long[] PHASE_SECONDS = {3, 6, 4}; // 正常、故障、恢复
+    private static final byte[] BODY = "{\"code\":\"0\",\"msg\":\"success\",\"info\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("== 无并发限制 ==");
+        new ConcurrencyLimitSimulation(null).run();
+        System.out.println();
+        System.out.println("== ConcurrencyLimitFilter ==");
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(20, 5, WORKER_THREADS, 1.5, 0.2, 100);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(Payloads.OBJECT_MAPPER, limiter,
+                List.of("/actuator/health/**"), List.of(), 1, TbMetrics.noop());
+        new ConcurrencyLimitSimulation(filter).run();
+        System.out.println("最终并发上限: " + limiter.getLimit() + "，无排队RTT: " + String.format("%.1f", limiter.getNoLoadRttMillis()) + "ms");
+    }
+
+    private final FilterPipeline pipeline;
+    private final Semaphore db = new Semaphore(DB_CONNECTIONS, true);
+    private volatile long serviceNanos = TimeUnit.MILLISECONDS.toNanos(NORMAL_LATENCY_MS);
+    private volatile boolean running = true;
+
+    private final Stats normal = new Stats();
+    private final Stats health = new Stats();
+
+    ConcurrencyLimitSimulation(Filter filter) {
+        this.pipeline = new FilterPipeline(filter == null ? List.of() : List.of(filter));
+    }
+
+    /**
+     * 注入延迟的业务桩：健康检查直接返回，其余请求占用数据库连接并等待注入的耗时
+     */
+    private final FilterChain servlet = (req, resp) -> {
+        if (!((HttpServletRequest) req).getRequestURI().startsWith("/actuator/health")) {
+            db.acquireUninterruptibly();
+            try {
+                LockSupport.parkNanos(serviceNanos);
+            } finally {
+                db.release();
+            }
+        }
+        resp.setContentType("application/json");
+        resp.getOutputStream().write(BODY);
+    };
+
+    void run() throws Exception {
+        ExecutorService container = Executors.newFixedThreadPool(WORKER_THREADS);
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(startDaemon(() -> {
+                while (running) {
+                    call(container, "/api/order/list", normal);
+                }
+            }));
+        }
+        Thread probe = startDaemon(() -> {
+            while (running) {
+                call(container, "/actuator/health", health);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            }
+        });
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(PHASE_SECONDS[0]));
+        serviceNanos = TimeUnit.MILLISECONDS.toNanos(INCIDENT_LATENCY_MS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(PHASE_SECONDS[1]));
+        serviceNanos = TimeUnit.MILLISECONDS.toNanos(NORMAL_LATENCY_MS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(PHASE_SECONDS[2]));
+        running = false;
+        for (Thread client : clients) {
+            client.join();
+        }
+        probe.join();
+        container.shutdownNow();
+
+        System.out.println("业务接口   " + normal);
+        System.out.println("健康检查   " + health);
+    }
+
+    private static Thread startDaemon(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void call(ExecutorService container, String uri, Stats stats) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        Future<?> future = container.submit(() -> {
+            pipeline.doFilter(request, response, servlet);
+            return null;
+        });
+        try {
+            future.get(CLIENT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            stats.record(response.getStatus(), System.nanoTime() - start);
+            if (response.getStatus() == 503) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SHED_BACKOFF_MS));
+            }
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            stats.timeouts.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * 结果统计：状态码计数 + 按毫秒分桶的耗时直方图
+     */
+    private static final class Stats {
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray((int) CLIENT_TIMEOUT_MS + 1);
+
+        void record(int status, long nanos) {
+            if (status == 503) {
+                shed.increment();
+            } else {
+                ok.increment();
+                histogram.incrementAndGet((int) Math.min(CLIENT_TIMEOUT_MS, TimeUnit.NANOSECONDS.toMillis(nanos)));
+            }
+        }
+
+        long percentile(double p) {
+            long total = ok.sum();
+            long target = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < histogram.length(); i++) {
+                seen += histogram.get(i);
+                if (seen >= target && total > 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("成功=%d 503=%d 超时=%d 异常=%d 成功耗时p50=%dms p99=%dms",
+                    ok.sum(), shed.sum(), timeouts.sum(), errors.sum(), percentile(0.5), percentile(0.99));
+        }
+    }
+}
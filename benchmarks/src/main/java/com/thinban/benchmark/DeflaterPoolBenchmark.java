@@ -0,0 +1,69 @@
+package com.thinban.benchmark;
+
+import com.thinban.util.DeflaterPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * DeflaterPool：只测 Deflater 本身（不经过过滤器和 MockHttpServletResponse），
+ * 每次压缩一个响应体，pooled 从池中借出、压缩、reset 后归还，unpooled 每次新建、压缩后 end()
+ * <p>
+ * 两者的差是新建 Deflater（堆外分配约256KB并初始化、end() 释放）与 reset() 的开销之差，与响应体大小无关，
+ * 如果存在，响应体越小占比越大。CompressionBenchmark 中这部分会被过滤器和 MockHttpServletResponse 的开销掩盖。
+ * 堆外内存不计入 gc.alloc.rate.norm，对进程 RSS 的影响见 benchmarks/BASELINE.md。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeflaterPoolBenchmark {
+    private static final int LEVEL = 6;
+
+    // 2048是 tb.compression.min-size 的默认值，4096是刚超过它的小响应
+    @Param({"2048", "4096", "65536"})
+    public int bodySize;
+
+    private DeflaterPool pool;
+    private byte[] body;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        pool = new DeflaterPool(Runtime.getRuntime().availableProcessors() * 2, LEVEL);
+        body = Payloads.userListJson(bodySize);
+        out = new byte[8192];
+    }
+
+    @Benchmark
+    public long pooled() {
+        Deflater deflater = pool.borrow();
+        try {
+            return deflate(deflater);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    @Benchmark
+    public long unpooled() {
+        Deflater deflater = new Deflater(LEVEL, true);
+        try {
+            return deflate(deflater);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private long deflate(Deflater deflater) {
+        deflater.setInput(body);
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflater.deflate(out);
+        }
+        return deflater.getBytesWritten();
+    }
+}
@@ -0,0 +1,69 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.EtagFilter;
+import com.thinban.util.XxHash64;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EtagFilter：写出时计算xxHash64生成ETag（miss）、If-None-Match命中返回304（hit），以及XxHash64本身的吞吐
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EtagFilterBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+
+    private EtagFilter filter;
+    private byte[] body;
+    private FilterChain servlet;
+    private MockHttpServletRequest missRequest;
+    private MockHttpServletRequest hitRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        filter = new EtagFilter();
+        body = Payloads.userListJson(bodySize);
+        servlet = (req, resp) -> {
+            resp.setContentType("application/json");
+            // 按8KB分块写出，与容器缓冲区大小接近
+            for (int off = 0; off < body.length; off += 8192) {
+                resp.getOutputStream().write(body, off, Math.min(8192, body.length - off));
+            }
+        };
+        missRequest = new MockHttpServletRequest("GET", "/api/user/list");
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(missRequest, first, servlet);
+        hitRequest = new MockHttpServletRequest("GET", "/api/user/list");
+        hitRequest.addHeader("If-None-Match", first.getHeader("ETag"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse miss() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(missRequest, response, servlet);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse hit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(hitRequest, response, servlet);
+        return response;
+    }
+
+    @Benchmark
+    public long xxHash64() {
+        return XxHash64.hash(body, 0, body.length);
+    }
+}
@@ -0,0 +1,48 @@
+package com.thinban.benchmark;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 模拟容器的 ApplicationFilterChain：按顺序执行多个过滤器，最后执行 servlet
+ * <p>
+ * MockFilterChain 只能调用一次，基准测试中每次调用都会新建一个轻量的链对象（与 Tomcat 每个请求一个链相同）。
+ */
+public final class FilterPipeline {
+    private final Filter[] filters;
+
+    public FilterPipeline(List<? extends Filter> filters) {
+        this.filters = filters.toArray(new Filter[0]);
+    }
+
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain servlet)
+            throws IOException, ServletException {
+        new Chain(filters, servlet).doFilter(request, response);
+    }
+
+    private static final class Chain implements FilterChain {
+        private final Filter[] filters;
+        private final FilterChain servlet;
+        private int pos;
+
+        Chain(Filter[] filters, FilterChain servlet) {
+            this.filters = filters;
+            this.servlet = servlet;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            if (pos < filters.length) {
+                filters[pos++].doFilter(request, response, this);
+            } else {
+                servlet.doFilter(request, response);
+            }
+        }
+    }
+}
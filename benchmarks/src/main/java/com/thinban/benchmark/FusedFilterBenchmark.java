@@ -0,0 +1,78 @@
+package com.thinban.benchmark;
+
+import cn.hutool.jwt.JWTUtil;
+import com.thinban.config.*;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * classic（每个过滤器一层FilterChain）与 fused（FusedFilter一层执行全部阶段）的整体开销对比
+ * <p>
+ * 阶段按默认的 tb.filter.fused.stages 排列（只取默认启用的阶段和etag：xss、security-header、jwt、rate-limit、etag、sensitive），
+ * 两种模式使用同一组过滤器实例、同样的顺序，差别只在是否每个阶段一层 FilterChain。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FusedFilterBenchmark {
+    private static final String KEY = "benchmark-jwt-key-0123456789";
+
+    @Param({"1024", "65536"})
+    public int bodySize;
+
+    private FilterPipeline classic;
+    private FusedFilter fused;
+    private FilterChain servlet;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        List<AbstractStageFilter> stages = List.of(
+                new XssFilter(),
+                new SecurityHeaderFilter(List.of("/static/**"), "public, max-age=3600"),
+                new JwtFilter(Payloads.OBJECT_MAPPER, KEY, List.of("/login")),
+                new RateLimitFilter(Payloads.OBJECT_MAPPER, Integer.MAX_VALUE, 60),
+                new EtagFilter(),
+                new SensitiveInfoFilter(List.of()));
+        classic = new FilterPipeline(stages);
+        fused = new FusedFilter(List.copyOf(stages), Map.of());
+
+        byte[] body = Payloads.userListJson(bodySize);
+        servlet = (req, resp) -> {
+            req.getParameter("keyword");
+            resp.setContentType("application/json");
+            resp.getOutputStream().write(body);
+        };
+
+        request = new MockHttpServletRequest("GET", "/api/user/list");
+        request.addParameter("keyword", "abc");
+        request.addHeader("X-Forwarded-For", "10.0.0.1");
+        request.addHeader("Authorization", "Bearer "
+                + JWTUtil.createToken(Map.of("id", 10001L), KEY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse classic() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        classic.doFilter(request, response, servlet);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fused() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fused.doFilter(request, response, servlet);
+        return response;
+    }
+}
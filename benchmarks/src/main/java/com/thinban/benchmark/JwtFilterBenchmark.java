@@ -0,0 +1,81 @@
+package com.thinban.benchmark;
+
+import cn.hutool.jwt.JWTUtil;
+import com.thinban.config.JwtFilter;
+import com.thinban.util.JwtThreadLocalHolder;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtFilter：合法Token（解析+验签）、缺少Token、签名错误、白名单路径四种情况
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+    private static final String KEY = "benchmark-jwt-key-0123456789";
+    private static final FilterChain SERVLET = (req, resp) -> JwtThreadLocalHolder.getCurrentUserId();
+
+    private JwtFilter filter;
+    private MockHttpServletRequest validRequest;
+    private MockHttpServletRequest missingRequest;
+    private MockHttpServletRequest invalidRequest;
+    private MockHttpServletRequest excludedRequest;
+
+    @Setup
+    public void setup() {
+        filter = new JwtFilter(Payloads.OBJECT_MAPPER, KEY, List.of("/app/**", "/login"));
+        String token = JWTUtil.createToken(Map.of("id", 10001L, "name", "benchmark"), KEY.getBytes(StandardCharsets.UTF_8));
+        String forged = JWTUtil.createToken(Map.of("id", 10001L, "name", "benchmark"), "other-key".getBytes(StandardCharsets.UTF_8));
+
+        validRequest = request("/api/order/list", token);
+        missingRequest = request("/api/order/list", null);
+        invalidRequest = request("/api/order/list", forged);
+        excludedRequest = request("/app/version", null);
+    }
+
+    private static MockHttpServletRequest request(String uri, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse valid() throws Exception {
+        return run(validRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse missing() throws Exception {
+        return run(missingRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse invalid() throws Exception {
+        return run(invalidRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse excluded() throws Exception {
+        return run(excludedRequest);
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, SERVLET);
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+package com.thinban.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.R;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试用的请求/响应数据，固定随机种子保证每次运行数据一致
+ */
+public final class Payloads {
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Payloads() {
+    }
+
+    /**
+     * 生成约 targetBytes 字节的 R&lt;List&lt;用户&gt;&gt; JSON，每条记录包含手机号、身份证号、银行卡号、邮箱，
+     * 与业务中列表接口的响应结构一致
+     */
+    public static byte[] userListJson(int targetBytes) {
+        return toJson(R.ok(userList(targetBytes)));
+    }
+
+    /**
+     * 生成约 targetBytes 字节（序列化后）的用户列表
+     */
+    public static List<Map<String, Object>> userList(int targetBytes) {
+        Random random = new Random(42);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int size = 0;
+        long id = 1;
+        while (size < targetBytes) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", id++);
+            row.put("name", "user" + random.nextInt(100000));
+            row.put("phone", "13" + digits(random, 9));
+            row.put("idCard", "110101" + digits(random, 12));
+            row.put("bankCard", "6222" + digits(random, 15));
+            row.put("email", "user" + random.nextInt(100000) + "@example.com");
+            row.put("remark", "普通备注信息，不包含敏感字段");
+            row.put("status", random.nextInt(3));
+            rows.add(row);
+            // 单条记录序列化后约200字节
+            size += 200;
+        }
+        return rows;
+    }
+
+    /**
+     * 生成 length 个字符的请求参数值；attack=true 时混入脚本片段
+     */
+    public static String paramValue(int length, boolean attack) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        Random random = new Random(7);
+        while (sb.length() < length) {
+            if (attack && sb.length() % 256 == 0) {
+                sb.append("<script>alert('x')</script><img src=\"javascript:evil()\" onload=x()>");
+            } else {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    private static String digits(Random random, int count) {
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(chars);
+    }
+
+    private static byte[] toJson(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.RateLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitFilter：多线程共享一个过滤器实例，客户端数量决定计数表的竞争程度
+ * <p>
+ * allowed 使用足够大的上限，测量放行路径；rejected 上限为0，测量写出预编码429的路径。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+    private static final FilterChain SERVLET = (req, resp) -> {
+    };
+
+    // 不同客户端（IP）数量：1=所有线程竞争同一个计数器
+    @Param({"1", "64", "10000"})
+    public int clients;
+
+    private RateLimitFilter allowFilter;
+    private RateLimitFilter rejectFilter;
+    private MockHttpServletRequest[] requests;
+
+    @Setup
+    public void setup() {
+        allowFilter = new RateLimitFilter(Payloads.OBJECT_MAPPER, Integer.MAX_VALUE, 60);
+        rejectFilter = new RateLimitFilter(Payloads.OBJECT_MAPPER, 0, 60);
+        requests = new MockHttpServletRequest[clients];
+        for (int i = 0; i < clients; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/order/list");
+            request.addHeader("X-Forwarded-For", "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255) + ", 172.16.0.1");
+            requests[i] = request;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse allowed(Cursor cursor) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        allowFilter.doFilter(nextRequest(cursor), response, SERVLET);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rejected(Cursor cursor) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rejectFilter.doFilter(nextRequest(cursor), response, SERVLET);
+        return response;
+    }
+
+    private MockHttpServletRequest nextRequest(Cursor cursor) {
+        MockHttpServletRequest request = requests[cursor.next];
+        cursor.next = cursor.next + 1 == requests.length ? 0 : cursor.next + 1;
+        return request;
+    }
+}
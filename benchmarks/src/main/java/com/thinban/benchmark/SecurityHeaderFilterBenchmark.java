@@ -0,0 +1,49 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.SecurityHeaderFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SecurityHeaderFilter：预编译响应头写出开销，分别测量 no-store 路径和可缓存路径
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityHeaderFilterBenchmark {
+    private static final FilterChain SERVLET = (req, resp) -> {
+    };
+
+    private SecurityHeaderFilter filter;
+    private MockHttpServletRequest apiRequest;
+    private MockHttpServletRequest staticRequest;
+
+    @Setup
+    public void setup() {
+        filter = new SecurityHeaderFilter(List.of("/static/**", "/api/dict/*"), "public, max-age=3600");
+        apiRequest = new MockHttpServletRequest("GET", "/api/order/list");
+        staticRequest = new MockHttpServletRequest("GET", "/static/js/app.js");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse noStore() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(apiRequest, response, SERVLET);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cacheable() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(staticRequest, response, SERVLET);
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.SensitiveInfoFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensitiveInfoFilter：缓存整个响应体并做正则脱敏，响应体大小取列表接口常见的1KB~1MB
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SensitiveInfoFilterBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+
+    private SensitiveInfoFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest excludedRequest;
+    private FilterChain servlet;
+
+    @Setup
+    public void setup() {
+        filter = new SensitiveInfoFilter(List.of("/api/export/**"));
+        request = new MockHttpServletRequest("GET", "/api/user/list");
+        excludedRequest = new MockHttpServletRequest("GET", "/api/export/users");
+        byte[] body = Payloads.userListJson(bodySize);
+        servlet = (req, resp) -> {
+            resp.setContentType("application/json");
+            resp.getOutputStream().write(body);
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse masked() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, servlet);
+        return response;
+    }
+
+    /**
+     * 排除路径直接透传，作为对照
+     */
+    @Benchmark
+    public MockHttpServletResponse excluded() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(excludedRequest, response, servlet);
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.thinban.benchmark;
+
+import com.thinban.monitor.StepMonitor;
+import com.thinban.monitor.StepMonitorAspect;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StepMonitorAspect：同一方法直接调用与经过@StepMonitor切面调用的差值即为切面开销
+ * <p>
+ * 与Spring中@Service的默认代理方式一致，使用CGLIB代理。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StepMonitorAspectBenchmark {
+
+    private MonitoredService direct;
+    private MonitoredService advised;
+    private Message message;
+
+    @Setup
+    public void setup() {
+        direct = new MonitoredService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new MonitoredService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new StepMonitorAspect());
+        advised = factory.getProxy();
+        message = new Message(10001L, "payload");
+    }
+
+    @Benchmark
+    public int direct() {
+        return direct.consume(message);
+    }
+
+    @Benchmark
+    public int advised() {
+        return advised.consume(message);
+    }
+
+    public static class MonitoredService {
+        @StepMonitor(stepName = "consume_msg")
+        public int consume(Message message) {
+            return message.getBody().length() + (int) message.getId();
+        }
+    }
+
+    public static class Message {
+        private final long id;
+        private final String body;
+
+        public Message(long id, String body) {
+            this.id = id;
+            this.body = body;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.thinban.benchmark;
+
+import com.thinban.revoke.RevocationList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token吊销名单查询：正常Token（布隆过滤器未命中）、已吊销Token（命中后查指纹表），
+ * 以及用 HashSet&lt;String&gt; 保存全部jti的对比
+ * <p>
+ * 每次查询与 JwtFilter 一致，同时按 jti 和用户ID 检查。Setup 时打印名单和 HashSet 占用的内存
+ * （名单按数组长度计算；HashSet按GC后的堆使用量差值估算，仅供参考）。
+ * 注意查询用的字符串是复用的，String.hashCode已缓存，hashSetClean不包含计算哈希的开销，
+ * 而JwtFilter每次请求解析出的jti都是新字符串。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenRevocationBenchmark {
+    // 查询用的Token数，超过CPU缓存，避免反复命中同一批缓存行
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000000"})
+    public int entries;
+
+    @Param({"0.01"})
+    public double fpp;
+
+    private RevocationList revocationList;
+    private Set<String> hashSet;
+    private String[] cleanJti;
+    private String[] revokedJti;
+    private long[] userIds;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        revocationList = new RevocationList(entries, fpp);
+        revokedJti = new String[PROBES];
+        String[] all = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            // 10%为按用户吊销
+            if (i % 10 == 0) {
+                revocationList.revokeUser(1_000_000_000L + i, 0);
+            } else {
+                all[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+                revocationList.revokeToken(all[i]);
+            }
+        }
+        for (int i = 0; i < PROBES; i++) {
+            String jti;
+            do {
+                jti = all[random.nextInt(entries)];
+            } while (jti == null);
+            revokedJti[i] = jti;
+        }
+        cleanJti = new String[PROBES];
+        userIds = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            cleanJti[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+            userIds[i] = random.nextLong(1, 100_000_000L);
+        }
+
+        long before = usedHeap();
+        hashSet = new HashSet<>(all.length * 2);
+        for (String jti : all) {
+            if (jti != null) {
+                // 复制一份字符串，把字符串本身也算在内
+                hashSet.add(new String(jti.toCharArray()));
+            }
+        }
+        long hashSetBytes = usedHeap() - before;
+        System.out.printf("%nentries=%d, fpp=%s, RevocationList=%.1fMB, HashSet<String>≈%.1fMB%n",
+                entries, fpp, revocationList.getMemoryBytes() / 1048576.0, hashSetBytes / 1048576.0);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public boolean clean(Cursor cursor) {
+        int i = cursor.next++ & (PROBES - 1);
+        return revocationList.isRevoked(cleanJti[i], userIds[i], 1L);
+    }
+
+    @Benchmark
+    public boolean revoked(Cursor cursor) {
+        int i = cursor.next++ & (PROBES - 1);
+        return revocationList.isRevoked(revokedJti[i], userIds[i], 1L);
+    }
+
+    @Benchmark
+    public boolean hashSetClean(Cursor cursor) {
+        int i = cursor.next++ & (PROBES - 1);
+        return hashSet.contains(cleanJti[i]);
+    }
+}
@@ -0,0 +1,39 @@
+package com.thinban.benchmark;
+
+import com.thinban.monitor.TraceIdUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TraceIdUtils：生成traceId，以及一次请求内 init/get/clear 的完整MDC操作
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TraceIdUtilsBenchmark {
+
+    @Benchmark
+    public String generate() {
+        return TraceIdUtils.generateTraceId();
+    }
+
+    @Benchmark
+    public String requestLifecycle() {
+        TraceIdUtils.initTraceId();
+        try {
+            return TraceIdUtils.getTraceId();
+        } finally {
+            TraceIdUtils.clearTraceId();
+        }
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return TraceIdUtils.getTraceId();
+    }
+}
@@ -0,0 +1,65 @@
+package com.thinban.benchmark;
+
+import com.thinban.config.XssFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XssFilter：下游读取全部参数和常用请求头时的过滤开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XssFilterBenchmark {
+    private static final String[] PARAM_NAMES = {"keyword", "title", "content", "remark", "tag"};
+    private static final String[] HEADER_NAMES = {"User-Agent", "Referer", "Accept-Language"};
+
+    // 单个参数值长度
+    @Param({"64", "1024", "16384"})
+    public int paramSize;
+
+    // clean=普通文本，attack=混入脚本片段
+    @Param({"clean", "attack"})
+    public String kind;
+
+    private XssFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        filter = new XssFilter();
+        request = new MockHttpServletRequest("POST", "/api/article/save");
+        String value = Payloads.paramValue(paramSize, "attack".equals(kind));
+        for (String name : PARAM_NAMES) {
+            request.addParameter(name, value);
+        }
+        request.addParameter("ids", "1", "2", "3", "4");
+        request.addHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+        request.addHeader("Referer", "https://example.com/article/edit?id=1");
+        request.addHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
+    }
+
+    @Benchmark
+    public void readAll(Blackhole bh) throws Exception {
+        FilterChain servlet = (req, resp) -> {
+            HttpServletRequest r = (HttpServletRequest) req;
+            for (String name : PARAM_NAMES) {
+                bh.consume(r.getParameter(name));
+            }
+            bh.consume(r.getParameterValues("ids"));
+            for (String name : HEADER_NAMES) {
+                bh.consume(r.getHeader(name));
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), servlet);
+    }
+}
@@ -0,0 +1,112 @@
+package com.thinban.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.thinban.config.XssFilter;
+import com.thinban.config.XssJsonHttpMessageConverter;
+import com.thinban.metrics.TbMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON请求体XSS过滤：解析 List&lt;用户&gt; 请求体
+ * <ul>
+ *     <li>plain：原Jackson转换器，不过滤（基线）</li>
+ *     <li>streaming：XssJsonHttpMessageConverter，解析时过滤字符串值</li>
+ *     <li>buffered：先把请求体读成字符串再解析，对比整体缓存请求体的内存开销（看gc.alloc.rate.norm）</li>
+ * </ul>
+ * attack时每10条记录的remark混入脚本片段。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class XssJsonBenchmark {
+    private static final Type BODY_TYPE = new TypeReference<List<UserRow>>() {
+    }.getType();
+
+    @Param({"1024", "65536", "1048576", "10485760"})
+    public int bodySize;
+
+    // clean=普通数据，attack=混入脚本片段
+    @Param({"clean", "attack"})
+    public String kind;
+
+    private MappingJackson2HttpMessageConverter plainConverter;
+    private XssJsonHttpMessageConverter xssConverter;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        plainConverter = new MappingJackson2HttpMessageConverter(Payloads.OBJECT_MAPPER);
+        xssConverter = new XssJsonHttpMessageConverter(Payloads.OBJECT_MAPPER, TbMetrics.noop());
+        List<Map<String, Object>> rows = Payloads.userList(bodySize);
+        if ("attack".equals(kind)) {
+            for (int i = 0; i < rows.size(); i += 10) {
+                rows.get(i).put("remark", Payloads.paramValue(64, true));
+            }
+        }
+        body = Payloads.OBJECT_MAPPER.writeValueAsBytes(rows);
+
+        // XssFilter匹配tb.xss.json-paths时打的标记，Thread作用域的Setup和基准方法在同一个线程执行
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/user/import");
+        request.setAttribute(XssFilter.JSON_SANITIZE_ATTRIBUTE, Boolean.TRUE);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Object plain() throws IOException {
+        return plainConverter.read(BODY_TYPE, null, message(body));
+    }
+
+    @Benchmark
+    public Object streaming() throws IOException {
+        return xssConverter.read(BODY_TYPE, null, message(body));
+    }
+
+    @Benchmark
+    public Object buffered() throws IOException {
+        MockHttpInputMessage input = message(body);
+        String text = new String(input.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        return xssConverter.read(BODY_TYPE, null, message(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MockHttpInputMessage message(byte[] bytes) {
+        MockHttpInputMessage message = new MockHttpInputMessage(bytes);
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return message;
+    }
+
+    /**
+     * 与 Payloads.userList 的字段一致
+     */
+    public static class UserRow {
+        public long id;
+        public String name;
+        public String phone;
+        public String idCard;
+        public String bankCard;
+        public String email;
+        public String remark;
+        public int status;
+    }
+}
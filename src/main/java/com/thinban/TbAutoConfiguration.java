@@ -1,27 +0,0 @@
-package com.thinban;
-
-import org.springframework.context.annotation.Configuration;
-
-
-@Configuration
-//@EnableConfigurationProperties(TbProperties.class)
-public class TbAutoConfiguration {
-
-//    private final TbProperties tbProperties;
-//
-//    public TbAutoConfiguration(TbProperties tbProperties) {
-//        this.tbProperties = tbProperties;
-//    }
-
-//    @Bean
-//    @ConditionalOnMissingBean(GlobalExceptionHandler.class)
-//    public GlobalExceptionHandler globalExceptionHandler() {
-//        return new GlobalExceptionHandler();
-//    }
-//
-//    @Bean
-//    @ConditionalOnMissingBean(MybatisConfig.class)
-//    public MybatisConfig mybatisConfig() {
-//        return new MybatisConfig();
-//    }
-}
@@ -1,21 +0,0 @@
-//package com.thinban;
-//
-//import org.springframework.boot.context.properties.ConfigurationProperties;
-//
-//@ConfigurationProperties(prefix = "tb") // 配置前缀
-//public class TbProperties {
-//    private MpConfig mp;
-//
-//    class MpConfig {
-//        private String mapper;
-//
-//        public String getMapper() {
-//            return mapper;
-//        }
-//
-//        public void setMapper(String mapper) {
-//            this.mapper = mapper;
-//        }
-//    }
-//
-//}
@@ -0,0 +1,18 @@
+package com.thinban.autoconfigure;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * starter 基础配置：绑定 tb.* 配置，注册 AOT/native-image 运行时提示
+ * <p>
+ * 各功能按需在 TbMetricsAutoConfiguration、TbRateLimitAutoConfiguration、TbRevocationAutoConfiguration、
+ * TbIdempotencyAutoConfiguration、TbWebAutoConfiguration、TbMybatisAutoConfiguration、TbMonitorAutoConfiguration 中条件装配，
+ * 不再需要 @ComponentScan("com.thinban")。
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(TbProperties.class)
+@ImportRuntimeHints(TbRuntimeHints.class)
+public class TbAutoConfiguration {
+}
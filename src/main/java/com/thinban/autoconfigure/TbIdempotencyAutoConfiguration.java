@@ -0,0 +1,53 @@
+package com.thinban.autoconfigure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.idempotency.IdempotencyStore;
+import com.thinban.idempotency.LocalIdempotencyStore;
+import com.thinban.idempotency.RedisIdempotencyStore;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 幂等存储：tb.idempotency.enabled=true 时为 IdempotencyFilter 提供 IdempotencyStore
+ * <p>
+ * tb.idempotency.backend=redis 时使用 RedisIdempotencyStore（没有 StringRedisTemplate 时启动失败，不退回单机存储），
+ * 默认使用单机的 LocalIdempotencyStore，也可以自定义 IdempotencyStore bean。
+ */
+@AutoConfiguration(after = TbAutoConfiguration.class,
+        afterName = {"org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+                "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration"})
+@ConditionalOnProperty(prefix = "tb.idempotency", name = "enabled", havingValue = "true")
+public class TbIdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(IdempotencyStore.class)
+    public LocalIdempotencyStore localIdempotencyStore(TbProperties tbProperties) {
+        TbProperties.Idempotency idempotency = tbProperties.getIdempotency();
+        if ("redis".equalsIgnoreCase(idempotency.getBackend())) {
+            // 内部配置类先于本方法处理，执行到这里说明 RedisIdempotencyStore 没有创建
+            throw new IllegalStateException("tb.idempotency.backend=redis，但没有StringRedisTemplate："
+                    + "请引入spring-boot-starter-data-redis并配置Redis，单机存储在多节点部署时无法去重");
+        }
+        return new LocalIdempotencyStore(idempotency.getMaxEntries());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = "tb.idempotency", name = "backend", havingValue = "redis")
+    static class RedisStoreConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(IdempotencyStore.class)
+        @ConditionalOnBean({StringRedisTemplate.class, ObjectMapper.class})
+        public RedisIdempotencyStore redisIdempotencyStore(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                                                           TbProperties tbProperties) {
+            return new RedisIdempotencyStore(stringRedisTemplate, objectMapper, tbProperties.getIdempotency().getRedisKeyPrefix());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.thinban.autoconfigure;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 兼容已废弃的配置项：把旧配置映射到对应的 tb.* 配置，启动时输出WARN
+ * <p>
+ * 映射的属性源优先级最低，同时配置了新旧两项时以 tb.* 为准。
+ */
+public class TbLegacyPropertiesEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    static final String PROPERTY_SOURCE_NAME = "tbLegacyProperties";
+
+    // key=旧配置，value=新配置
+    private static final Map<String, String> ALIASES = Map.of(
+            "security.rate-limit.max-requests", "tb.rate-limit.max-requests",
+            "security.rate-limit.window-seconds", "tb.rate-limit.window-seconds");
+
+    private final Log log;
+
+    public TbLegacyPropertiesEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(TbLegacyPropertiesEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Map<String, Object> mapped = new LinkedHashMap<>();
+        ALIASES.forEach((legacy, current) -> {
+            String value = environment.getProperty(legacy);
+            if (value != null) {
+                log.warn(legacy + "已废弃，请改用" + current);
+                mapped.put(current, value);
+            }
+        });
+        if (!mapped.isEmpty()) {
+            environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, mapped));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.metrics.LocalTbMetrics;
+import com.thinban.metrics.TbMeterBinder;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbMetricsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标门面：引入 Micrometer 时使用 LocalTbMetrics 并通过 TbMeterBinder 注册到 MeterRegistry，
+ * 引入 actuator 时提供 /actuator/tbmetrics 端点；否则（或 tb.metrics.enabled=false）使用 noop 实现。
+ * 自定义了 TbMetrics bean 时不创建 LocalTbMetrics，TbMeterBinder 和端点也不创建。
+ */
+@AutoConfiguration(after = TbAutoConfiguration.class)
+public class TbMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(TbMetrics.class)
+    public TbMetrics tbMetrics() {
+        return TbMetrics.noop();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "tb.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class MicrometerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(TbMetrics.class)
+        public LocalTbMetrics localTbMetrics() {
+            return new LocalTbMetrics();
+        }
+
+        @Bean
+        @ConditionalOnBean(LocalTbMetrics.class)
+        public TbMeterBinder tbMeterBinder(LocalTbMetrics localTbMetrics) {
+            return new TbMeterBinder(localTbMetrics);
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(Endpoint.class)
+        static class EndpointConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            @ConditionalOnAvailableEndpoint
+            @ConditionalOnBean(LocalTbMetrics.class)
+            public TbMetricsEndpoint tbMetricsEndpoint(LocalTbMetrics localTbMetrics) {
+                return new TbMetricsEndpoint(localTbMetrics);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.metrics.TbMetrics;
+import com.thinban.monitor.StepMonitorAspect;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * @StepMonitor 切面，需要引入 spring-boot-starter-aop
+ */
+@AutoConfiguration(after = {TbAutoConfiguration.class, TbMetricsAutoConfiguration.class})
+@ConditionalOnClass(Aspect.class)
+@ConditionalOnProperty(prefix = "tb.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TbMonitorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StepMonitorAspect stepMonitorAspect(TbMetrics tbMetrics) {
+        return new StepMonitorAspect(tbMetrics);
+    }
+}
@@ -0,0 +1,55 @@
+package com.thinban.autoconfigure;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.monitor.SlowSqlInterceptor;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * mybatis-plus 配置：分页插件、慢SQL监控，配置了 tb.mp.mapper 时扫描 mapper
+ * <p>
+ * 需要在 MybatisPlusAutoConfiguration 之前处理，保证 @MapperScan 生效后不再走它的默认 @Mapper 扫描。
+ */
+@AutoConfiguration(after = {TbAutoConfiguration.class, TbMetricsAutoConfiguration.class},
+        beforeName = "com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration")
+@ConditionalOnClass(MybatisPlusInterceptor.class)
+public class TbMybatisAutoConfiguration {
+
+    /**
+     * 添加分页插件
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL)); // 如果配置多个插件, 切记分页最后添加
+        // 如果有多数据源可以不配具体类型, 否则都建议配上具体的 DbType
+        return interceptor;
+    }
+
+    /**
+     * 慢SQL监控插件：统计每个MappedStatement的耗时和行数（同时记录到TbMetrics），只打印超过阈值的SQL
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tb.mp.slow-sql", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SlowSqlInterceptor slowSqlInterceptor(TbProperties tbProperties, ObjectProvider<TbMetrics> tbMetrics) {
+        TbProperties.SlowSql slowSql = tbProperties.getMp().getSlowSql();
+        return new SlowSqlInterceptor(slowSql.getThresholdMs(), slowSql.getParamMaxLength(), tbMetrics.getIfAvailable(TbMetrics::noop));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "tb.mp", name = "mapper")
+    @MapperScan("${tb.mp.mapper}")
+    static class MapperScanConfiguration {
+    }
+}
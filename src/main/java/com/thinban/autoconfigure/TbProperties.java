@@ -0,0 +1,952 @@
+package com.thinban.autoconfigure;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "tb") // 配置前缀
+public class TbProperties {
+    private final Mp mp = new Mp();
+    private final Jwt jwt = new Jwt();
+    private final Xss xss = new Xss();
+    private final RateLimit rateLimit = new RateLimit();
+    private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+    private final SecurityHeader securityHeader = new SecurityHeader();
+    private final Sensitive sensitive = new Sensitive();
+    private final Etag etag = new Etag();
+    private final Compression compression = new Compression();
+    private final Idempotency idempotency = new Idempotency();
+    private final Filter filter = new Filter();
+    private final Monitor monitor = new Monitor();
+    private final Metrics metrics = new Metrics();
+
+    public Mp getMp() {
+        return mp;
+    }
+
+    public Jwt getJwt() {
+        return jwt;
+    }
+
+    public Xss getXss() {
+        return xss;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public SecurityHeader getSecurityHeader() {
+        return securityHeader;
+    }
+
+    public Sensitive getSensitive() {
+        return sensitive;
+    }
+
+    public Etag getEtag() {
+        return etag;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public Monitor getMonitor() {
+        return monitor;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public static class Mp {
+        /**
+         * mybatis mapper代码位置，不配置时不扫描mapper
+         */
+        private String mapper;
+        private final SlowSql slowSql = new SlowSql();
+
+        public String getMapper() {
+            return mapper;
+        }
+
+        public void setMapper(String mapper) {
+            this.mapper = mapper;
+        }
+
+        public SlowSql getSlowSql() {
+            return slowSql;
+        }
+    }
+
+    public static class SlowSql {
+        /**
+         * 是否开启慢SQL监控
+         */
+        private boolean enabled = true;
+        /**
+         * 慢SQL阈值（毫秒），超过阈值的SQL才会打印
+         */
+        private long thresholdMs = 1000;
+        /**
+         * 慢SQL日志中单个参数值的最大打印长度
+         */
+        private int paramMaxLength = 200;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getThresholdMs() {
+            return thresholdMs;
+        }
+
+        public void setThresholdMs(long thresholdMs) {
+            this.thresholdMs = thresholdMs;
+        }
+
+        public int getParamMaxLength() {
+            return paramMaxLength;
+        }
+
+        public void setParamMaxLength(int paramMaxLength) {
+            this.paramMaxLength = paramMaxLength;
+        }
+    }
+
+    public static class Jwt {
+        /**
+         * 是否启用JwtFilter；启用时必须配置tb.jwt.key，否则启动失败
+         */
+        private boolean enabled = true;
+        /**
+         * jwt的key
+         */
+        private String key;
+        /**
+         * JwtFilter的白名单，支持Ant风格
+         */
+        private List<String> excludes = new ArrayList<>();
+        private final Revocation revocation = new Revocation();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public List<String> getExcludes() {
+            return excludes;
+        }
+
+        public void setExcludes(List<String> excludes) {
+            this.excludes = excludes;
+        }
+
+        public Revocation getRevocation() {
+            return revocation;
+        }
+    }
+
+    public static class Revocation {
+        /**
+         * 是否启用Token吊销（需要建tb_revoked_token表，表结构见RevokedToken）
+         */
+        private boolean enabled = false;
+        /**
+         * 预计吊销记录数，超过后按实际记录数重建
+         */
+        private int expectedEntries = 100000;
+        /**
+         * 布隆过滤器误判率，误判的请求需要再查一次指纹表
+         */
+        private double fpp = 0.01;
+        /**
+         * 增量加载新吊销记录的间隔（毫秒），即其他节点吊销后在本节点生效的最长延迟
+         */
+        private long refreshIntervalMs = 1000;
+        /**
+         * 全量重建的间隔（分钟），清理已过期的记录
+         */
+        private long rebuildIntervalMinutes = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getExpectedEntries() {
+            return expectedEntries;
+        }
+
+        public void setExpectedEntries(int expectedEntries) {
+            this.expectedEntries = expectedEntries;
+        }
+
+        public double getFpp() {
+            return fpp;
+        }
+
+        public void setFpp(double fpp) {
+            this.fpp = fpp;
+        }
+
+        public long getRefreshIntervalMs() {
+            return refreshIntervalMs;
+        }
+
+        public void setRefreshIntervalMs(long refreshIntervalMs) {
+            this.refreshIntervalMs = refreshIntervalMs;
+        }
+
+        public long getRebuildIntervalMinutes() {
+            return rebuildIntervalMinutes;
+        }
+
+        public void setRebuildIntervalMinutes(long rebuildIntervalMinutes) {
+            this.rebuildIntervalMinutes = rebuildIntervalMinutes;
+        }
+    }
+
+    public static class Xss {
+        /**
+         * 是否启用XssFilter
+         */
+        private boolean enabled = true;
+        /**
+         * 需要过滤JSON请求体字符串值的路径，支持Ant风格；默认不过滤JSON请求体
+         */
+        private List<String> jsonPaths = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getJsonPaths() {
+            return jsonPaths;
+        }
+
+        public void setJsonPaths(List<String> jsonPaths) {
+            this.jsonPaths = jsonPaths;
+        }
+    }
+
+    public static class RateLimit {
+        /**
+         * 是否启用RateLimitFilter
+         */
+        private boolean enabled = true;
+        /**
+         * 时间窗口内每个客户端的最大请求数（开启集群限流时为全集群共享），兼容已废弃的security.rate-limit.max-requests
+         */
+        private int maxRequests = 100;
+        /**
+         * 时间窗口（秒），兼容已废弃的security.rate-limit.window-seconds
+         */
+        private int windowSeconds = 60;
+        private final Cluster cluster = new Cluster();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public int getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public Cluster getCluster() {
+            return cluster;
+        }
+    }
+
+    public static class Cluster {
+        /**
+         * 是否启用集群限流（各节点共享tb.rate-limit.max-requests的额度）
+         */
+        private boolean enabled = false;
+        /**
+         * 共享计数存储：redis、jdbc或local（进程内，单节点部署时使用）
+         */
+        private String backend = "redis";
+        /**
+         * 本地增量同步到共享存储的间隔（毫秒）
+         */
+        private long syncIntervalMs = 5;
+        /**
+         * redis计数key的前缀
+         */
+        private String redisKeyPrefix = "tb:rate-limit:";
+        /**
+         * redis计数key的分桶数：按客户端标识哈希分桶，每个桶一个哈希标签（Redis Cluster中的一个槽），各节点须一致
+         */
+        private int redisBuckets = 16;
+        /**
+         * jdbc计数表名，表结构见JdbcRateLimitBackend
+         */
+        private String jdbcTable = "tb_rate_limit";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+
+        public String getRedisKeyPrefix() {
+            return redisKeyPrefix;
+        }
+
+        public void setRedisKeyPrefix(String redisKeyPrefix) {
+            this.redisKeyPrefix = redisKeyPrefix;
+        }
+
+        public int getRedisBuckets() {
+            return redisBuckets;
+        }
+
+        public void setRedisBuckets(int redisBuckets) {
+            this.redisBuckets = redisBuckets;
+        }
+
+        public String getJdbcTable() {
+            return jdbcTable;
+        }
+
+        public void setJdbcTable(String jdbcTable) {
+            this.jdbcTable = jdbcTable;
+        }
+    }
+
+    public static class ConcurrencyLimit {
+        /**
+         * 是否启用ConcurrencyLimitFilter（自适应并发限制）
+         */
+        private boolean enabled = false;
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 20;
+        /**
+         * 最小并发上限
+         */
+        private int minLimit = 5;
+        /**
+         * 最大并发上限，也是critical-paths请求的上限，建议不超过容器工作线程数
+         */
+        private int maxLimit = 200;
+        /**
+         * 短期平均耗时超过长期平均耗时多少倍时开始降低上限
+         */
+        private double tolerance = 1.5;
+        /**
+         * 上限调整的平滑系数(0,1]，越小调整越慢
+         */
+        private double smoothing = 0.2;
+        /**
+         * 采样窗口（毫秒），每个窗口最多调整一次上限
+         */
+        private long windowMs = 100;
+        /**
+         * 高优先级路径（健康检查、登录等），只受max-limit限制，支持Ant风格
+         */
+        private List<String> criticalPaths = new ArrayList<>(List.of("/actuator/health/**"));
+        /**
+         * 低优先级路径（导出、报表等），过载时最先被拒绝，支持Ant风格
+         */
+        private List<String> lowPaths = new ArrayList<>();
+        /**
+         * 503响应的Retry-After（秒）
+         */
+        private long retryAfterSeconds = 1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public long getWindowMs() {
+            return windowMs;
+        }
+
+        public void setWindowMs(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        public List<String> getCriticalPaths() {
+            return criticalPaths;
+        }
+
+        public void setCriticalPaths(List<String> criticalPaths) {
+            this.criticalPaths = criticalPaths;
+        }
+
+        public List<String> getLowPaths() {
+            return lowPaths;
+        }
+
+        public void setLowPaths(List<String> lowPaths) {
+            this.lowPaths = lowPaths;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    public static class SecurityHeader {
+        /**
+         * 是否启用SecurityHeaderFilter
+         */
+        private boolean enabled = true;
+        /**
+         * 允许HTTP缓存的GET/HEAD路径，支持Ant风格
+         */
+        private List<String> cacheablePaths = new ArrayList<>();
+        /**
+         * 可缓存路径使用的Cache-Control
+         */
+        private String cacheControl = "public, max-age=3600";
+        /**
+         * 自定义响应头策略，key为策略名称；按配置顺序匹配，优先于cacheable-paths
+         */
+        private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getCacheablePaths() {
+            return cacheablePaths;
+        }
+
+        public void setCacheablePaths(List<String> cacheablePaths) {
+            this.cacheablePaths = cacheablePaths;
+        }
+
+        public String getCacheControl() {
+            return cacheControl;
+        }
+
+        public void setCacheControl(String cacheControl) {
+            this.cacheControl = cacheControl;
+        }
+
+        public Map<String, Profile> getProfiles() {
+            return profiles;
+        }
+
+        public void setProfiles(Map<String, Profile> profiles) {
+            this.profiles = profiles;
+        }
+
+        public static class Profile {
+            /**
+             * 使用该策略的路径，支持Ant风格
+             */
+            private List<String> paths = new ArrayList<>();
+            /**
+             * 使用该策略的HTTP方法，为空时不限制
+             */
+            private List<String> methods = new ArrayList<>();
+            /**
+             * 在默认响应头基础上覆盖的响应头，值为空时不输出该响应头
+             */
+            private Map<String, String> headers = new LinkedHashMap<>();
+
+            public List<String> getPaths() {
+                return paths;
+            }
+
+            public void setPaths(List<String> paths) {
+                this.paths = paths;
+            }
+
+            public List<String> getMethods() {
+                return methods;
+            }
+
+            public void setMethods(List<String> methods) {
+                this.methods = methods;
+            }
+
+            public Map<String, String> getHeaders() {
+                return headers;
+            }
+
+            public void setHeaders(Map<String, String> headers) {
+                this.headers = headers;
+            }
+        }
+    }
+
+    public static class Sensitive {
+        /**
+         * 是否启用SensitiveInfoFilter
+         */
+        private boolean enabled = true;
+        /**
+         * 不做脱敏的路径（如RStream流式接口），支持Ant风格
+         */
+        private List<String> excludes = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getExcludes() {
+            return excludes;
+        }
+
+        public void setExcludes(List<String> excludes) {
+            this.excludes = excludes;
+        }
+    }
+
+    public static class Etag {
+        /**
+         * 是否启用EtagFilter（弱ETag + 304）
+         */
+        private boolean enabled = false;
+        /**
+         * 不计算ETag的路径（如RStream流式接口），支持Ant风格
+         */
+        private List<String> excludePaths = new ArrayList<>();
+        /**
+         * 缓存的响应体上限（字节），超过的响应不计算ETag，直接写出
+         */
+        private int maxBodyBytes = 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getExcludePaths() {
+            return excludePaths;
+        }
+
+        public void setExcludePaths(List<String> excludePaths) {
+            this.excludePaths = excludePaths;
+        }
+
+        public int getMaxBodyBytes() {
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+
+    public static class Compression {
+        /**
+         * 是否启用CompressionFilter（响应压缩）
+         */
+        private boolean enabled = false;
+        /**
+         * 压缩的最小响应体字节数
+         */
+        private int minSize = 2048;
+        /**
+         * 支持的编码，按优先顺序排列；br、zstd需要引入brotli4j、zstd-jni，未引入时忽略
+         */
+        private List<String> encodings = new ArrayList<>(List.of("br", "zstd", "gzip"));
+        /**
+         * gzip压缩级别（1~9）
+         */
+        private int gzipLevel = 6;
+        /**
+         * 压缩的Content-Type
+         */
+        private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "application/x-ndjson", "application/xml",
+                "text/html", "text/xml", "text/plain", "text/css", "text/javascript", "application/javascript"));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public List<String> getEncodings() {
+            return encodings;
+        }
+
+        public void setEncodings(List<String> encodings) {
+            this.encodings = encodings;
+        }
+
+        public int getGzipLevel() {
+            return gzipLevel;
+        }
+
+        public void setGzipLevel(int gzipLevel) {
+            this.gzipLevel = gzipLevel;
+        }
+
+        public List<String> getMimeTypes() {
+            return mimeTypes;
+        }
+
+        public void setMimeTypes(List<String> mimeTypes) {
+            this.mimeTypes = mimeTypes;
+        }
+    }
+
+    public static class Idempotency {
+        /**
+         * 是否启用IdempotencyFilter（按Idempotency-Key请求头去重）
+         */
+        private boolean enabled = false;
+        /**
+         * 幂等key请求头
+         */
+        private String header = "Idempotency-Key";
+        /**
+         * 处理的请求方法
+         */
+        private List<String> methods = new ArrayList<>(List.of("POST", "PUT", "PATCH", "DELETE"));
+        /**
+         * 已完成请求的响应保留时间（秒）
+         */
+        private long ttlSeconds = 86400;
+        /**
+         * 执行中标记的过期时间（秒），应大于接口的最长执行时间
+         */
+        private long inFlightTimeoutSeconds = 60;
+        /**
+         * 重复请求等待第一个请求完成的最长时间（毫秒），超时返回409
+         */
+        private long waitTimeoutMs = 10000;
+        /**
+         * 保存的响应体上限（字节），超过的响应不保存
+         */
+        private int maxBodyBytes = 8192;
+        /**
+         * 计算请求指纹时缓存的请求体上限（字节），超过时用Content-Length和Content-Digest等摘要请求头代替
+         */
+        private int maxRequestBytes = 1024 * 1024;
+        /**
+         * 存储：local（单机，有界）或redis（多节点共享，需要spring-boot-starter-data-redis，没有StringRedisTemplate时启动失败）
+         */
+        private String backend = "local";
+        /**
+         * local存储最多保存的记录数
+         */
+        private int maxEntries = 10000;
+        /**
+         * redis存储的key前缀
+         */
+        private String redisKeyPrefix = "tb:idempotency:";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+
+        public void setHeader(String header) {
+            this.header = header;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getInFlightTimeoutSeconds() {
+            return inFlightTimeoutSeconds;
+        }
+
+        public void setInFlightTimeoutSeconds(long inFlightTimeoutSeconds) {
+            this.inFlightTimeoutSeconds = inFlightTimeoutSeconds;
+        }
+
+        public long getWaitTimeoutMs() {
+            return waitTimeoutMs;
+        }
+
+        public void setWaitTimeoutMs(long waitTimeoutMs) {
+            this.waitTimeoutMs = waitTimeoutMs;
+        }
+
+        public int getMaxBodyBytes() {
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        public int getMaxRequestBytes() {
+            return maxRequestBytes;
+        }
+
+        public void setMaxRequestBytes(int maxRequestBytes) {
+            this.maxRequestBytes = maxRequestBytes;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public String getRedisKeyPrefix() {
+            return redisKeyPrefix;
+        }
+
+        public void setRedisKeyPrefix(String redisKeyPrefix) {
+            this.redisKeyPrefix = redisKeyPrefix;
+        }
+    }
+
+    public static class Filter {
+        /**
+         * 过滤器模式：classic（每个过滤器单独注册）或fused（由FusedFilter在一个过滤器中依次执行各阶段）
+         */
+        private String mode = "classic";
+        private final Fused fused = new Fused();
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public Fused getFused() {
+            return fused;
+        }
+
+        public boolean isFused() {
+            return "fused".equalsIgnoreCase(mode);
+        }
+    }
+
+    public static class Fused {
+        /**
+         * 阶段执行顺序，未启用的阶段忽略。默认先认证再限流（限流和幂等可以按用户区分），
+         * 脱敏在认证之内（401响应不经过脱敏），幂等在脱敏之外（缓存和重放的是脱敏后的响应）；
+         * 配置为空时按各过滤器的 @Order 排列，与classic模式的顺序一致
+         */
+        private List<String> stages = new ArrayList<>(List.of("concurrency-limit", "xss", "compression", "security-header",
+                "jwt", "rate-limit", "idempotency", "etag", "sensitive"));
+        /**
+         * 按路径跳过阶段：key=阶段名称，value=路径（Ant风格）
+         */
+        private Map<String, List<String>> skip = new HashMap<>();
+
+        public List<String> getStages() {
+            return stages;
+        }
+
+        public void setStages(List<String> stages) {
+            this.stages = stages;
+        }
+
+        public Map<String, List<String>> getSkip() {
+            return skip;
+        }
+
+        public void setSkip(Map<String, List<String>> skip) {
+            this.skip = skip;
+        }
+    }
+
+    public static class Monitor {
+        /**
+         * 是否启用@StepMonitor切面
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class Metrics {
+        /**
+         * 是否记录starter指标（需要引入Micrometer，未引入时不记录）
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.limit.JdbcRateLimitBackend;
+import com.thinban.limit.LocalRateLimitBackend;
+import com.thinban.limit.RateLimitBackend;
+import com.thinban.limit.RedisRateLimitBackend;
+import com.thinban.metrics.TbMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 集群限流：tb.rate-limit.cluster.enabled=true 时 RateLimitFilter 改为全集群共享计数
+ * <p>
+ * 共享计数存储按 tb.rate-limit.cluster.backend 选择 redis、jdbc 或 local，也可以自定义 RateLimitBackend bean。
+ * 所选存储依赖的 StringRedisTemplate/JdbcTemplate 不存在时启动失败，不会静默退回单机计数。
+ */
+@AutoConfiguration(after = {TbAutoConfiguration.class, TbMetricsAutoConfiguration.class},
+        afterName = {"org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+                "org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration"})
+@ConditionalOnProperty(prefix = "tb.rate-limit.cluster", name = "enabled", havingValue = "true")
+public class TbRateLimitAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClusterRateLimiter clusterRateLimiter(ObjectProvider<RateLimitBackend> rateLimitBackends, TbProperties tbProperties,
+                                                 TbMetrics tbMetrics) {
+        TbProperties.RateLimit rateLimit = tbProperties.getRateLimit();
+        // 内部配置类先于本方法处理，没有 RateLimitBackend 说明所选存储的依赖不存在
+        RateLimitBackend rateLimitBackend = rateLimitBackends.getIfAvailable();
+        if (rateLimitBackend == null) {
+            throw new IllegalStateException("tb.rate-limit.cluster.enabled=true，但tb.rate-limit.cluster.backend="
+                    + rateLimit.getCluster().getBackend() + "没有可用的共享计数存储："
+                    + "redis需要引入spring-boot-starter-data-redis并配置Redis，jdbc需要JdbcTemplate");
+        }
+        return new ClusterRateLimiter(rateLimitBackend, rateLimit.getMaxRequests(), rateLimit.getWindowSeconds(),
+                rateLimit.getCluster().getSyncIntervalMs(), tbMetrics);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = "tb.rate-limit.cluster", name = "backend", havingValue = "redis", matchIfMissing = true)
+    static class RedisBackendConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(RateLimitBackend.class)
+        @ConditionalOnBean(StringRedisTemplate.class)
+        public RedisRateLimitBackend redisRateLimitBackend(StringRedisTemplate stringRedisTemplate, TbProperties tbProperties) {
+            TbProperties.Cluster cluster = tbProperties.getRateLimit().getCluster();
+            return new RedisRateLimitBackend(stringRedisTemplate, cluster.getRedisKeyPrefix(), cluster.getRedisBuckets());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(JdbcTemplate.class)
+    @ConditionalOnProperty(prefix = "tb.rate-limit.cluster", name = "backend", havingValue = "jdbc")
+    static class JdbcBackendConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(RateLimitBackend.class)
+        @ConditionalOnBean(JdbcTemplate.class)
+        public JdbcRateLimitBackend jdbcRateLimitBackend(JdbcTemplate jdbcTemplate, TbProperties tbProperties) {
+            return new JdbcRateLimitBackend(jdbcTemplate, tbProperties.getRateLimit().getCluster().getJdbcTable());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "tb.rate-limit.cluster", name = "backend", havingValue = "local")
+    static class LocalBackendConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(RateLimitBackend.class)
+        public LocalRateLimitBackend localRateLimitBackend() {
+            return new LocalRateLimitBackend();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.metrics.TbMetrics;
+import com.thinban.revoke.RevokedTokenMapper;
+import com.thinban.revoke.TokenRevocationService;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token吊销：tb.jwt.revocation.enabled=true 时 JwtFilter 检查Token是否已被吊销
+ * <p>
+ * RevokedTokenMapper 直接注册到 MyBatis 配置，不声明 MapperFactoryBean，避免影响 MybatisPlusAutoConfiguration 的默认 mapper 扫描。
+ */
+@AutoConfiguration(after = {TbAutoConfiguration.class, TbMetricsAutoConfiguration.class},
+        afterName = "com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration")
+@ConditionalOnClass(SqlSessionTemplate.class)
+@ConditionalOnProperty(prefix = "tb.jwt.revocation", name = "enabled", havingValue = "true")
+public class TbRevocationAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(SqlSessionTemplate.class)
+    public TokenRevocationService tokenRevocationService(SqlSessionTemplate sqlSessionTemplate, TbProperties tbProperties, TbMetrics tbMetrics) {
+        org.apache.ibatis.session.Configuration configuration = sqlSessionTemplate.getConfiguration();
+        if (!configuration.hasMapper(RevokedTokenMapper.class)) {
+            configuration.addMapper(RevokedTokenMapper.class);
+        }
+        TbProperties.Revocation revocation = tbProperties.getJwt().getRevocation();
+        return new TokenRevocationService(sqlSessionTemplate.getMapper(RevokedTokenMapper.class),
+                revocation.getExpectedEntries(), revocation.getFpp(), revocation.getRefreshIntervalMs(),
+                TimeUnit.MINUTES.toMillis(revocation.getRebuildIntervalMinutes()), tbMetrics);
+    }
+}
@@ -0,0 +1,37 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.core.R;
+import com.thinban.core.RStream;
+import com.thinban.idempotency.IdempotencyRecord;
+import com.thinban.revoke.RevokedToken;
+import com.thinban.revoke.RevokedTokenMapper;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.util.ClassUtils;
+
+/**
+ * GraalVM native-image 运行时提示：Jackson 通过反射序列化 R，MyBatis 插件通过 JDK 动态代理包装 Executor，
+ * Token吊销的 mapper 代理和实体，RedisIdempotencyStore 通过 Jackson 序列化的 IdempotencyRecord
+ */
+public class TbRuntimeHints implements RuntimeHintsRegistrar {
+    private static final String MYBATIS_EXECUTOR = "org.apache.ibatis.executor.Executor";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(R.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(TypeReference.of(RStream.class.getName() + "$JsonArraySerializer"),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(IdempotencyRecord.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        if (ClassUtils.isPresent(MYBATIS_EXECUTOR, classLoader)) {
+            hints.reflection().registerType(TypeReference.of(MYBATIS_EXECUTOR), MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.proxies().registerJdkProxy(TypeReference.of(MYBATIS_EXECUTOR));
+            hints.proxies().registerJdkProxy(RevokedTokenMapper.class);
+            hints.reflection().registerType(RevokedToken.class, MemberCategory.values());
+        }
+    }
+}
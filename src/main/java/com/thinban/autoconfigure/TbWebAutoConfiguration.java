@@ -0,0 +1,218 @@
+package com.thinban.autoconfigure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.compress.ContentEncoder;
+import com.thinban.compress.ContentEncoders;
+import com.thinban.config.*;
+import com.thinban.idempotency.IdempotencyStore;
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.limit.GradientConcurrencyLimiter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.DeflaterPool;
+import com.thinban.revoke.TokenRevocationService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Web相关配置：全局异常处理、RStream输出、各过滤器
+ * <p>
+ * 每个过滤器通过 tb.xxx.enabled 单独开关（EtagFilter、ConcurrencyLimitFilter、IdempotencyFilter、CompressionFilter默认关闭）。
+ * JwtFilter 默认启用，未配置 tb.jwt.key 时启动失败，不需要登录校验时显式设置 tb.jwt.enabled=false（启动时输出WARN）。
+ * classic 模式的过滤器顺序取类上的 @Order；tb.filter.mode=fused 时各过滤器的注册被禁用，
+ * 改由 FusedFilter 按 tb.filter.fused.stages 的顺序在一个过滤器中执行。
+ * 各过滤器和全局异常处理通过 TbMetrics 记录指标。
+ */
+@AutoConfiguration(after = {TbAutoConfiguration.class, TbMetricsAutoConfiguration.class, TbRateLimitAutoConfiguration.class,
+        TbRevocationAutoConfiguration.class, TbIdempotencyAutoConfiguration.class})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(DispatcherServlet.class)
+public class TbWebAutoConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(TbWebAutoConfiguration.class);
+
+    private final TbProperties tbProperties;
+    private final TbMetrics tbMetrics;
+
+    public TbWebAutoConfiguration(TbProperties tbProperties, TbMetrics tbMetrics) {
+        this.tbProperties = tbProperties;
+        this.tbMetrics = tbMetrics;
+        if (!tbProperties.getJwt().isEnabled()) {
+            log.warn("tb.jwt.enabled=false，未注册JwtFilter，接口不做登录校验");
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(GlobalExceptionHandler.class)
+    public GlobalExceptionHandler globalExceptionHandler() {
+        return new GlobalExceptionHandler(tbMetrics);
+    }
+
+    @Bean
+    public RStreamWebConfig rStreamWebConfig(ObjectMapper objectMapper) {
+        return new RStreamWebConfig(objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.concurrency-limit", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ObjectMapper objectMapper) {
+        TbProperties.ConcurrencyLimit limit = tbProperties.getConcurrencyLimit();
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(limit.getInitialLimit(), limit.getMinLimit(),
+                limit.getMaxLimit(), limit.getTolerance(), limit.getSmoothing(), limit.getWindowMs());
+        return registration(new ConcurrencyLimitFilter(objectMapper, limiter, limit.getCriticalPaths(), limit.getLowPaths(),
+                limit.getRetryAfterSeconds(), tbMetrics), "concurrencyLimitFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.xss", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<XssFilter> xssFilterRegistration() {
+        return registration(new XssFilter(tbProperties.getXss().getJsonPaths(), tbMetrics), "xssFilter");
+    }
+
+    /**
+     * 过滤 tb.xss.json-paths 匹配的JSON请求体，未配置路径时不注册转换器
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.xss", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public XssJsonWebConfig xssJsonWebConfig(ObjectMapper objectMapper) {
+        return new XssJsonWebConfig(objectMapper, tbMetrics, !tbProperties.getXss().getJsonPaths().isEmpty());
+    }
+
+    /**
+     * 响应压缩，gzip 的 Deflater 池大小取CPU核数×2
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.compression", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<CompressionFilter> compressionFilterRegistration() {
+        TbProperties.Compression compression = tbProperties.getCompression();
+        DeflaterPool deflaterPool = new DeflaterPool(Runtime.getRuntime().availableProcessors() * 2, compression.getGzipLevel());
+        List<ContentEncoder> encoders = ContentEncoders.create(compression.getEncodings(), deflaterPool);
+        log.info("CompressionFilter支持的编码: {}", encoders.stream().map(ContentEncoder::getName).toList());
+        return registration(new CompressionFilter(encoders, compression.getMinSize(), compression.getMimeTypes(), tbMetrics),
+                "compressionFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(ObjectMapper objectMapper,
+                                                                               ObjectProvider<ClusterRateLimiter> clusterRateLimiter) {
+        TbProperties.RateLimit rateLimit = tbProperties.getRateLimit();
+        return registration(new RateLimitFilter(objectMapper, rateLimit.getMaxRequests(), rateLimit.getWindowSeconds(),
+                clusterRateLimiter.getIfAvailable(), tbMetrics), "rateLimitFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.security-header", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<SecurityHeaderFilter> securityHeaderFilterRegistration() {
+        TbProperties.SecurityHeader securityHeader = tbProperties.getSecurityHeader();
+        List<SecurityHeaderFilter.Profile> profiles = new ArrayList<>();
+        securityHeader.getProfiles().forEach((name, profile) -> profiles.add(new SecurityHeaderFilter.Profile(name,
+                profile.getPaths(), profile.getMethods(), profile.getHeaders())));
+        return registration(new SecurityHeaderFilter(securityHeader.getCacheablePaths(), securityHeader.getCacheControl(),
+                profiles, tbMetrics), "securityHeaderFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.etag", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<EtagFilter> etagFilterRegistration() {
+        TbProperties.Etag etag = tbProperties.getEtag();
+        return registration(new EtagFilter(etag.getExcludePaths(), etag.getMaxBodyBytes(), tbMetrics), "etagFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.sensitive", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<SensitiveInfoFilter> sensitiveInfoFilterRegistration() {
+        return registration(new SensitiveInfoFilter(tbProperties.getSensitive().getExcludes(), tbMetrics), "sensitiveInfoFilter");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.jwt", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<JwtFilter> jwtFilterRegistration(ObjectMapper objectMapper,
+                                                                   ObjectProvider<TokenRevocationService> revocationService) {
+        TbProperties.Jwt jwt = tbProperties.getJwt();
+        if (!StringUtils.hasText(jwt.getKey())) {
+            // 不能静默跳过认证过滤器
+            throw new IllegalStateException("未配置tb.jwt.key：JwtFilter默认启用，请配置tb.jwt.key，不需要登录校验时设置tb.jwt.enabled=false");
+        }
+        FilterRegistrationBean<JwtFilter> registration = registration(
+                new JwtFilter(objectMapper, jwt.getKey(), jwt.getExcludes(), revocationService.getIfAvailable(), tbMetrics), "jwtFilter");
+        // forward 到的接口同样需要登录
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.FORWARD);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.idempotency", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilterRegistration(ObjectMapper objectMapper,
+                                                                                   IdempotencyStore idempotencyStore) {
+        TbProperties.Idempotency idempotency = tbProperties.getIdempotency();
+        return registration(new IdempotencyFilter(objectMapper, idempotencyStore, idempotency.getHeader(), idempotency.getMethods(),
+                TimeUnit.SECONDS.toMillis(idempotency.getTtlSeconds()), TimeUnit.SECONDS.toMillis(idempotency.getInFlightTimeoutSeconds()),
+                idempotency.getWaitTimeoutMs(), idempotency.getMaxBodyBytes(), idempotency.getMaxRequestBytes(), tbMetrics),
+                "idempotencyFilter");
+    }
+
+    /**
+     * 融合过滤器：按 tb.filter.fused.stages 的顺序执行已启用的阶段（默认先认证再限流，见 TbProperties.Fused），
+     * 配置为空时按各过滤器的 @Order（与classic模式一致）
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tb.filter", name = "mode", havingValue = "fused")
+    public FilterRegistrationBean<FusedFilter> fusedFilterRegistration(
+            ObjectProvider<FilterRegistrationBean<? extends AbstractStageFilter>> stageRegistrations) {
+        Map<String, FilterStage> stageByName = new LinkedHashMap<>();
+        stageRegistrations.orderedStream().forEach(r -> stageByName.put(r.getFilter().getStageName(), r.getFilter()));
+
+        TbProperties.Fused fused = tbProperties.getFilter().getFused();
+        // orderedStream 按 registration() 中取自 @Order 的顺序排列，tb.filter.fused.stages 为空时使用
+        List<String> names = fused.getStages().isEmpty() ? new ArrayList<>(stageByName.keySet()) : fused.getStages();
+        List<FilterStage> ordered = new ArrayList<>();
+        for (String name : names) {
+            FilterStage stage = stageByName.remove(name.trim());
+            if (stage != null) {
+                ordered.add(stage);
+            } else {
+                log.info("FusedFilter阶段未启用，已忽略: {}", name);
+            }
+        }
+        if (!stageByName.isEmpty()) {
+            log.warn("以下阶段未配置在tb.filter.fused.stages中，不会执行: {}", stageByName.keySet());
+        }
+        log.info("FusedFilter阶段顺序: {}", ordered.stream().map(FilterStage::getStageName).toList());
+
+        FilterRegistrationBean<FusedFilter> registration =
+                new FilterRegistrationBean<>(new FusedFilter(ordered, fused.getSkip(), tbMetrics));
+        registration.setName("fusedFilter");
+        registration.setOrder(0);
+        return registration;
+    }
+
+    /**
+     * 注册过滤器，顺序取类上的 @Order；fused 模式下只创建不注册（由 FusedFilter 执行）
+     */
+    private <T extends Filter> FilterRegistrationBean<T> registration(T filter, String name) {
+        FilterRegistrationBean<T> registration = new FilterRegistrationBean<>(filter);
+        registration.setName(name);
+        registration.setOrder(OrderUtils.getOrder(filter.getClass(), Ordered.LOWEST_PRECEDENCE));
+        registration.setEnabled(!tbProperties.getFilter().isFused());
+        return registration;
+    }
+}
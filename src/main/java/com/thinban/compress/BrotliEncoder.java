@@ -0,0 +1,39 @@
+package com.thinban.compress;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * brotli：需要引入 com.aayushatharva.brotli4j:brotli4j（含当前平台的 native 库）
+ */
+public class BrotliEncoder implements ContentEncoder {
+    private final Encoder.Parameters parameters;
+
+    /**
+     * @param quality 压缩质量 0~11，动态响应一般取4~5（压缩率接近gzip -9，速度与gzip -6相当）
+     */
+    public BrotliEncoder(int quality) {
+        this.parameters = new Encoder.Parameters().setQuality(quality);
+    }
+
+    /**
+     * native 库是否可以加载
+     */
+    public static boolean isAvailable() {
+        return Brotli4jLoader.isAvailable();
+    }
+
+    @Override
+    public String getName() {
+        return "br";
+    }
+
+    @Override
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return new BrotliOutputStream(out, parameters);
+    }
+}
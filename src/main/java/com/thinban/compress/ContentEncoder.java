@@ -0,0 +1,20 @@
+package com.thinban.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 响应体压缩编码（Content-Encoding）
+ */
+public interface ContentEncoder {
+
+    /**
+     * Content-Encoding 的值，如 gzip、br、zstd
+     */
+    String getName();
+
+    /**
+     * 包装输出流：flush() 时把已写入的数据压缩输出（流式响应可以及时送达），close() 时写完结尾、释放资源并关闭 out
+     */
+    OutputStream wrap(OutputStream out) throws IOException;
+}
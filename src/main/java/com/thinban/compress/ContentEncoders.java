@@ -0,0 +1,58 @@
+package com.thinban.compress;
+
+import com.thinban.util.DeflaterPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 按配置创建可用的压缩编码：gzip 总是可用，br、zstd 只在引入了对应依赖且 native 库可以加载时可用
+ */
+public final class ContentEncoders {
+    private static final Logger log = LoggerFactory.getLogger(ContentEncoders.class);
+
+    private static final String BROTLI_CLASS = "com.aayushatharva.brotli4j.Brotli4jLoader";
+    private static final String ZSTD_CLASS = "com.github.luben.zstd.ZstdOutputStream";
+
+    // br、zstd 的压缩级别，取各自适合动态响应的默认值
+    private static final int BROTLI_QUALITY = 4;
+    private static final int ZSTD_LEVEL = 3;
+
+    private ContentEncoders() {
+    }
+
+    /**
+     * @param names      编码名称，按服务端优先顺序排列（如 br、zstd、gzip）
+     * @param gzipPool   gzip 使用的 Deflater 池
+     * @return 可用的编码，保持 names 的顺序
+     */
+    public static List<ContentEncoder> create(List<String> names, DeflaterPool gzipPool) {
+        ClassLoader classLoader = ContentEncoders.class.getClassLoader();
+        List<ContentEncoder> encoders = new ArrayList<>();
+        for (String name : names) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "gzip" -> encoders.add(new GzipEncoder(gzipPool));
+                case "br" -> {
+                    if (ClassUtils.isPresent(BROTLI_CLASS, classLoader) && BrotliEncoder.isAvailable()) {
+                        encoders.add(new BrotliEncoder(BROTLI_QUALITY));
+                    } else {
+                        log.info("未引入brotli4j或native库不可用，不支持br压缩");
+                    }
+                }
+                case "zstd" -> {
+                    if (ClassUtils.isPresent(ZSTD_CLASS, classLoader) && ZstdEncoder.isAvailable()) {
+                        encoders.add(new ZstdEncoder(ZSTD_LEVEL));
+                    } else {
+                        log.info("未引入zstd-jni或native库不可用，不支持zstd压缩");
+                    }
+                }
+                default -> log.warn("不支持的压缩编码，已忽略: {}", name);
+            }
+        }
+        return encoders;
+    }
+}
@@ -0,0 +1,122 @@
+package com.thinban.compress;
+
+import com.thinban.util.DeflaterPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * gzip：Deflater 从 DeflaterPool 中取，gzip 头和尾（CRC32、原始长度）自己写，
+ * 不使用 GZIPOutputStream（它每次新建 Deflater，且 close 时调用 end()）
+ */
+public class GzipEncoder implements ContentEncoder {
+    // 魔数、CM=deflate、无FLG、MTIME=0、XFL=0、OS=未知
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DeflaterPool pool;
+
+    public GzipEncoder(DeflaterPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return new GzipStream(out, pool);
+    }
+
+    private static final class GzipStream extends OutputStream {
+        private final OutputStream out;
+        private final DeflaterPool pool;
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] single = new byte[1];
+        private Deflater deflater;
+
+        GzipStream(OutputStream out, DeflaterPool pool) throws IOException {
+            this.out = out;
+            this.pool = pool;
+            this.deflater = pool.borrow();
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return;
+            }
+            crc.update(b, off, len);
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (deflater != null) {
+                // SYNC_FLUSH 输出缓冲区写满说明可能还有数据
+                while (deflate(Deflater.SYNC_FLUSH) == buffer.length) {
+                    // 继续输出
+                }
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (deflater == null) {
+                return;
+            }
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflate(Deflater.NO_FLUSH);
+                }
+                writeTrailer((int) crc.getValue(), (int) deflater.getBytesRead());
+            } finally {
+                pool.release(deflater);
+                deflater = null;
+                out.close();
+            }
+        }
+
+        private int deflate(int flush) throws IOException {
+            int len = deflater.deflate(buffer, 0, buffer.length, flush);
+            if (len > 0) {
+                out.write(buffer, 0, len);
+            }
+            return len;
+        }
+
+        // CRC32 和原始长度（模2^32），小端
+        private void writeTrailer(int crc32, int size) throws IOException {
+            byte[] trailer = new byte[8];
+            for (int i = 0; i < 4; i++) {
+                trailer[i] = (byte) (crc32 >>> (i * 8));
+                trailer[i + 4] = (byte) (size >>> (i * 8));
+            }
+            out.write(trailer);
+        }
+
+        private void ensureOpen() throws IOException {
+            if (deflater == null) {
+                throw new IOException("gzip输出流已关闭");
+            }
+        }
+    }
+}
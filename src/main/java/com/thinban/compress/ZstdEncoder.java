@@ -0,0 +1,43 @@
+package com.thinban.compress;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * zstd：需要引入 com.github.luben:zstd-jni
+ */
+public class ZstdEncoder implements ContentEncoder {
+    private final int level;
+
+    /**
+     * @param level 压缩级别 1~22，动态响应一般取3（默认级别）
+     */
+    public ZstdEncoder(int level) {
+        this.level = level;
+    }
+
+    /**
+     * native 库是否可以加载
+     */
+    public static boolean isAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "zstd";
+    }
+
+    @Override
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out, level);
+    }
+}
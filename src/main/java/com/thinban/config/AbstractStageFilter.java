@@ -0,0 +1,63 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbMetrics;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * 把单个 FilterStage 作为独立的 Servlet 过滤器执行（classic 模式）
+ */
+public abstract class AbstractStageFilter implements Filter, FilterStage {
+    private final String stageName;
+    private final StageMetrics stageMetrics;
+
+    /**
+     * @param stageName 阶段名称，见 {@link FilterStage#getStageName()}
+     * @param metrics   记录本阶段的耗时和拦截次数
+     */
+    protected AbstractStageFilter(String stageName, TbMetrics metrics) {
+        this.stageName = stageName;
+        this.stageMetrics = new StageMetrics(metrics, stageName);
+    }
+
+    @Override
+    public final String getStageName() {
+        return stageName;
+    }
+
+    @Override
+    public final void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        RequestContext ctx = new RequestContext((HttpServletRequest) request, (HttpServletResponse) response);
+        boolean timed = stageMetrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        // 本阶段自身耗时，不含下游
+        long elapsed = 0L;
+        try {
+            boolean proceed = preHandle(ctx);
+            if (timed) {
+                elapsed = System.nanoTime() - start;
+            }
+            if (!proceed) {
+                stageMetrics.rejected();
+                return;
+            }
+            chain.doFilter(ctx.getRequest(), ctx.getResponse());
+            if (timed) {
+                start = System.nanoTime();
+            }
+            postHandle(ctx);
+            if (timed) {
+                elapsed += System.nanoTime() - start;
+            }
+        } finally {
+            afterCompletion(ctx);
+            if (timed) {
+                stageMetrics.record(elapsed);
+            }
+        }
+    }
+}
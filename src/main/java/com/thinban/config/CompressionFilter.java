@@ -0,0 +1,559 @@
+package com.thinban.config;
+
+import com.thinban.compress.ContentEncoder;
+import com.thinban.metrics.TbMetrics;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 响应压缩过滤器：按 Accept-Encoding 协商 br、zstd、gzip（按服务端配置的优先顺序），响应体达到 minSize 才压缩
+ * <p>
+ * 执行顺序在 EtagFilter、SensitiveInfoFilter 之前（外层），压缩的是脱敏后的内容；EtagFilter 输出的弱ETag按压缩前的内容计算，各编码共用。
+ * 响应体先缓存不超过 minSize 字节：结束时仍不足 minSize 的原样输出并设置 Content-Length；
+ * 超过后开始边写边压缩（chunked），不再缓存整个响应体，下游 flush 时压缩流同步输出，RStream 流式接口也适用。
+ * 下游设置的 Content-Length（SensitiveInfoFilter 脱敏后会设置）用于提前判断是否压缩，压缩时不会输出。
+ * <p>
+ * 只压缩 mimeTypes 中的类型；已有 Content-Encoding、Cache-Control 含 no-transform、204/206/304 的响应不处理。
+ * 下游抛出异常时丢弃未输出的内容、不写压缩流结尾，响应未提交时去掉 Content-Encoding 和 Vary，由容器输出错误响应。
+ * 不要同时开启容器的压缩（server.compression.enabled）。
+ */
+@Order(1)
+public class CompressionFilter extends AbstractStageFilter {
+    private static final Logger log = LoggerFactory.getLogger(CompressionFilter.class);
+    private static final String WRAPPER_ATTRIBUTE = CompressionFilter.class.getName() + ".wrapper";
+
+    private final List<ContentEncoder> encoders;
+    private final int minSize;
+    private final Set<String> mimeTypes;
+
+    // 压缩的响应数、压缩前和压缩后的字节数
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * @param encoders  可用的压缩编码，按服务端优先顺序排列（见 ContentEncoders）
+     * @param minSize   压缩的最小响应体字节数
+     * @param mimeTypes 压缩的Content-Type（不含参数，如 application/json）
+     */
+    public CompressionFilter(List<ContentEncoder> encoders, int minSize, Collection<String> mimeTypes) {
+        this(encoders, minSize, mimeTypes, TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 上面三个计数注册为 tb.compression.responses、tb.compression.bytes-in、tb.compression.bytes-out
+     */
+    public CompressionFilter(List<ContentEncoder> encoders, int minSize, Collection<String> mimeTypes, TbMetrics metrics) {
+        super("compression", metrics);
+        this.encoders = List.copyOf(encoders);
+        this.minSize = Math.max(minSize, 1);
+        this.mimeTypes = mimeTypes.stream().map(t -> t.trim().toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        metrics.functionCounter("tb.compression.responses", this, CompressionFilter::getCompressedResponses);
+        metrics.functionCounter("tb.compression.bytes-in", this, CompressionFilter::getBytesIn);
+        metrics.functionCounter("tb.compression.bytes-out", this, CompressionFilter::getBytesOut);
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) {
+        if ("HEAD".equals(ctx.getRequest().getMethod())) {
+            return true;
+        }
+        ContentEncoder encoder = negotiate(ctx.getRequest().getHeader("Accept-Encoding"));
+        if (encoder != null) {
+            CompressingResponseWrapper responseWrapper = new CompressingResponseWrapper(ctx.getResponse(), encoder);
+            ctx.setResponse(responseWrapper);
+            ctx.setAttribute(WRAPPER_ATTRIBUTE, responseWrapper);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(RequestContext ctx) throws IOException {
+        CompressingResponseWrapper responseWrapper = ctx.getAttribute(WRAPPER_ATTRIBUTE);
+        if (responseWrapper != null) {
+            responseWrapper.finish();
+        }
+    }
+
+    @Override
+    public void afterCompletion(RequestContext ctx) {
+        CompressingResponseWrapper responseWrapper = ctx.getAttribute(WRAPPER_ATTRIBUTE);
+        if (responseWrapper != null) {
+            // 下游抛出异常时没有执行 postHandle（正常结束时 abort 不做任何事）
+            responseWrapper.abort();
+        }
+    }
+
+    /**
+     * 按服务端顺序选择客户端接受（q&gt;0）的第一个编码
+     */
+    ContentEncoder negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        for (ContentEncoder encoder : encoders) {
+            if (accepts(acceptEncoding, encoder.getName())) {
+                return encoder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Accept-Encoding 是否接受 coding：显式列出时取其q值，否则取 * 的q值
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        double wildcard = 0;
+        for (String part : acceptEncoding.split(",")) {
+            int semicolon = part.indexOf(';');
+            String name = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            double q = semicolon < 0 ? 1 : parseQuality(part.substring(semicolon + 1));
+            if (name.equalsIgnoreCase(coding)) {
+                return q > 0;
+            }
+            if ("*".equals(name)) {
+                wildcard = q;
+            }
+        }
+        return wildcard > 0;
+    }
+
+    private static double parseQuality(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=") || p.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * 响应包装类：先缓存不超过 minSize 字节，之后决定原样输出还是压缩输出
+     */
+    private final class CompressingResponseWrapper extends HttpServletResponseWrapper {
+        private static final int BUFFERING = 0;
+        private static final int IDENTITY = 1;
+        private static final int COMPRESSING = 2;
+        private static final int FINISHED = 3;
+
+        private final ContentEncoder encoder;
+        private final ServletOutputStream outputStream = new CompressingOutputStream();
+        private ByteArrayOutputStream buffer;
+        private PrintWriter writer;
+        private int state = BUFFERING;
+        // 原样输出时为容器的输出流，压缩时为压缩流
+        private OutputStream target;
+        private CountingOutputStream compressedOut;
+        private long rawBytes;
+
+        CompressingResponseWrapper(HttpServletResponse response, ContentEncoder encoder) {
+            super(response);
+            this.encoder = encoder;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name) && value != null) {
+                contentLength(Long.parseLong(value.trim()));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name) && value != null) {
+                contentLength(Long.parseLong(value.trim()));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            // 还没决定是否压缩时不提交响应
+            if (state == IDENTITY || state == COMPRESSING) {
+                target.flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            discardOutput();
+            if (state == COMPRESSING) {
+                // 响应头保留，重新开始一个压缩流
+                try {
+                    startCompressing();
+                } catch (IOException e) {
+                    throw new IllegalStateException("重新创建压缩流失败", e);
+                }
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            discardOutput();
+            // 响应头已清空，重新判断
+            state = BUFFERING;
+            target = null;
+        }
+
+        /**
+         * 下游声明了响应体长度：可以提前决定，不必等缓存写满
+         */
+        private void contentLength(long len) {
+            if (state == BUFFERING && (buffer == null || buffer.size() == 0)) {
+                try {
+                    decide(len >= minSize);
+                } catch (IOException e) {
+                    throw new IllegalStateException("创建压缩流失败", e);
+                }
+            }
+            if (state == IDENTITY) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        private void write(int b) throws IOException {
+            if (state == BUFFERING) {
+                if (buffer().size() + 1 < minSize) {
+                    buffer.write(b);
+                    return;
+                }
+                decide(true);
+            }
+            ensureWritable();
+            target.write(b);
+            rawBytes++;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (state == BUFFERING) {
+                if (buffer().size() + len < minSize) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                decide(true);
+            }
+            ensureWritable();
+            target.write(b, off, len);
+            rawBytes += len;
+        }
+
+        private void flush() throws IOException {
+            if (state == IDENTITY || state == COMPRESSING) {
+                target.flush();
+            }
+        }
+
+        /**
+         * 决定原样输出还是压缩，并写出已缓存的内容
+         */
+        private void decide(boolean largeEnough) throws IOException {
+            if (largeEnough && isCompressible()) {
+                startCompressing();
+            } else {
+                state = IDENTITY;
+                target = super.getOutputStream();
+            }
+            if (buffer != null && buffer.size() > 0) {
+                rawBytes += buffer.size();
+                buffer.writeTo(target);
+                buffer.reset();
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            if (state != COMPRESSING) {
+                super.setHeader("Content-Encoding", encoder.getName());
+                super.addHeader("Vary", "Accept-Encoding");
+            }
+            state = COMPRESSING;
+            compressedOut = new CountingOutputStream(super.getOutputStream());
+            target = encoder.wrap(compressedOut);
+        }
+
+        private boolean isCompressible() {
+            int status = getStatus();
+            if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_PARTIAL_CONTENT
+                    || status == HttpServletResponse.SC_NOT_MODIFIED || isCommitted()) {
+                return false;
+            }
+            if (getHeader("Content-Encoding") != null) {
+                return false;
+            }
+            String cacheControl = getHeader("Cache-Control");
+            if (cacheControl != null && cacheControl.contains("no-transform")) {
+                return false;
+            }
+            String contentType = getContentType();
+            if (contentType == null) {
+                return false;
+            }
+            int semicolon = contentType.indexOf(';');
+            String mimeType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+            return mimeTypes.contains(mimeType);
+        }
+
+        /**
+         * 结束输出：不足 minSize 的原样写出，压缩流写完结尾并归还资源。可以重复调用
+         */
+        void finish() throws IOException {
+            if (state == FINISHED) {
+                return;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state == BUFFERING) {
+                if (buffer != null && buffer.size() > 0) {
+                    if (!isCommitted()) {
+                        super.setContentLength(buffer.size());
+                    }
+                    buffer.writeTo(super.getOutputStream());
+                }
+            } else if (state == COMPRESSING) {
+                state = FINISHED;
+                target.close();
+                compressedResponses.increment();
+                bytesIn.add(rawBytes);
+                bytesOut.add(compressedOut.count);
+            }
+            state = FINISHED;
+        }
+
+        /**
+         * 异常结束：丢弃缓存和压缩流（归还 Deflater，不写结尾），响应未提交时去掉压缩相关的响应头
+         */
+        void abort() {
+            if (state == FINISHED) {
+                return;
+            }
+            boolean compressing = state == COMPRESSING;
+            discardOutput();
+            state = FINISHED;
+            if (compressing && !isCommitted()) {
+                removeEncodingHeaders();
+            }
+        }
+
+        /**
+         * Servlet API 不能删除响应头（Tomcat 忽略 setHeader(name, null)）：
+         * 保存状态码和其他响应头，reset() 后重新设置，去掉 Content-Encoding、Content-Length 和 Vary 中的 Accept-Encoding
+         */
+        private void removeEncodingHeaders() {
+            int status = getStatus();
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : getHeaderNames()) {
+                if (!"Content-Encoding".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
+                    headers.putIfAbsent(name, new ArrayList<>(getHeaders(name)));
+                }
+            }
+            super.reset();
+            super.setStatus(status);
+            headers.forEach((name, values) -> {
+                int vary = "Vary".equalsIgnoreCase(name) ? values.lastIndexOf("Accept-Encoding") : -1;
+                if (vary >= 0) {
+                    values.remove(vary);
+                }
+                for (String value : values) {
+                    super.addHeader(name, value);
+                }
+            });
+        }
+
+        private ByteArrayOutputStream buffer() {
+            if (buffer == null) {
+                buffer = new ByteArrayOutputStream(Math.min(minSize, 8192));
+            }
+            return buffer;
+        }
+
+        private void discardOutput() {
+            if (buffer != null) {
+                buffer.reset();
+            }
+            rawBytes = 0;
+            if (state == COMPRESSING) {
+                // 丢弃压缩流：结尾不写出，关闭只为归还资源
+                compressedOut.discarded = true;
+                try {
+                    target.close();
+                } catch (IOException e) {
+                    log.debug("丢弃压缩流失败: {}", e.getMessage());
+                }
+                if (!isCommitted()) {
+                    super.resetBuffer();
+                }
+            }
+        }
+
+        private void ensureWritable() throws IOException {
+            if (state == FINISHED) {
+                throw new IOException("响应已输出完毕");
+            }
+        }
+
+        private class CompressingOutputStream extends ServletOutputStream {
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                // 无需实现
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                CompressingResponseWrapper.this.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponseWrapper.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressingResponseWrapper.this.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * 统计压缩后的字节数，丢弃后不再写出；close 不关闭容器的输出流（由容器负责结束响应）
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+        boolean discarded;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!discarded) {
+                out.write(b);
+                count++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!discarded) {
+                out.write(b, off, len);
+                count += len;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!discarded) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            // 不 flush：丢弃压缩流时响应还不能提交
+        }
+    }
+}
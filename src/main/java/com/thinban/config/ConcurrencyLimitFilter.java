@@ -0,0 +1,101 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.PreEncodedResponse;
+import com.thinban.core.R;
+import com.thinban.limit.GradientConcurrencyLimiter;
+import com.thinban.limit.GradientConcurrencyLimiter.Priority;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.RouteMatcher;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 自适应并发限制过滤器：按整体并发数和耗时动态调整并发上限，超过上限的请求直接返回预编码的503，
+ * 避免数据库或下游变慢时请求在线程池里堆积拖垮整个服务
+ * <p>
+ * 与 RateLimitFilter（按客户端限制频率）互补，默认关闭，tb.concurrency-limit.enabled=true 开启。
+ * 请求按路径分为三个优先级：critical-paths（健康检查、登录等）只受 max-limit 限制，
+ * low-paths 只能使用80%的名额，过载时最先被拒绝，其余为普通优先级。
+ * 执行顺序在所有过滤器之前，被拒绝的请求不再经过后续过滤器。
+ */
+@Order(-1)
+public class ConcurrencyLimitFilter extends AbstractStageFilter {
+    private static final String START_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".start";
+
+    private final GradientConcurrencyLimiter limiter;
+    private final RouteMatcher criticalMatcher;
+    private final RouteMatcher lowMatcher;
+
+    // 预编码的503响应（启动时序列化一次）
+    private final PreEncodedResponse overloadedResponse;
+
+    // 按优先级统计被拒绝的请求数，下标为 Priority.ordinal()
+    private final TbCounter[] shedCounters;
+
+    /**
+     * @param objectMapper      Spring自动配置的ObjectMapper
+     * @param limiter           并发上限算法
+     * @param criticalPaths     高优先级路径，支持Ant风格
+     * @param lowPaths          低优先级路径，支持Ant风格
+     * @param retryAfterSeconds 503响应的Retry-After
+     * @param metrics           记录各优先级被拒绝的请求数（tb.concurrency.shed）、当前上限和并发数
+     */
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper, GradientConcurrencyLimiter limiter,
+                                  List<String> criticalPaths, List<String> lowPaths,
+                                  long retryAfterSeconds, TbMetrics metrics) {
+        super("concurrency-limit", metrics);
+        this.limiter = limiter;
+        this.criticalMatcher = RouteMatcher.compile(criticalPaths);
+        this.lowMatcher = RouteMatcher.compile(lowPaths);
+        this.overloadedResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                R.fail("服务繁忙，请稍后再试", null), retryAfterSeconds);
+
+        Priority[] priorities = Priority.values();
+        this.shedCounters = new TbCounter[priorities.length];
+        for (Priority priority : priorities) {
+            shedCounters[priority.ordinal()] = metrics.counter("tb.concurrency.shed", "priority", priority.name().toLowerCase());
+        }
+        metrics.gauge("tb.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit);
+        metrics.gauge("tb.concurrency.in-flight", limiter, GradientConcurrencyLimiter::getInFlight);
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) throws IOException {
+        Priority priority = priorityOf(ctx.getRequestUri());
+        if (!limiter.tryAcquire(priority)) {
+            shedCounters[priority.ordinal()].increment();
+            overloadedResponse.write(ctx.getResponse());
+            return false;
+        }
+        ctx.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(RequestContext ctx) {
+        // 只释放成功占用的名额（被拒绝的请求没有START_ATTRIBUTE）
+        Long start = ctx.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private Priority priorityOf(String path) {
+        if (criticalMatcher.matches(path)) {
+            return Priority.CRITICAL;
+        }
+        if (lowMatcher.matches(path)) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    public GradientConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
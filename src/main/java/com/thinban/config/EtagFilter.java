@@ -0,0 +1,191 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.BufferingResponseWrapper;
+import com.thinban.util.RouteMatcher;
+import com.thinban.util.XxHash64;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ETag过滤器：GET/HEAD请求在响应体写出的同时计算 xxHash64，输出弱 ETag，
+ * 客户端 If-None-Match 命中时返回304，不再重复下发相同的JSON
+ * <p>
+ * 默认关闭，tb.etag.enabled=true 开启。执行顺序在 SensitiveInfoFilter 之前（外层），所以哈希的是脱敏后的内容。
+ * 响应头包含 Cache-Control: no-store 的请求不处理，配合 SecurityHeaderFilter 的 tb.security-header.cacheable-paths 使用，
+ * 所以执行顺序在 SecurityHeaderFilter 之后。
+ * <p>
+ * 下游调用 flushBuffer 或响应体超过 maxBodyBytes 时停止缓存和计算哈希，已缓存的内容直接写出，该响应不带ETag。
+ */
+@Order(4)
+public class EtagFilter extends AbstractStageFilter {
+    private static final String WRAPPER_ATTRIBUTE = EtagFilter.class.getName() + ".wrapper";
+
+    // 不处理的路径（如 RStream 流式接口）
+    private final RouteMatcher excludeMatcher;
+    // 缓存的响应体上限（字节）
+    private final int maxBodyBytes;
+
+    // 处理的请求数（计算了ETag）
+    private final LongAdder etagResponses = new LongAdder();
+    // 返回304的请求数
+    private final LongAdder notModifiedResponses = new LongAdder();
+    // 因304少发送的响应体字节数
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public EtagFilter() {
+        this(TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 上面三个计数注册为 tb.etag.responses、tb.etag.not-modified、tb.etag.bytes-saved
+     */
+    public EtagFilter(TbMetrics metrics) {
+        this(List.of(), Integer.MAX_VALUE, metrics);
+    }
+
+    /**
+     * @param excludePaths 不处理的路径，支持Ant风格
+     * @param maxBodyBytes 缓存的响应体上限（字节），超过后不再计算ETag
+     * @param metrics      上面三个计数注册为 tb.etag.responses、tb.etag.not-modified、tb.etag.bytes-saved
+     */
+    public EtagFilter(List<String> excludePaths, int maxBodyBytes, TbMetrics metrics) {
+        super("etag", metrics);
+        this.excludeMatcher = RouteMatcher.compile(excludePaths);
+        this.maxBodyBytes = maxBodyBytes;
+        metrics.functionCounter("tb.etag.responses", this, EtagFilter::getEtagResponses);
+        metrics.functionCounter("tb.etag.not-modified", this, EtagFilter::getNotModifiedResponses);
+        metrics.functionCounter("tb.etag.bytes-saved", this, EtagFilter::getBytesSaved);
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) {
+        String method = ctx.getRequest().getMethod();
+        if (("GET".equals(method) || "HEAD".equals(method)) && !excludeMatcher.matches(ctx.getRequestUri())) {
+            HashingResponseWrapper responseWrapper = new HashingResponseWrapper(ctx.getResponse(), maxBodyBytes);
+            ctx.setResponse(responseWrapper);
+            ctx.setAttribute(WRAPPER_ATTRIBUTE, responseWrapper);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(RequestContext ctx) throws IOException {
+        HashingResponseWrapper responseWrapper = ctx.getAttribute(WRAPPER_ATTRIBUTE);
+        if (responseWrapper == null) {
+            return;
+        }
+        if (!isEligible(responseWrapper)) {
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) responseWrapper.getResponse();
+        String etag = "W/\"" + Long.toHexString(responseWrapper.hash.getValue()) + "\"";
+        etagResponses.increment();
+        httpResponse.setHeader("ETag", etag);
+        if (matches(ctx.getRequest().getHeader("If-None-Match"), etag)) {
+            notModifiedResponses.increment();
+            bytesSaved.add(responseWrapper.getBodySize());
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private boolean isEligible(HashingResponseWrapper response) {
+        if (!response.isBuffering() || response.getStatus() != HttpServletResponse.SC_OK || response.isCommitted()
+                || response.getBodySize() == 0) {
+            return false;
+        }
+        if (response.getHeader("ETag") != null) {
+            return false;
+        }
+        String cacheControl = response.getHeader("Cache-Control");
+        return cacheControl == null || !cacheControl.contains("no-store");
+    }
+
+    /**
+     * 判断 If-None-Match 是否命中（弱比较：忽略 W/ 前缀）
+     */
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        if ("*".equals(ifNoneMatch.trim())) {
+            return true;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (opaque.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getEtagResponses() {
+        return etagResponses.sum();
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.sum();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * 写入时顺带计算哈希的响应包装类，flushBuffer 或超过大小上限后改为透传
+     */
+    private static class HashingResponseWrapper extends BufferingResponseWrapper {
+        private final XxHash64 hash = new XxHash64();
+        private final int maxBodyBytes;
+        private long size;
+
+        HashingResponseWrapper(HttpServletResponse response, int maxBodyBytes) {
+            super(response);
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        @Override
+        protected void onWrite(byte[] b, int off, int len) throws IOException {
+            size += len;
+            if (size > maxBodyBytes) {
+                stopBuffering();
+                return;
+            }
+            hash.update(b, off, len);
+        }
+
+        @Override
+        protected void onWrite(int b) throws IOException {
+            if (++size > maxBodyBytes) {
+                stopBuffering();
+                return;
+            }
+            hash.update(b);
+        }
+
+        @Override
+        protected void onFlushBuffer() throws IOException {
+            // 下游要求立即发出（流式响应），不再缓存
+            stopBuffering();
+        }
+
+        @Override
+        protected void onReset() {
+            size = 0;
+            hash.reset();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.thinban.config;
+
+import jakarta.servlet.ServletException;
+
+import java.io.IOException;
+
+/**
+ * 过滤器阶段：starter 中的过滤器都实现为阶段，
+ * 既可以单独注册为 Servlet 过滤器（classic 模式），也可以由 FusedFilter 在一个过滤器中依次执行（fused 模式）
+ */
+public interface FilterStage {
+
+    /**
+     * 阶段名称，用于 tb.filter.fused.stages 和 tb.filter.fused.skip 配置，以及指标的 stage 标签；须返回常量
+     */
+    String getStageName();
+
+    /**
+     * 请求进入时执行
+     *
+     * @return false 表示已经写出响应，终止后续阶段和业务处理
+     */
+    boolean preHandle(RequestContext ctx) throws IOException, ServletException;
+
+    /**
+     * 内层处理完成后执行（逆序），只有 preHandle 返回 true 的阶段才会执行；
+     * 内层阶段中途终止时也会执行，内层抛出异常时不执行
+     */
+    default void postHandle(RequestContext ctx) throws IOException, ServletException {
+    }
+
+    /**
+     * 清理资源（逆序），只要执行过 preHandle 就一定会执行
+     */
+    default void afterCompletion(RequestContext ctx) {
+    }
+}
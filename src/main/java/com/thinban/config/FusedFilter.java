@@ -0,0 +1,140 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.RouteMatcher;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 融合过滤器（tb.filter.mode=fused）：在一个 Servlet 过滤器中依次执行各 FilterStage，
+ * 所有阶段共享同一个 RequestContext，请求路径、客户端标识、Token 只解析一次
+ * <p>
+ * 按路径跳过阶段的规则（tb.filter.fused.skip）在启动时编译成路由表，每个路径的结果用位掩码缓存。
+ */
+public class FusedFilter implements Filter {
+    // 路径缓存上限，防止路径参数过多导致缓存无限增长，超过后直接匹配不再缓存
+    private static final int MAX_CACHED_PATHS = 4096;
+
+    private final FilterStage[] stages;
+    private final StageMetrics[] stageMetrics;
+    private final boolean timed;
+    private final RouteMatcher[] skipMatchers;
+    private final boolean hasSkipRules;
+    private final Map<String, Long> skipMaskCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param stages    按执行顺序排列的阶段（最多64个）
+     * @param skipRules key=阶段名称，value=跳过该阶段的路径（Ant风格）
+     */
+    public FusedFilter(List<FilterStage> stages, Map<String, List<String>> skipRules) {
+        this(stages, skipRules, TbMetrics.noop());
+    }
+
+    /**
+     * @param stages    按执行顺序排列的阶段（最多64个）
+     * @param skipRules key=阶段名称，value=跳过该阶段的路径（Ant风格）
+     * @param metrics   记录各阶段的耗时和拦截次数，与 classic 模式的指标同名
+     */
+    public FusedFilter(List<FilterStage> stages, Map<String, List<String>> skipRules, TbMetrics metrics) {
+        if (stages.size() > Long.SIZE) {
+            throw new IllegalArgumentException("FusedFilter最多支持" + Long.SIZE + "个阶段");
+        }
+        this.stages = stages.toArray(new FilterStage[0]);
+        this.stageMetrics = new StageMetrics[this.stages.length];
+        this.timed = metrics.isEnabled();
+        this.skipMatchers = new RouteMatcher[this.stages.length];
+        boolean anyRule = false;
+        for (int i = 0; i < this.stages.length; i++) {
+            stageMetrics[i] = new StageMetrics(metrics, this.stages[i].getStageName());
+            skipMatchers[i] = RouteMatcher.compile(skipRules.get(this.stages[i].getStageName()));
+            anyRule |= !skipMatchers[i].isEmpty();
+        }
+        this.hasSkipRules = anyRule;
+    }
+
+    /**
+     * 按执行顺序排列的阶段名称
+     */
+    public List<String> getStageNames() {
+        return Arrays.stream(stages).map(FilterStage::getStageName).toList();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        RequestContext ctx = new RequestContext((HttpServletRequest) request, (HttpServletResponse) response);
+        long skipMask = hasSkipRules ? getSkipMask(ctx.getRequestUri()) : 0L;
+        // 执行过 preHandle 的阶段
+        long invoked = 0L;
+        // preHandle 返回 true 的阶段
+        long passed = 0L;
+        // 各阶段自身耗时（不含下游），未开启指标时为 null
+        long[] elapsed = timed ? new long[stages.length] : null;
+        try {
+            boolean proceed = true;
+            for (int i = 0; i < stages.length; i++) {
+                long bit = 1L << i;
+                if ((skipMask & bit) != 0) {
+                    continue;
+                }
+                invoked |= bit;
+                long start = timed ? System.nanoTime() : 0L;
+                boolean passedStage = stages[i].preHandle(ctx);
+                if (timed) {
+                    elapsed[i] = System.nanoTime() - start;
+                }
+                if (!passedStage) {
+                    stageMetrics[i].rejected();
+                    proceed = false;
+                    break;
+                }
+                passed |= bit;
+            }
+            if (proceed) {
+                chain.doFilter(ctx.getRequest(), ctx.getResponse());
+            }
+            for (int i = stages.length - 1; i >= 0; i--) {
+                if ((passed & (1L << i)) != 0) {
+                    long start = timed ? System.nanoTime() : 0L;
+                    stages[i].postHandle(ctx);
+                    if (timed) {
+                        elapsed[i] += System.nanoTime() - start;
+                    }
+                }
+            }
+        } finally {
+            for (int i = stages.length - 1; i >= 0; i--) {
+                if ((invoked & (1L << i)) != 0) {
+                    stages[i].afterCompletion(ctx);
+                    if (timed) {
+                        stageMetrics[i].record(elapsed[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private long getSkipMask(String path) {
+        Long cached = skipMaskCache.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        long mask = 0L;
+        for (int i = 0; i < skipMatchers.length; i++) {
+            if (skipMatchers[i].matches(path)) {
+                mask |= 1L << i;
+            }
+        }
+        if (skipMaskCache.size() < MAX_CACHED_PATHS) {
+            skipMaskCache.put(path, mask);
+        }
+        return mask;
+    }
+}
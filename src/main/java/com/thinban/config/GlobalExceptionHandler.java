@@ -1,6 +1,8 @@
 package com.thinban.config;
 
 import com.thinban.core.R;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
 import jakarta.annotation.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +12,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 全局异常处理器，统一处理 IllegalArgumentException 并返回 R<T>格式响应
@@ -22,6 +26,25 @@ public class GlobalExceptionHandler {
     @Resource
     private Environment environment;
 
+    private final TbMetrics metrics;
+    // 按异常类型缓存计数器（tb.exceptions{exception=类名}）
+    private final Map<Class<?>, TbCounter> exceptionCounters = new ConcurrentHashMap<>();
+
+    public GlobalExceptionHandler() {
+        this(TbMetrics.noop());
+    }
+
+    public GlobalExceptionHandler(TbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void count(Exception ex) {
+        if (metrics.isEnabled()) {
+            exceptionCounters.computeIfAbsent(ex.getClass(),
+                    type -> metrics.counter("tb.exceptions", "exception", type.getName())).increment();
+        }
+    }
+
     // 判断是否为开发或测试环境
     private boolean isDevOrTestEnv() {
         String[] activeProfiles = environment.getActiveProfiles();
@@ -53,6 +76,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseBody
     public R handleIllegalArgumentException(IllegalArgumentException ex) {
+        count(ex);
         log.info("参数异常: {}", ex.getMessage(), getSimplifiedStackTrace(ex, 5));
         return R.fail(ex.getMessage(), null);
     }
@@ -66,6 +90,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     @ResponseBody
     public R handleGeneralException(Exception ex) {
+        count(ex);
         // 根据环境决定是否打印完整堆栈
         if (isDevOrTestEnv()) {
             // 开发/测试环境：打印 ERROR 级别完整堆栈
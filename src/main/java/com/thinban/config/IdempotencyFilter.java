@@ -0,0 +1,638 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.PreEncodedResponse;
+import com.thinban.core.R;
+import com.thinban.idempotency.IdempotencyRecord;
+import com.thinban.idempotency.IdempotencyStore;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.JwtThreadLocalHolder;
+import com.thinban.util.XxHash64;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 幂等过滤器：带 Idempotency-Key 请求头的写请求，同一用户、同一个key只执行一次，重复请求直接返回第一次的响应
+ * <p>
+ * 执行顺序在 JwtFilter 之后，key 按 JwtThreadLocalHolder 中的用户隔离，未登录的请求不处理。
+ * 第一次请求写入执行中标记后放行，响应体边写出边复制一份（不超过 maxBodyBytes），
+ * 2xx 且 R.code 为"0"的响应保存到 IdempotencyStore；失败的响应不保存，删除标记，客户端可以用同一个key重试。
+ * 并发的重复请求不会重复执行：同一节点上的等待第一个请求的结果，其他节点上的轮询共享存储，
+ * 超过 waitTimeoutMillis 仍未完成时返回409。同一个key用于不同的请求时返回422：
+ * 指纹包含方法、路径和请求体的 xxHash64（请求体不超过 maxRequestBytes 时缓存在内存中供下游读取；
+ * 表单请求按参数计算；multipart 或超过上限的请求体用 Content-Length 和 Content-Digest/Repr-Digest/Digest 请求头代替）。
+ * 执行中标记带有每个请求随机生成的 owner，标记过期后被其他请求重新占用时，本请求的结果不会覆盖对方的标记。
+ * <p>
+ * 在 SensitiveInfoFilter（12）之外执行，保存和重放的都是脱敏后的响应体，存储（如Redis）中不含原始的敏感信息；
+ * 代价是重放的内容不会按当前的脱敏规则重新处理，修改脱敏规则后已保存的记录在 tb.idempotency.ttl-seconds 内仍按旧规则返回。
+ */
+@Order(11)
+public class IdempotencyFilter extends AbstractStageFilter {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final String CLAIM_ATTRIBUTE = IdempotencyFilter.class.getName() + ".claim";
+    // Idempotency-Key 的最大长度
+    private static final int MAX_KEY_LENGTH = 128;
+    // 其他节点执行中时轮询共享存储的间隔
+    private static final long POLL_INTERVAL_MILLIS = 20;
+    // 请求体超过上限时参与指纹的摘要请求头
+    private static final String[] DIGEST_HEADERS = {"Content-Digest", "Repr-Digest", "Digest"};
+
+    private final IdempotencyStore store;
+    private final String headerName;
+    private final Set<String> methods;
+    private final long ttlMillis;
+    private final long inFlightTtlMillis;
+    private final long waitTimeoutNanos;
+    private final int maxBodyBytes;
+    private final int maxRequestBytes;
+    private final ObjectMapper objectMapper;
+
+    // 本节点执行中的请求，重复请求在这里等待结果（结果为null表示第一个请求失败，需要重新竞争）
+    private final Map<String, CompletableFuture<IdempotencyRecord>> pending = new ConcurrentHashMap<>();
+
+    private final PreEncodedResponse invalidKeyResponse;
+    private final PreEncodedResponse mismatchResponse;
+    private final PreEncodedResponse inProgressResponse;
+
+    private final TbCounter executedCount;
+    private final TbCounter replayedCount;
+    private final TbCounter mismatchCount;
+    private final TbCounter timeoutCount;
+    private final TbCounter errorCount;
+    private final TbCounter expiredCount;
+
+    /**
+     * @param objectMapper      Spring自动配置的ObjectMapper
+     * @param store             幂等记录存储
+     * @param headerName        幂等key请求头（tb.idempotency.header）
+     * @param methods           处理的请求方法（tb.idempotency.methods）
+     * @param ttlMillis         已完成记录的保留时间
+     * @param inFlightTtlMillis 执行中标记的过期时间，超过后视为第一个请求已失败
+     * @param waitTimeoutMillis 重复请求等待第一个请求完成的最长时间
+     * @param maxBodyBytes      保存的响应体上限，超过的响应不保存
+     * @param maxRequestBytes   计算指纹时缓存的请求体上限，超过时用 Content-Length 和摘要请求头代替
+     */
+    public IdempotencyFilter(ObjectMapper objectMapper, IdempotencyStore store, String headerName, Collection<String> methods,
+                             long ttlMillis, long inFlightTtlMillis, long waitTimeoutMillis, int maxBodyBytes, int maxRequestBytes) {
+        this(objectMapper, store, headerName, methods, ttlMillis, inFlightTtlMillis, waitTimeoutMillis, maxBodyBytes, maxRequestBytes,
+                TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 请求数记录在 tb.idempotency.requests{result=executed|replayed|mismatch|timeout|error|expired}，
+     *                本节点执行中的请求数 tb.idempotency.pending
+     */
+    public IdempotencyFilter(ObjectMapper objectMapper, IdempotencyStore store, String headerName, Collection<String> methods,
+                             long ttlMillis, long inFlightTtlMillis, long waitTimeoutMillis, int maxBodyBytes, int maxRequestBytes,
+                             TbMetrics metrics) {
+        super("idempotency", metrics);
+        this.objectMapper = objectMapper;
+        this.store = store;
+        this.headerName = headerName;
+        this.methods = methods.stream().map(m -> m.trim().toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        this.ttlMillis = ttlMillis;
+        this.inFlightTtlMillis = inFlightTtlMillis;
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxRequestBytes = maxRequestBytes;
+        this.invalidKeyResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_BAD_REQUEST,
+                R.fail(headerName + "无效（不能超过" + MAX_KEY_LENGTH + "个字符）", null));
+        this.mismatchResponse = PreEncodedResponse.of(objectMapper, 422, R.fail(headerName + "已用于其他请求", null));
+        this.inProgressResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_CONFLICT,
+                R.fail("相同请求正在处理中，请稍后重试", null), 1);
+        this.executedCount = metrics.counter("tb.idempotency.requests", "result", "executed");
+        this.replayedCount = metrics.counter("tb.idempotency.requests", "result", "replayed");
+        this.mismatchCount = metrics.counter("tb.idempotency.requests", "result", "mismatch");
+        this.timeoutCount = metrics.counter("tb.idempotency.requests", "result", "timeout");
+        this.errorCount = metrics.counter("tb.idempotency.requests", "result", "error");
+        this.expiredCount = metrics.counter("tb.idempotency.requests", "result", "expired");
+        metrics.gauge("tb.idempotency.pending", this, filter -> filter.pending.size());
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) throws IOException {
+        String idempotencyKey = ctx.getRequest().getHeader(headerName);
+        if (idempotencyKey == null || !methods.contains(ctx.getRequest().getMethod())) {
+            return true;
+        }
+        Long userId = JwtThreadLocalHolder.getCurrentUserId();
+        if (userId == null) {
+            return true;
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            invalidKeyResponse.write(ctx.getResponse());
+            return false;
+        }
+
+        String storeKey = userId + ":" + idempotencyKey;
+        String fingerprint = ctx.getRequest().getMethod() + " " + ctx.getRequestUri() + " " + bodyFingerprint(ctx);
+        IdempotencyRecord existing;
+        try {
+            existing = claimOrAwait(ctx, storeKey, fingerprint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            existing = IdempotencyRecord.inFlight(fingerprint, null);
+        } catch (Exception e) {
+            // 存储不可用时不去重，不影响请求
+            errorCount.increment();
+            log.warn("幂等存储访问失败，不去重: {}", e.getMessage());
+            return true;
+        }
+
+        if (existing == null) {
+            executedCount.increment();
+            return true;
+        }
+        if (!existing.fingerprint().equals(fingerprint)) {
+            mismatchCount.increment();
+            mismatchResponse.write(ctx.getResponse());
+        } else if (!existing.completed()) {
+            timeoutCount.increment();
+            inProgressResponse.write(ctx.getResponse());
+        } else {
+            replayedCount.increment();
+            replay(existing, ctx.getResponse());
+        }
+        return false;
+    }
+
+    /**
+     * 请求体的指纹，需要读取请求体时把请求替换为缓存了请求体的包装类
+     */
+    private String bodyFingerprint(RequestContext ctx) throws IOException {
+        HttpServletRequest request = ctx.getRequest();
+        String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase(Locale.ROOT);
+        if (contentType.startsWith("application/x-www-form-urlencoded")) {
+            // 表单参数由容器从请求体中解析，不能再读取输入流
+            XxHash64 hash = new XxHash64();
+            new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+                update(hash, name);
+                for (String value : values) {
+                    update(hash, value);
+                }
+            });
+            return "form:" + Long.toHexString(hash.getValue());
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength == 0 || (contentLength < 0 && request.getHeader("Transfer-Encoding") == null)) {
+            return "-";
+        }
+        if (contentType.startsWith("multipart/") || contentLength > maxRequestBytes) {
+            return declaredFingerprint(request);
+        }
+
+        InputStream in = request.getInputStream();
+        byte[] body = in.readNBytes(maxRequestBytes + 1);
+        if (body.length > maxRequestBytes) {
+            // 未声明长度的请求体超过上限：已读出的部分放回输入流前面
+            ctx.setRequest(new CachedBodyRequestWrapper(request, new SequenceInputStream(new ByteArrayInputStream(body), in)));
+            return declaredFingerprint(request);
+        }
+        ctx.setRequest(new CachedBodyRequestWrapper(request, new ByteArrayInputStream(body)));
+        return "body:" + Long.toHexString(XxHash64.hash(body, 0, body.length));
+    }
+
+    /**
+     * 不读取请求体时，用 Content-Length 和客户端提供的摘要请求头作为指纹
+     */
+    private static String declaredFingerprint(HttpServletRequest request) {
+        StringBuilder sb = new StringBuilder("len:").append(request.getContentLengthLong());
+        for (String header : DIGEST_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                sb.append(' ').append(header).append('=').append(value);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void update(XxHash64 hash, String value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            hash.update(c >>> 8);
+            hash.update(c & 0xFF);
+        }
+        // 分隔符，避免 ("ab","c") 与 ("a","bc") 相同
+        hash.update(0xFF);
+        hash.update(0xFF);
+    }
+
+    /**
+     * 占用 key 或等待第一个请求的结果
+     *
+     * @return 占用成功返回null（已包装响应）；否则返回已完成的记录、指纹不同的记录，或超时时执行中的记录
+     */
+    private IdempotencyRecord claimOrAwait(RequestContext ctx, String storeKey, String fingerprint) throws Exception {
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        while (true) {
+            IdempotencyRecord existing;
+            CompletableFuture<IdempotencyRecord> future = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> local = pending.putIfAbsent(storeKey, future);
+            if (local != null) {
+                // 本节点正在执行，不访问存储，直接等待
+                existing = await(local, fingerprint, deadline);
+            } else {
+                IdempotencyRecord inFlight = IdempotencyRecord.inFlight(fingerprint, UUID.randomUUID().toString());
+                try {
+                    existing = store.putIfAbsent(storeKey, inFlight, inFlightTtlMillis);
+                } catch (Exception e) {
+                    pending.remove(storeKey, future);
+                    future.complete(null);
+                    throw e;
+                }
+                if (existing == null) {
+                    CapturingResponseWrapper responseWrapper = new CapturingResponseWrapper(ctx.getResponse(), maxBodyBytes);
+                    ctx.setResponse(responseWrapper);
+                    ctx.setAttribute(CLAIM_ATTRIBUTE, new Claim(storeKey, inFlight, future, responseWrapper));
+                    return null;
+                }
+                // 已完成或其他节点正在执行；唤醒期间挂到本 future 上的请求，让它们重新竞争
+                pending.remove(storeKey, future);
+                future.complete(null);
+                if (!existing.completed() && existing.fingerprint().equals(fingerprint)) {
+                    existing = poll(storeKey, existing, deadline);
+                }
+            }
+            // 为null表示第一个请求失败，标记已删除，重新竞争
+            if (existing != null) {
+                return existing;
+            }
+        }
+    }
+
+    @Override
+    public void postHandle(RequestContext ctx) throws IOException {
+        Claim claim = ctx.getAttribute(CLAIM_ATTRIBUTE);
+        if (claim == null) {
+            return;
+        }
+        CapturingResponseWrapper responseWrapper = claim.responseWrapper;
+        responseWrapper.flushWriter();
+        IdempotencyRecord completed = null;
+        if (isSuccessful(responseWrapper)) {
+            completed = IdempotencyRecord.completed(claim.inFlight.fingerprint(), responseWrapper.getStatus(),
+                    responseWrapper.getContentType(), responseWrapper.getCapturedBody());
+        }
+        finish(claim, completed);
+    }
+
+    @Override
+    public void afterCompletion(RequestContext ctx) {
+        Claim claim = ctx.getAttribute(CLAIM_ATTRIBUTE);
+        if (claim != null && !claim.finished) {
+            // 下游抛出异常，没有执行到 postHandle
+            finish(claim, null);
+        }
+    }
+
+    /**
+     * 保存结果（为null时删除标记）并唤醒本节点上等待的请求
+     * <p>
+     * 执行中标记已过期并被其他请求占用时不保存也不删除，等待的请求重新竞争（会等待占用的请求的结果）。
+     */
+    private void finish(Claim claim, IdempotencyRecord completed) {
+        claim.finished = true;
+        try {
+            boolean owned = completed != null
+                    ? store.complete(claim.storeKey, claim.inFlight, completed, ttlMillis)
+                    : store.remove(claim.storeKey, claim.inFlight);
+            if (!owned) {
+                expiredCount.increment();
+                log.warn("幂等执行中标记已过期（超过tb.idempotency.in-flight-timeout-seconds），结果未保存: {}", claim.storeKey);
+                completed = null;
+            }
+        } catch (Exception e) {
+            errorCount.increment();
+            log.warn("幂等记录保存失败: {}", e.getMessage());
+            completed = null;
+        } finally {
+            pending.remove(claim.storeKey, claim.future);
+            claim.future.complete(completed);
+        }
+    }
+
+    /**
+     * 等待本节点上的第一个请求完成，超时返回执行中的记录
+     */
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> future, String fingerprint, long deadline)
+            throws InterruptedException, ExecutionException {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return IdempotencyRecord.inFlight(fingerprint, null);
+        }
+    }
+
+    /**
+     * 其他节点正在执行：轮询存储直到完成、标记被删除或超时（超时返回执行中的记录）
+     */
+    private IdempotencyRecord poll(String storeKey, IdempotencyRecord inFlight, long deadline) throws Exception {
+        IdempotencyRecord record = inFlight;
+        while (record != null && !record.completed()) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return record;
+            }
+            Thread.sleep(Math.min(POLL_INTERVAL_MILLIS, remainingMillis));
+            record = store.get(storeKey);
+        }
+        return record;
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.status());
+        if (record.contentType() != null) {
+            response.setContentType(record.contentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.setContentLength(record.body().length);
+        response.getOutputStream().write(record.body());
+    }
+
+    /**
+     * 2xx、响应体完整复制、不是 R.fail 的响应才保存
+     */
+    private boolean isSuccessful(CapturingResponseWrapper response) {
+        int status = response.getStatus();
+        if (status < 200 || status >= 300 || response.isOverflowed()) {
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null || !contentType.contains("json")) {
+            return true;
+        }
+        return !isFailedR(response.getCapturedBody());
+    }
+
+    /**
+     * 顶层对象有 code 字段且不为"0"（R.fail、GlobalExceptionHandler 的响应状态码都是200）
+     */
+    private boolean isFailedR(byte[] body) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("code".equals(field)) {
+                    return !"0".equals(value.isScalarValue() ? parser.getText() : null);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 第一个请求的状态，保存在 RequestContext 中
+     */
+    private static final class Claim {
+        final String storeKey;
+        // 本请求写入的执行中标记
+        final IdempotencyRecord inFlight;
+        final CompletableFuture<IdempotencyRecord> future;
+        final CapturingResponseWrapper responseWrapper;
+        boolean finished;
+
+        Claim(String storeKey, IdempotencyRecord inFlight, CompletableFuture<IdempotencyRecord> future,
+              CapturingResponseWrapper responseWrapper) {
+            this.storeKey = storeKey;
+            this.inFlight = inFlight;
+            this.future = future;
+            this.responseWrapper = responseWrapper;
+        }
+    }
+
+    /**
+     * 请求包装类：从缓存的请求体读取
+     */
+    private static class CachedBodyRequestWrapper extends HttpServletRequestWrapper {
+        private final ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        CachedBodyRequestWrapper(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.inputStream = new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return body.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * 请求体已全部在内存中，注册时立即通知可读和读取完毕
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return body.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return body.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * 响应包装类：响应体照常写出，同时复制一份（超过上限后停止复制并标记溢出）
+     */
+    private static class CapturingResponseWrapper extends HttpServletResponseWrapper {
+        private final int maxBytes;
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream(256);
+        private boolean overflowed;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CapturingResponseWrapper(HttpServletResponse response, int maxBytes) {
+            super(response);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CapturingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            clearCopy();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            clearCopy();
+        }
+
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        byte[] getCapturedBody() {
+            return copy.toByteArray();
+        }
+
+        boolean isOverflowed() {
+            return overflowed;
+        }
+
+        private void clearCopy() {
+            copy.reset();
+            overflowed = false;
+        }
+
+        private void capture(int b) {
+            if (!overflowed && copy.size() < maxBytes) {
+                copy.write(b);
+            } else if (!overflowed) {
+                overflowed = true;
+                copy.reset();
+            }
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflowed) {
+                return;
+            }
+            if (copy.size() + len > maxBytes) {
+                overflowed = true;
+                copy.reset();
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        private class CapturingOutputStream extends ServletOutputStream {
+            private final ServletOutputStream delegate;
+
+            CapturingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                delegate.setWriteListener(listener);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                capture(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                capture(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+        }
+    }
+}
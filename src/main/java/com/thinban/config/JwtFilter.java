@@ -6,139 +6,149 @@ import cn.hutool.json.JSONUtil;
 import cn.hutool.jwt.JWT;
 import cn.hutool.jwt.JWTUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.PreEncodedResponse;
 import com.thinban.core.R;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.revoke.TokenRevocationService;
 import com.thinban.util.JwtThreadLocalHolder;
-import jakarta.annotation.Resource;
+import com.thinban.util.RouteMatcher;
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
-import jakarta.servlet.annotation.WebInitParam;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
-import org.springframework.util.PathMatcher;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
- * JWT过滤器：基于@WebFilter注解配置，替代原拦截器功能
+ * JWT过滤器：由 TbWebAutoConfiguration 注册（REQUEST、FORWARD 分发），替代原拦截器功能
+ * <p>
+ * 传入 TokenRevocationService 时（tb.jwt.revocation.enabled=true）验签通过后再检查Token是否已被吊销（按jti或用户ID）。
  */
-@Component
-@WebFilter(urlPatterns = "/*",  // 拦截所有请求
-        filterName = "jwtFilter", dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.FORWARD}, initParams = {@WebInitParam(name = "encoding", value = "UTF-8"), // 编码格式
-//                @WebInitParam(name = "excludePaths", value = "/login,/register") // 忽略拦截的路径
-})
 @Order(10) // 过滤器执行顺序（数值越小越先执行）
-public class JwtFilter implements Filter {
+public class JwtFilter extends AbstractStageFilter {
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
-    @Value("${tb.jwt.key}")
-    String key;
-    // 从配置文件读取需要跳过的路径列表
-    @Value("${tb.jwt.excludes:}")
-    private List<String> excludePaths;
+    private final byte[] keyBytes;
+    // 预编译的排除路径（Ant风格）
+    private final RouteMatcher excludeMatcher;
 
-    // 注入Spring自动配置的ObjectMapper
-    @Resource
-    private ObjectMapper objectMapper;
+    // 预编码的错误响应（启动时序列化一次）
+    private final PreEncodedResponse missingTokenResponse;
+    private final PreEncodedResponse invalidTokenResponse;
+    private final PreEncodedResponse revokedTokenResponse;
 
-    // 路径匹配器（Spring自带的Ant风格路径匹配工具）
-    private final PathMatcher pathMatcher = new AntPathMatcher();
+    // Token吊销，为null时不检查
+    private final TokenRevocationService revocationService;
+
+    // 认证失败次数
+    private final TbCounter missingTokenCount;
+    private final TbCounter invalidTokenCount;
+    private final TbCounter revokedTokenCount;
+
+    /**
+     * @param objectMapper Spring自动配置的ObjectMapper
+     * @param key          jwt的key（tb.jwt.key）
+     * @param excludePaths 需要跳过的路径列表（tb.jwt.excludes）
+     */
+    public JwtFilter(ObjectMapper objectMapper, String key, List<String> excludePaths) {
+        this(objectMapper, key, excludePaths, TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 认证失败次数记录在 tb.jwt.failures{reason=missing|invalid|revoked}
+     */
+    public JwtFilter(ObjectMapper objectMapper, String key, List<String> excludePaths, TbMetrics metrics) {
+        this(objectMapper, key, excludePaths, null, metrics);
+    }
+
+    /**
+     * @param revocationService Token吊销，为null时不检查
+     */
+    public JwtFilter(ObjectMapper objectMapper, String key, List<String> excludePaths,
+                     TokenRevocationService revocationService, TbMetrics metrics) {
+        super("jwt", metrics);
+        Assert.hasText(key, "tb.jwt.key不能为空");
+        this.keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        this.excludeMatcher = RouteMatcher.compile(excludePaths);
+        this.missingTokenResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_UNAUTHORIZED, R.fail("未获取到有效Token", null));
+        this.invalidTokenResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_UNAUTHORIZED, R.fail("Token验证失败", null));
+        this.revokedTokenResponse = PreEncodedResponse.of(objectMapper, HttpServletResponse.SC_UNAUTHORIZED, R.fail("Token已失效", null));
+        this.revocationService = revocationService;
+        this.missingTokenCount = metrics.counter("tb.jwt.failures", "reason", "missing");
+        this.invalidTokenCount = metrics.counter("tb.jwt.failures", "reason", "invalid");
+        this.revokedTokenCount = metrics.counter("tb.jwt.failures", "reason", "revoked");
+    }
 
     @Override
-    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
-        // 转换为HTTP请求/响应对象
-        HttpServletRequest request = (HttpServletRequest) servletRequest;
-        HttpServletResponse response = (HttpServletResponse) servletResponse;
-
-        try {
-            // 0. 检查当前请求路径是否在排除列表中
-            if (isSkipJwtVerify(request)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            // 1. 从请求头获取Token（格式：Bearer {token}）
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                log.error("未获取到有效Token:{}", request.getRequestURI());
-//                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "未获取到有效Token");
-                sendJsonError(response, "未获取到有效Token");
-                return;
-            }
+    public boolean preHandle(RequestContext ctx) throws IOException {
+        // 0. 检查当前请求路径是否在排除列表中
+        if (excludeMatcher.matches(ctx.getRequestUri())) {
+            return true;
+        }
 
-            // 2. 截取Token（去除"Bearer "前缀）
-            String token = authHeader.substring(7);
+        // 1. 从请求头获取Token（格式：Bearer {token}，已去除"Bearer "前缀）
+        String token = ctx.getToken();
+        if (token == null) {
+            log.error("未获取到有效Token:{}", ctx.getRequestUri());
+//                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "未获取到有效Token");
+            missingTokenCount.increment();
+            missingTokenResponse.write(ctx.getResponse());
+            return false;
+        }
 
-            // 3. 验证Token有效性
-            if (!JWTUtil.verify(token, key.getBytes(StandardCharsets.UTF_8))) {
-                log.error("Token验证失败:{},{}", request.getRequestURI(), token);
+        // 2. 解析并验证Token有效性（只解析一次）
+        JWT jwt = JWTUtil.parseToken(token);
+        if (!jwt.setKey(keyBytes).verify()) {
+            log.error("Token验证失败:{},{}", ctx.getRequestUri(), token);
 //                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token验证失败");
-                sendJsonError(response, "Token验证失败");
-                return;
-            }
-
-            // 4. 解析Token获取用户ID并存入ThreadLocal
-            JWT jwt = JWTUtil.parseToken(token);
-            Long userId = ((NumberWithFormat) jwt.getPayload("id")).longValue();
-            JwtThreadLocalHolder.setUserId(userId);
-
-            // 5. 放行请求（继续执行后续过滤器或目标资源）
-            filterChain.doFilter(request, response);
-        } finally {
-            // 6. 清除ThreadLocal（无论请求成功与否都需清理，避免内存泄漏）
-            JwtThreadLocalHolder.clear();
+            invalidTokenCount.increment();
+            invalidTokenResponse.write(ctx.getResponse());
+            return false;
         }
-    }
 
-    // 初始化和销毁方法（如需初始化资源可重写）
-    @Override
-    public void init(FilterConfig filterConfig) throws ServletException {
-        Filter.super.init(filterConfig);
+        // 3. 获取用户ID，检查Token是否已被吊销（布隆过滤器未命中时只做几次位探测）
+        Long userId = ((NumberWithFormat) jwt.getPayload("id")).longValue();
+        if (revocationService != null && isRevoked(jwt, userId)) {
+            log.warn("Token已被吊销:{},userId={}", ctx.getRequestUri(), userId);
+            revokedTokenCount.increment();
+            revokedTokenResponse.write(ctx.getResponse());
+            return false;
+        }
+
+        // 4. 存入ThreadLocal
+        JwtThreadLocalHolder.setUserId(userId);
+        ctx.setUserId(userId);
+
+        // 5. 放行请求（继续执行后续过滤器或目标资源）
+        return true;
     }
 
     @Override
-    public void destroy() {
-        Filter.super.destroy();
+    public void afterCompletion(RequestContext ctx) {
+        // 6. 清除ThreadLocal（无论请求成功与否都需清理，避免内存泄漏）
+        JwtThreadLocalHolder.clear();
     }
 
-    /**
-     * 判断当前请求是否需要跳过JWT验证
-     * 从配置文件读取tb.jwt.excludes，支持Ant风格路径模糊匹配
-     */
-    private boolean isSkipJwtVerify(HttpServletRequest request) {
-        // 获取当前请求路径（如：/api/login）
-        String requestPath = request.getRequestURI();
-
-        // 遍历配置的排除路径，进行模糊匹配
-        for (String excludePath : excludePaths) {
-            // 支持Ant风格匹配：?匹配单个字符，*匹配多级字符，**匹配多级路径
-            if (pathMatcher.match(excludePath, requestPath)) {
-                return true;
-            }
-        }
+    private boolean isRevoked(JWT jwt, Long userId) {
+        Object jti = jwt.getPayload(JWT.JWT_ID);
+        Object iat = jwt.getPayload(JWT.ISSUED_AT);
+        return revocationService.isRevoked(jti == null ? null : jti.toString(), userId,
+                iat instanceof Number number ? number.longValue() : null);
+    }
 
-        // 不匹配任何排除路径，需要验证
-        return false;
+    // 初始化和销毁方法（如需初始化资源可重写）
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        super.init(filterConfig);
     }
 
-    /**
-     * 发送JSON格式的错误响应
-     *
-     * @param response 响应对象
-     * @param message  错误消息
-     */
-    private void sendJsonError(HttpServletResponse response, String message) throws IOException {
-        response.setContentType("application/json;charset=UTF-8");
-        response.setStatus(HttpServletResponse.SC_OK);
-        R fail = R.fail(message, null);
-        response.getWriter().write(objectMapper.writeValueAsString(fail));
+    @Override
+    public void destroy() {
+        super.destroy();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.thinban.core.RStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * RStream 的NDJSON输出：接口声明 produces = "application/x-ndjson" 时每行输出一条数据
+ */
+public class RStreamNdjsonHttpMessageConverter extends AbstractHttpMessageConverter<RStream<?>> {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public RStreamNdjsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(APPLICATION_NDJSON);
+        this.objectMapper = objectMapper;
+        // 由 RStream 按批flush，单条数据写完后不flush
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RStream.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RStream<?> readInternal(Class<? extends RStream<?>> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("RStream不支持读取", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(RStream<?> rStream, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        try {
+            // 输出流由容器负责关闭
+            JsonGenerator gen = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(outputMessage.getBody()));
+            // 行分隔由 RStream 写出，去掉Jackson默认的根节点分隔符（空格）
+            gen.setRootValueSeparator(null);
+            try {
+                rStream.writeNdjson(gen, writer);
+            } finally {
+                gen.close();
+            }
+        } finally {
+            // 获取输出流失败（如响应已关闭）时 writeNdjson 没有执行，这里保证资源被关闭
+            rStream.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 注册 RStream 的NDJSON输出
+ */
+public class RStreamWebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public RStreamWebConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new RStreamNdjsonHttpMessageConverter(objectMapper));
+    }
+}
@@ -1,12 +1,11 @@
 package com.thinban.config;
 
-import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.PreEncodedResponse;
+import com.thinban.core.R;
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.metrics.TbMetrics;
 import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.Map;
@@ -16,58 +15,68 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * 请求频率限制过滤器
  * 防止恶意请求频繁访问接口
+ * <p>
+ * 默认每个节点单独计数；传入 ClusterRateLimiter 时改为全集群共享计数（tb.rate-limit.cluster.enabled=true）。
  */
-@Component
-@WebFilter(urlPatterns = "/*", filterName = "rateLimitFilter")
 @Order(2)
-public class RateLimitFilter implements Filter {
+public class RateLimitFilter extends AbstractStageFilter {
 
-    // 从配置文件读取限制参数：单位时间内最大请求数
-    @Value("${security.rate-limit.max-requests:100}")
-    private int maxRequests;
+    // 单位时间内最大请求数（tb.rate-limit.max-requests）
+    private final int maxRequests;
 
-    // 时间窗口（秒）
-    @Value("${security.rate-limit.window-seconds:60}")
-    private int windowSeconds;
+    // 时间窗口（秒）（tb.rate-limit.window-seconds）
+    private final int windowSeconds;
 
     // 存储客户端请求计数：key=客户端标识，value=计数和时间戳
     private final Map<String, RequestInfo> requestCounts = new ConcurrentHashMap<>();
 
-    @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws IOException, ServletException {
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
-
-        // 获取客户端标识（优先使用X-Forwarded-For，其次RemoteAddr）
-        String clientId = getClientId(httpRequest);
-
-        // 检查是否超过请求限制
-        if (isOverLimit(clientId)) {
-            httpResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            httpResponse.setContentType("application/json;charset=UTF-8");
-            httpResponse.getWriter().write("{\"code\":429,\"message\":\"请求过于频繁，请稍后再试\"}");
-            return;
-        }
+    // 集群限流，为null时使用本地计数
+    private final ClusterRateLimiter clusterLimiter;
+
+    // 预编码的429响应（启动时序列化一次），Retry-After取时间窗口长度；code保持原来的429，客户端按code判断限流不受影响
+    private final PreEncodedResponse tooManyRequestsResponse;
 
-        chain.doFilter(request, response);
+    public RateLimitFilter(ObjectMapper objectMapper, int maxRequests, int windowSeconds) {
+        this(objectMapper, maxRequests, windowSeconds, TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 被限流的请求数记录在 tb.filter.rejected{stage=rate-limit}
+     */
+    public RateLimitFilter(ObjectMapper objectMapper, int maxRequests, int windowSeconds, TbMetrics metrics) {
+        this(objectMapper, maxRequests, windowSeconds, null, metrics);
     }
 
     /**
-     * 获取客户端唯一标识
+     * @param clusterLimiter 集群限流，为null时每个节点单独计数
      */
-    private String getClientId(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+    public RateLimitFilter(ObjectMapper objectMapper, int maxRequests, int windowSeconds,
+                           ClusterRateLimiter clusterLimiter, TbMetrics metrics) {
+        super("rate-limit", metrics);
+        this.maxRequests = maxRequests;
+        this.windowSeconds = windowSeconds;
+        this.clusterLimiter = clusterLimiter;
+        this.tooManyRequestsResponse = PreEncodedResponse.of(objectMapper, 429,
+                new R<>("429", "请求过于频繁，请稍后再试", null), windowSeconds);
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) throws IOException {
+        // 检查是否超过请求限制（客户端标识优先使用X-Forwarded-For，其次RemoteAddr）
+        if (isOverLimit(ctx.getClientId())) {
+            tooManyRequestsResponse.write(ctx.getResponse());
+            return false;
         }
-        return request.getRemoteAddr();
+        return true;
     }
 
     /**
      * 检查是否超过请求频率限制
      */
     private boolean isOverLimit(String clientId) {
+        if (clusterLimiter != null) {
+            return clusterLimiter.isOverLimit(clientId);
+        }
         long now = System.currentTimeMillis() / 1000; // 当前时间（秒）
         RequestInfo info = requestCounts.get(clientId);
 
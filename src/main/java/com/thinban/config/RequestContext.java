@@ -0,0 +1,108 @@
+package com.thinban.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单次请求的上下文，在过滤器各阶段之间共享
+ * <p>
+ * 请求路径、客户端标识、Token 等只在第一次使用时解析一次；
+ * request/response 可以被阶段替换为包装类，后续阶段和业务代码拿到的是替换后的对象。
+ */
+public class RequestContext {
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    private String requestUri;
+    private String clientId;
+    private String token;
+    private boolean tokenParsed;
+    private Long userId;
+    // 阶段私有数据（如响应包装类），大部分请求用不到，延迟创建
+    private Map<String, Object> attributes;
+
+    public RequestContext(HttpServletRequest request, HttpServletResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * 请求路径（如：/api/login）
+     */
+    public String getRequestUri() {
+        if (requestUri == null) {
+            requestUri = request.getRequestURI();
+        }
+        return requestUri;
+    }
+
+    /**
+     * 客户端唯一标识（优先使用X-Forwarded-For，其次RemoteAddr）
+     */
+    public String getClientId() {
+        if (clientId == null) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                int comma = xForwardedFor.indexOf(',');
+                clientId = (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
+            } else {
+                clientId = request.getRemoteAddr();
+            }
+        }
+        return clientId;
+    }
+
+    /**
+     * 请求头中的Token（格式：Bearer {token}），没有或格式不对时返回null
+     */
+    public String getToken() {
+        if (!tokenParsed) {
+            String authHeader = request.getHeader("Authorization");
+            token = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+            tokenParsed = true;
+        }
+        return token;
+    }
+
+    /**
+     * 当前登录用户ID，JWT校验通过后设置
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return attributes == null ? null : (T) attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>(4);
+        }
+        attributes.put(name, value);
+    }
+}
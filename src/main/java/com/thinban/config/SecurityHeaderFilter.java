@@ -1,50 +1,164 @@
 package com.thinban.config;
 
-import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.RouteMatcher;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.StringUtils;
 
-import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 安全响应头过滤器
  * 添加增强安全性的HTTP响应头
+ * <p>
+ * 响应头在启动时按策略编译成不可变的 名称/值 数组：
+ * 默认策略禁止缓存（no-store）；tb.security-header.cacheable-paths 匹配的 GET/HEAD 请求使用可缓存策略，
+ * 输出 tb.security-header.cache-control 配置的 Cache-Control，便于静态资源和公开接口配合 ETag 使用HTTP缓存。
+ * <p>
+ * tb.security-header.profiles 可以定义命名策略（如文档页面需要放宽CSP、允许同源iframe），
+ * 在默认响应头基础上覆盖，按配置顺序匹配，优先于可缓存策略。
  */
-@Component
-@WebFilter(urlPatterns = "/*", filterName = "securityHeaderFilter")
 @Order(3)
-public class SecurityHeaderFilter implements Filter {
+public class SecurityHeaderFilter extends AbstractStageFilter {
 
-    @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws IOException, ServletException {
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
+    private final RouteMatcher cacheableMatcher;
+    private final HeaderProfile defaultProfile;
+    private final HeaderProfile cacheableProfile;
+    // 自定义策略，按配置顺序匹配
+    private final HeaderProfile[] customProfiles;
+
+    /**
+     * @param cacheablePaths 可缓存的路径，支持Ant风格
+     * @param cacheControl   可缓存路径使用的Cache-Control
+     */
+    public SecurityHeaderFilter(List<String> cacheablePaths, String cacheControl) {
+        this(cacheablePaths, cacheControl, TbMetrics.noop());
+    }
 
+    public SecurityHeaderFilter(List<String> cacheablePaths, String cacheControl, TbMetrics metrics) {
+        this(cacheablePaths, cacheControl, List.of(), metrics);
+    }
+
+    /**
+     * @param profiles 自定义策略（tb.security-header.profiles），按顺序匹配，优先于可缓存策略
+     */
+    public SecurityHeaderFilter(List<String> cacheablePaths, String cacheControl, List<Profile> profiles,
+                                TbMetrics metrics) {
+        super("security-header", metrics);
+        // 响应头名称不区分大小写，配置中的名称可能被转成小写
+        Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
         // 1. 内容安全策略（CSP）：限制资源加载来源
-        httpResponse.setHeader("Content-Security-Policy",
+        headers.put("Content-Security-Policy",
                 "default-src 'self'; script-src 'self' 'unsafe-inline'; style-src 'self' 'unsafe-inline'; img-src 'self' data:;");
-
         // 2. 防止XSS攻击：启用浏览器内置XSS过滤
-        httpResponse.setHeader("X-XSS-Protection", "1; mode=block");
-
+        headers.put("X-XSS-Protection", "1; mode=block");
         // 3. 防止点击劫持：禁止iframe嵌套
-        httpResponse.setHeader("X-Frame-Options", "DENY");
-
+        headers.put("X-Frame-Options", "DENY");
         // 4. 防止MIME类型嗅探
-        httpResponse.setHeader("X-Content-Type-Options", "nosniff");
-
+        headers.put("X-Content-Type-Options", "nosniff");
         // 5. 限制Referrer信息泄露
-        httpResponse.setHeader("Referrer-Policy", "strict-origin-when-cross-origin");
+        headers.put("Referrer-Policy", "strict-origin-when-cross-origin");
+        // 6. 限制HTTP方法（可选）
+        headers.put("Allow", "GET, POST, PUT, DELETE, OPTIONS");
+
+        Map<String, String> cacheable = new LinkedCaseInsensitiveMap<>();
+        cacheable.putAll(headers);
+        cacheable.put("Cache-Control", cacheControl);
+
+        // 7. 禁止浏览器缓存（默认策略）
+        headers.put("Cache-Control", "no-store");
+        headers.put("Pragma", "no-cache");
+
+        defaultProfile = new HeaderProfile(RouteMatcher.compile(null), Set.of(), headers);
+        cacheableProfile = new HeaderProfile(RouteMatcher.compile(cacheablePaths), Set.of("GET", "HEAD"), cacheable);
+        cacheableMatcher = cacheableProfile.matcher;
+        customProfiles = profiles.stream().map(profile -> compile(profile, headers)).toArray(HeaderProfile[]::new);
+    }
+
+    @Override
+    public boolean preHandle(RequestContext ctx) {
+        selectProfile(ctx).apply(ctx.getResponse());
+        return true;
+    }
+
+    private HeaderProfile selectProfile(RequestContext ctx) {
+        for (HeaderProfile profile : customProfiles) {
+            if (profile.matches(ctx)) {
+                return profile;
+            }
+        }
+        if (!cacheableMatcher.isEmpty() && cacheableProfile.matches(ctx)) {
+            return cacheableProfile;
+        }
+        return defaultProfile;
+    }
+
+    /**
+     * 在默认响应头基础上合并自定义策略，值为空的响应头不输出
+     */
+    private static HeaderProfile compile(Profile profile, Map<String, String> defaults) {
+        Assert.notEmpty(profile.paths(), "tb.security-header.profiles." + profile.name() + ".paths不能为空");
+        Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+        headers.putAll(defaults);
+        if (profile.headers() != null) {
+            profile.headers().forEach((name, value) -> {
+                if (StringUtils.hasText(value)) {
+                    headers.put(name, value);
+                } else {
+                    headers.remove(name);
+                }
+            });
+        }
+        Set<String> methods = profile.methods() == null ? Set.of() : profile.methods().stream()
+                .map(method -> method.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        return new HeaderProfile(RouteMatcher.compile(profile.paths()), methods, headers);
+    }
+
+    /**
+     * 自定义响应头策略
+     *
+     * @param name    策略名称（用于错误提示）
+     * @param paths   使用该策略的路径，支持Ant风格
+     * @param methods 使用该策略的HTTP方法，为空时不限制
+     * @param headers 覆盖的响应头，值为空时不输出该响应头
+     */
+    public record Profile(String name, List<String> paths, List<String> methods, Map<String, String> headers) {
+    }
+
+    /**
+     * 编译好的响应头集合
+     */
+    private static final class HeaderProfile {
+        private final RouteMatcher matcher;
+        // 为空时不限制
+        private final Set<String> methods;
+        private final String[] names;
+        private final String[] values;
 
-        // 6. 禁止浏览器自动填充密码（可选）
-        httpResponse.setHeader("Cache-Control", "no-store");
-        httpResponse.setHeader("Pragma", "no-cache");
+        HeaderProfile(RouteMatcher matcher, Set<String> methods, Map<String, String> headers) {
+            this.matcher = matcher;
+            this.methods = methods;
+            this.names = headers.keySet().toArray(new String[0]);
+            this.values = headers.values().toArray(new String[0]);
+        }
 
-        // 7. 限制HTTP方法（可选）
-        httpResponse.setHeader("Allow", "GET, POST, PUT, DELETE, OPTIONS");
+        boolean matches(RequestContext ctx) {
+            return (methods.isEmpty() || methods.contains(ctx.getRequest().getMethod()))
+                    && matcher.matches(ctx.getRequestUri());
+        }
 
-        chain.doFilter(request, response);
+        void apply(HttpServletResponse response) {
+            for (int i = 0; i < names.length; i++) {
+                response.setHeader(names[i], values[i]);
+            }
+        }
     }
 }
@@ -1,142 +1,193 @@
-package com.example.config;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
-import jakarta.servlet.http.HttpServletRequest;
+package com.thinban.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbSummary;
+import com.thinban.metrics.TbTimer;
+import com.thinban.util.BufferingResponseWrapper;
+import com.thinban.util.RouteMatcher;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
-import java.io.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * 敏感信息过滤过滤器（修复显示格式问题）
+ * 敏感信息过滤过滤器：缓存JSON响应体，逐个token复制，只对字符串值脱敏
+ * <p>
+ * 字段名、数字、布尔值原样输出，数值类型的雪花id（19位）、毫秒时间戳（13位）不会被当成手机号、银行卡号；
+ * 字符串值中出现的手机号、身份证号、银行卡号、邮箱都会替换（包括"订单13812345678已发货"这样夹在文本中的），
+ * 数字规则要求前后不是数字，更长数字串的一部分不会被替换。非JSON响应原样输出。
+ * 默认开启，tb.sensitive.enabled=false 关闭。
+ * 执行顺序在 JwtFilter（10）、IdempotencyFilter（11）之后：401响应不经过脱敏，幂等保存的是脱敏后的响应。
  */
-@Component
-@WebFilter(urlPatterns = "/*", filterName = "sensitiveInfoFilter")
-@Order(4)
-public class SensitiveInfoFilter implements Filter {
-
-    @Autowired
-    private ObjectMapper objectMapper;
+@Order(12)
+public class SensitiveInfoFilter extends AbstractStageFilter {
+    private static final String WRAPPER_ATTRIBUTE = SensitiveInfoFilter.class.getName() + ".wrapper";
 
-    // 敏感信息正则匹配器（修复替换规则）
-    private static final Map<Pattern, String> SENSITIVE_PATTERNS = new HashMap<>();
+    // 只用于逐个token复制，不做数据绑定
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
-    static {
-        // 手机号：保留前3位和后4位，中间用*替换（138****1234）
-        // 正则说明：捕获前3位(1[3-9]\\d)和后4位(\\d{4})，中间4位替换为*
-        SENSITIVE_PATTERNS.put(Pattern.compile("(1[3-9]\\d)(\\d{4})(\\d{4})"), "$1****$3");
+    // 最短的规则（邮箱 ab*@c.d）也有6个字符，更短的字符串值不用匹配
+    private static final int MIN_MASK_LENGTH = 6;
 
-        // 身份证号：保留前6位和后4位，中间用*替换（110101********1234）
-        // 正则说明：捕获前6位(\\d{6})和后4位(\\d{4}|X|x)，中间10位替换为*
-        SENSITIVE_PATTERNS.put(Pattern.compile("(\\d{6})(\\d{8})(\\d{4}|X|x)"), "$1********$3");
+    // 不做脱敏的路径（如 RStream 流式接口，避免缓存整个响应体）
+    private final RouteMatcher excludeMatcher;
 
-        // 银行卡号：保留后4位（************1234）
-        SENSITIVE_PATTERNS.put(Pattern.compile("(\\d{12,15})(\\d{4})"), "************$2");
+    // 脱敏耗时、缓存的响应体字节数
+    private final TbTimer maskTimer;
+    private final TbSummary bufferBytes;
+    private final boolean timed;
 
-        // 邮箱：保留前2位和域名，中间用*替换（ab***@example.com）
-        SENSITIVE_PATTERNS.put(Pattern.compile("(\\w{2})(\\w+)(@\\w+\\.\\w+)"), "$1***$3");
-    }
+    // 敏感信息规则，按顺序在字符串值中查找并替换（身份证号在银行卡号之前，替换后含*不会再被匹配）
+    private static final Map<Pattern, String> SENSITIVE_PATTERNS = new LinkedHashMap<>();
 
-    @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws IOException, ServletException {
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
-        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    static {
+        // 手机号：保留前3位和后4位，中间用*替换（138****1234）
+        SENSITIVE_PATTERNS.put(Pattern.compile("(?<!\\d)(1[3-9]\\d)\\d{4}(\\d{4})(?!\\d)"), "$1****$2");
 
-        SensitiveResponseWrapper responseWrapper = new SensitiveResponseWrapper(httpResponse);
-        chain.doFilter(request, responseWrapper);
+        // 身份证号：保留前6位和后4位，中间用*替换（110101********1234），最后一位可以是X
+        SENSITIVE_PATTERNS.put(Pattern.compile("(?<!\\d)(\\d{6})\\d{8}(\\d{3}[\\dXx])(?![\\dXx])"), "$1********$2");
 
-        String originalContent = responseWrapper.getContent();
-        if (StringUtils.hasText(originalContent)) {
-            String filteredContent = filterSensitiveInfo(originalContent);
+        // 银行卡号（16~19位）：保留后4位（************1234）
+        SENSITIVE_PATTERNS.put(Pattern.compile("(?<!\\d)\\d{12,15}(\\d{4})(?!\\d)"), "************$1");
 
-            try (PrintWriter out = httpResponse.getWriter()) {
-                httpResponse.setContentLength(filteredContent.getBytes(StandardCharsets.UTF_8).length);
-                out.write(filteredContent);
-                out.flush();
-            }
-        }
+        // 邮箱：保留前2位和域名，中间用*替换（ab***@example.com）
+        SENSITIVE_PATTERNS.put(Pattern.compile("(\\w{2})[\\w.+-]+(@[\\w-]+(?:\\.[\\w-]+)+)"), "$1***$2");
     }
 
     /**
-     * 过滤敏感信息（使用分组捕获保留需要显示的部分）
+     * @param excludePaths 不做脱敏的路径，支持Ant风格
      */
-    private String filterSensitiveInfo(String content) {
-        String result = content;
-        for (Map.Entry<Pattern, String> entry : SENSITIVE_PATTERNS.entrySet()) {
-            Matcher matcher = entry.getKey().matcher(result);
-            // 使用分组替换，保留需要显示的部分
-            result = matcher.replaceAll(entry.getValue());
-        }
-        return result;
+    public SensitiveInfoFilter(List<String> excludePaths) {
+        this(excludePaths, TbMetrics.noop());
     }
 
     /**
-     * 响应包装类：使用UTF-8编码捕获响应内容
+     * @param excludePaths 不做脱敏的路径，支持Ant风格
+     * @param metrics      记录脱敏耗时（tb.sensitive.mask）和缓存的响应体大小（tb.sensitive.buffer.bytes）
      */
-    private static class SensitiveResponseWrapper extends jakarta.servlet.http.HttpServletResponseWrapper {
-        private final ServletOutputStreamWrapper outputStreamWrapper;
-        private PrintWriter writer;
+    public SensitiveInfoFilter(List<String> excludePaths, TbMetrics metrics) {
+        super("sensitive", metrics);
+        this.excludeMatcher = RouteMatcher.compile(excludePaths);
+        this.maskTimer = metrics.timer("tb.sensitive.mask");
+        this.bufferBytes = metrics.summary("tb.sensitive.buffer.bytes");
+        this.timed = metrics.isEnabled();
+    }
 
-        public SensitiveResponseWrapper(HttpServletResponse response) throws IOException {
-            super(response);
-            this.outputStreamWrapper = new ServletOutputStreamWrapper();
+    @Override
+    public boolean preHandle(RequestContext ctx) throws IOException {
+        if (excludeMatcher.matches(ctx.getRequestUri())) {
+            return true;
         }
 
-        @Override
-        public ServletOutputStream getOutputStream() throws IOException {
-            return outputStreamWrapper;
-        }
+        HttpServletResponse httpResponse = ctx.getResponse();
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
 
-        @Override
-        public PrintWriter getWriter() throws IOException {
-            if (writer == null) {
-                writer = new PrintWriter(new OutputStreamWriter(outputStreamWrapper, StandardCharsets.UTF_8));
+        BufferingResponseWrapper responseWrapper = new BufferingResponseWrapper(httpResponse);
+        ctx.setResponse(responseWrapper);
+        ctx.setAttribute(WRAPPER_ATTRIBUTE, responseWrapper);
+        return true;
+    }
+
+    @Override
+    public void postHandle(RequestContext ctx) throws IOException {
+        BufferingResponseWrapper responseWrapper = ctx.getAttribute(WRAPPER_ATTRIBUTE);
+        if (responseWrapper == null) {
+            return;
+        }
+        byte[] body = responseWrapper.getBody();
+        bufferBytes.record(body.length);
+        byte[] masked = null;
+        if (body.length > 0 && isJson(responseWrapper.getContentType())) {
+            long start = timed ? System.nanoTime() : 0L;
+            masked = maskJson(body);
+            if (timed) {
+                maskTimer.record(System.nanoTime() - start);
             }
-            return writer;
+        }
+        if (masked == null) {
+            responseWrapper.copyBodyToResponse();
+            return;
         }
 
-        public String getContent() {
-            if (writer != null) {
-                writer.flush();
-            }
-            return new String(outputStreamWrapper.getBytes(), StandardCharsets.UTF_8);
+        HttpServletResponse httpResponse = (HttpServletResponse) responseWrapper.getResponse();
+        if (!httpResponse.isCommitted()) {
+            httpResponse.setContentLength(masked.length);
         }
+        httpResponse.getOutputStream().write(masked);
     }
 
     /**
-     * 输出流包装类：使用字节数组存储内容
+     * 逐个token复制JSON，只对字符串值脱敏，字段名和其他类型的值原样复制
+     *
+     * @return 脱敏后的JSON；没有字符串值被修改或不是合法JSON时返回 null，调用方输出原内容
      */
-    private static class ServletOutputStreamWrapper extends jakarta.servlet.ServletOutputStream {
-        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-
-        @Override
-        public boolean isReady() {
-            return true;
+    static byte[] maskJson(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 16);
+        boolean changed = false;
+        try (JsonParser parser = JSON_FACTORY.createParser(body);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            // NDJSON（RStream）按行输出，保持每行一个值
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.VALUE_STRING) {
+                    String value = parser.getText();
+                    String masked = mask(value);
+                    changed |= masked != value;
+                    generator.writeString(masked);
+                } else {
+                    // 数字按原始文本复制，不经过double转换
+                    generator.copyCurrentEventExact(parser);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            return null;
         }
-
-        @Override
-        public void setWriteListener(WriteListener listener) {
-            // 无需实现
+        if (!changed) {
+            return null;
         }
-
-        @Override
-        public void write(int b) {
-            buffer.write(b);
+        // NDJSON 最后一行的换行符
+        if (body[body.length - 1] == '\n') {
+            out.write('\n');
         }
+        return out.toByteArray();
+    }
 
-        public byte[] getBytes() {
-            return buffer.toByteArray();
+    /**
+     * 对单个字符串值脱敏（使用分组捕获保留需要显示的部分）
+     *
+     * @return 没有命中任何规则时返回原对象
+     */
+    static String mask(String value) {
+        if (value.length() < MIN_MASK_LENGTH) {
+            return value;
+        }
+        String result = value;
+        for (Map.Entry<Pattern, String> entry : SENSITIVE_PATTERNS.entrySet()) {
+            Matcher matcher = entry.getKey().matcher(result);
+            if (matcher.find()) {
+                result = matcher.replaceAll(entry.getValue());
+            }
         }
+        return result;
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
     }
 }
@@ -0,0 +1,34 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbTimer;
+
+/**
+ * 单个阶段的指标：preHandle + postHandle 的耗时（不含下游），以及 preHandle 返回 false 的次数
+ * <p>
+ * classic 和 fused 模式使用同名指标（tb.filter.stage、tb.filter.rejected，tag stage=阶段名称）。
+ */
+final class StageMetrics {
+    private final TbTimer timer;
+    private final TbCounter rejected;
+    private final boolean enabled;
+
+    StageMetrics(TbMetrics metrics, String stageName) {
+        this.timer = metrics.timer("tb.filter.stage", "stage", stageName);
+        this.rejected = metrics.counter("tb.filter.rejected", "stage", stageName);
+        this.enabled = metrics.isEnabled();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void record(long nanos) {
+        timer.record(nanos);
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+}
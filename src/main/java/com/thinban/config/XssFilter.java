@@ -1,22 +1,24 @@
 package com.thinban.config;
 
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.RouteMatcher;
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.io.IOException;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
  * XSS过滤器：过滤请求参数中的恶意脚本
+ * <p>
+ * JSON请求体默认不处理；匹配 tb.xss.json-paths 的请求会打上 JSON_SANITIZE_ATTRIBUTE 标记，
+ * 由 XssJsonHttpMessageConverter 在Jackson解析时逐个过滤字符串值（见 XssJsonParser）。
  */
-@Component
-@WebFilter(urlPatterns = "/*", filterName = "xssFilter")
 @Order(0) // 优先级高于JWT过滤器，先进行XSS过滤
-public class XssFilter implements Filter {
+public class XssFilter extends AbstractStageFilter {
 
     // XSS攻击模式匹配正则
     private static final Pattern[] XSS_PATTERNS = {
@@ -32,27 +34,59 @@ public class XssFilter implements Filter {
             Pattern.compile("onload(.*?)=", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL)
     };
 
+    /**
+     * 需要过滤JSON请求体的请求属性
+     */
+    public static final String JSON_SANITIZE_ATTRIBUTE = XssFilter.class.getName() + ".JSON_SANITIZE";
+
+    // 被修改过的参数值/请求头/JSON字符串数量
+    private final TbCounter sanitized;
+    // 需要过滤JSON请求体的路径
+    private final RouteMatcher jsonMatcher;
+
+    public XssFilter() {
+        this(TbMetrics.noop());
+    }
+
+    public XssFilter(TbMetrics metrics) {
+        this(List.of(), metrics);
+    }
+
+    /**
+     * @param jsonPaths 需要过滤JSON请求体的路径（tb.xss.json-paths），支持Ant风格
+     */
+    public XssFilter(List<String> jsonPaths, TbMetrics metrics) {
+        super("xss", metrics);
+        this.sanitized = metrics.counter("tb.xss.sanitized");
+        this.jsonMatcher = RouteMatcher.compile(jsonPaths);
+    }
+
     @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-            throws IOException, ServletException {
+    public boolean preHandle(RequestContext ctx) {
+        if (jsonMatcher.matches(ctx.getRequestUri())) {
+            ctx.getRequest().setAttribute(JSON_SANITIZE_ATTRIBUTE, Boolean.TRUE);
+        }
         // 使用包装类处理请求参数
-        chain.doFilter(new XssHttpServletRequestWrapper((HttpServletRequest) request), response);
+        ctx.setRequest(new XssHttpServletRequestWrapper(ctx.getRequest(), sanitized));
+        return true;
     }
 
     /**
      * HTTP请求包装类：重写参数获取方法，过滤XSS内容
      */
     private static class XssHttpServletRequestWrapper extends jakarta.servlet.http.HttpServletRequestWrapper {
+        private final TbCounter sanitized;
 
-        public XssHttpServletRequestWrapper(HttpServletRequest request) {
+        public XssHttpServletRequestWrapper(HttpServletRequest request, TbCounter sanitized) {
             super(request);
+            this.sanitized = sanitized;
         }
 
         // 过滤单个参数值
         @Override
         public String getParameter(String name) {
             String value = super.getParameter(name);
-            return stripXss(value);
+            return clean(value);
         }
 
         // 过滤数组参数
@@ -61,7 +95,7 @@ public class XssFilter implements Filter {
             String[] values = super.getParameterValues(name);
             if (values != null) {
                 for (int i = 0; i < values.length; i++) {
-                    values[i] = stripXss(values[i]);
+                    values[i] = clean(values[i]);
                 }
             }
             return values;
@@ -71,15 +105,24 @@ public class XssFilter implements Filter {
         @Override
         public String getHeader(String name) {
             String value = super.getHeader(name);
-            return stripXss(value);
+            return clean(value);
+        }
+
+        private String clean(String value) {
+            String cleanValue = stripXss(value);
+            // 未匹配时 replaceAll 返回原对象，先比较引用
+            if (cleanValue != value && !cleanValue.equals(value)) {
+                sanitized.increment();
+            }
+            return cleanValue;
         }
     }
 
     /**
      * 移除XSS攻击脚本
      */
-    private static String stripXss(String value) {
-        if (!StringUtils.hasText(value)) {
+    static String stripXss(String value) {
+        if (!StringUtils.hasText(value) || !mightContainXss(value)) {
             return value;
         }
         // 替换特殊字符
@@ -96,13 +139,50 @@ public class XssFilter implements Filter {
         return cleanValue;
     }
 
+    /**
+     * 快速判断是否需要执行正则替换：包含需要转义的字符或任一正则的关键字时返回true。
+     * 结果是正则能匹配的超集，返回false时 stripXss 的结果一定等于原值，绝大多数正常值只需要扫描一遍字符
+     */
+    static boolean mightContainXss(String value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            switch (value.charAt(i)) {
+                case '<', '>', '&', '"', '\'' -> {
+                    return true;
+                }
+                case 'e', 'E' -> {
+                    if (value.regionMatches(true, i, "eval(", 0, 5) || value.regionMatches(true, i, "expression(", 0, 11)) {
+                        return true;
+                    }
+                }
+                case 'j', 'J' -> {
+                    if (value.regionMatches(true, i, "javascript:", 0, 11)) {
+                        return true;
+                    }
+                }
+                case 'v', 'V' -> {
+                    if (value.regionMatches(true, i, "vbscript:", 0, 9)) {
+                        return true;
+                    }
+                }
+                case 'o', 'O' -> {
+                    if (value.regionMatches(true, i, "onload", 0, 6)) {
+                        return true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        Filter.super.init(filterConfig);
+        super.init(filterConfig);
     }
 
     @Override
     public void destroy() {
-        Filter.super.destroy();
+        super.destroy();
     }
 }
@@ -0,0 +1,105 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 过滤JSON请求体中字符串值的消息转换器，只用于读取
+ * <p>
+ * 只有 XssFilter 打上 JSON_SANITIZE_ATTRIBUTE 标记的请求（匹配 tb.xss.json-paths）才由它读取，
+ * 其他请求和所有响应仍由原来的Jackson转换器处理。String、byte[]、Resource 类型的参数读取原始请求体，不由它处理。读取时用 XssJsonParser 包装解析器，边解析边过滤，
+ * 不缓存整个请求体。
+ */
+public class XssJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    private final TbCounter sanitized;
+
+    /**
+     * @param objectMapper 与原Jackson转换器相同的ObjectMapper
+     * @param metrics      被修改过的字符串值数量记录在 tb.xss.sanitized
+     */
+    public XssJsonHttpMessageConverter(ObjectMapper objectMapper, TbMetrics metrics) {
+        super(objectMapper);
+        this.sanitized = metrics.counter("tb.xss.sanitized");
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return !isRawBodyType(clazz) && isSanitizeRequest() && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return !isRawBodyType(getJavaType(type, contextClass).getRawClass()) && isSanitizeRequest()
+                && super.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readSanitized(getJavaType(type, contextClass), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return readSanitized(getJavaType(clazz, null), inputMessage);
+    }
+
+    private Object readSanitized(JavaType javaType, HttpInputMessage inputMessage) throws IOException {
+        ObjectMapper objectMapper = getObjectMapper();
+        JsonFactory factory = objectMapper.getFactory();
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        InputStream body = inputMessage.getBody();
+        // UTF编码交给Jackson自动识别，其他编码先转成字符流
+        JsonParser parser = charset.name().startsWith("UTF-")
+                ? factory.createParser(body)
+                : factory.createParser(new InputStreamReader(body, charset));
+        try (JsonParser xssParser = new XssJsonParser(parser, sanitized)) {
+            return objectMapper.readerFor(javaType).readValue(xssParser);
+        } catch (InvalidDefinitionException ex) {
+            throw new HttpMessageConversionException("Type definition error: " + ex.getType(), ex);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(), ex, inputMessage);
+        }
+    }
+
+    private static boolean isRawBodyType(Class<?> clazz) {
+        return CharSequence.class.isAssignableFrom(clazz) || byte[].class == clazz || Resource.class.isAssignableFrom(clazz);
+    }
+
+    private static boolean isSanitizeRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && attributes.getAttribute(XssFilter.JSON_SANITIZE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
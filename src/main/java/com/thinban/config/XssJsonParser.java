@@ -0,0 +1,105 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.thinban.metrics.TbCounter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 过滤字符串值的 JsonParser：只在当前 token 为 VALUE_STRING 时对取值结果执行 XssFilter 的过滤规则，
+ * 字段名、数字、布尔值、null 原样返回，不需要先把请求体读成字符串
+ * <p>
+ * 内存占用与Jackson正常解析相同（固定大小的读缓冲），额外开销只有被修改过的字符串值的副本。
+ * Jackson对同一个 token 多次调用 getText 返回同一个对象，所以按引用缓存上一次的过滤结果。
+ */
+final class XssJsonParser extends JsonParserDelegate {
+    private final TbCounter sanitized;
+
+    private String lastRaw;
+    private String lastClean;
+    private char[] lastCleanChars;
+
+    XssJsonParser(JsonParser delegate, TbCounter sanitized) {
+        super(delegate);
+        this.sanitized = sanitized;
+    }
+
+    @Override
+    public String getText() throws IOException {
+        String text = delegate.getText();
+        return delegate.hasToken(JsonToken.VALUE_STRING) ? clean(text) : text;
+    }
+
+    @Override
+    public String getValueAsString() throws IOException {
+        String value = delegate.getValueAsString();
+        return delegate.hasToken(JsonToken.VALUE_STRING) ? clean(value) : value;
+    }
+
+    @Override
+    public String getValueAsString(String defaultValue) throws IOException {
+        String value = delegate.getValueAsString(defaultValue);
+        return delegate.hasToken(JsonToken.VALUE_STRING) ? clean(value) : value;
+    }
+
+    @Override
+    public String nextTextValue() throws IOException {
+        // 集合、数组反序列化器使用的快速路径
+        String value = delegate.nextTextValue();
+        return value == null ? null : clean(value);
+    }
+
+    @Override
+    public int getText(Writer writer) throws IOException {
+        if (!delegate.hasToken(JsonToken.VALUE_STRING)) {
+            return delegate.getText(writer);
+        }
+        String text = getText();
+        writer.write(text);
+        return text.length();
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return !delegate.hasToken(JsonToken.VALUE_STRING) && delegate.hasTextCharacters();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        if (!delegate.hasToken(JsonToken.VALUE_STRING)) {
+            return delegate.getTextCharacters();
+        }
+        String text = getText();
+        if (lastCleanChars == null) {
+            lastCleanChars = text.toCharArray();
+        }
+        return lastCleanChars;
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        return delegate.hasToken(JsonToken.VALUE_STRING) ? getText().length() : delegate.getTextLength();
+    }
+
+    @Override
+    public int getTextOffset() throws IOException {
+        return delegate.hasToken(JsonToken.VALUE_STRING) ? 0 : delegate.getTextOffset();
+    }
+
+    private String clean(String raw) {
+        if (raw == lastRaw) {
+            return lastClean;
+        }
+        String clean = XssFilter.stripXss(raw);
+        if (clean != raw && !clean.equals(raw)) {
+            sanitized.increment();
+        }
+        lastRaw = raw;
+        lastClean = clean;
+        lastCleanChars = null;
+        return clean;
+    }
+}
@@ -0,0 +1,44 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.metrics.TbMetrics;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 注册 XssJsonHttpMessageConverter，使用已注册的Jackson转换器的ObjectMapper，保证反序列化配置一致
+ */
+public class XssJsonWebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final TbMetrics metrics;
+    // 是否配置了 tb.xss.json-paths
+    private final boolean enabled;
+
+    public XssJsonWebConfig(ObjectMapper objectMapper, TbMetrics metrics, boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!enabled) {
+            return;
+        }
+        // 插在第一个Jackson转换器之前：String、byte[]、Resource 等类型仍由排在前面的转换器读取
+        int index = converters.size();
+        ObjectMapper mapper = objectMapper;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter jackson) {
+                index = i;
+                mapper = jackson.getObjectMapper();
+                break;
+            }
+        }
+        converters.add(index, new XssJsonHttpMessageConverter(mapper, metrics));
+    }
+}
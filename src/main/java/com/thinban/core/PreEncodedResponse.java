@@ -0,0 +1,69 @@
+package com.thinban.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * 预先序列化好的 R 响应：启动时编码为UTF-8字节，请求时直接写入输出流，不再做任何序列化
+ * <p>
+ * 用于过滤器中固定内容的错误响应（未登录、请求过于频繁等），这些路径在攻击时会被大量调用。
+ */
+public final class PreEncodedResponse {
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private final int status;
+    private final byte[] body;
+    // Retry-After 响应头（秒），为null时不输出
+    private final String retryAfter;
+
+    private PreEncodedResponse(int status, byte[] body, String retryAfter) {
+        this.status = status;
+        this.body = body;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 编码一个固定的 R 响应
+     *
+     * @param objectMapper 与业务接口一致的ObjectMapper
+     * @param status       HTTP状态码
+     * @param r            响应体
+     */
+    public static PreEncodedResponse of(ObjectMapper objectMapper, int status, R<?> r) {
+        return of(objectMapper, status, r, -1);
+    }
+
+    /**
+     * 编码一个固定的 R 响应，并附带 Retry-After 响应头
+     *
+     * @param retryAfterSeconds 小于0时不输出 Retry-After
+     */
+    public static PreEncodedResponse of(ObjectMapper objectMapper, int status, R<?> r, long retryAfterSeconds) {
+        try {
+            return new PreEncodedResponse(status, objectMapper.writeValueAsBytes(r),
+                    retryAfterSeconds < 0 ? null : String.valueOf(retryAfterSeconds));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("R序列化失败: " + r.getMsg(), e);
+        }
+    }
+
+    /**
+     * 写出响应（直接写字节，不经过Writer和编码器）
+     */
+    public void write(HttpServletResponse response) throws IOException {
+        response.setStatus(status);
+        response.setContentType(CONTENT_TYPE);
+        if (retryAfter != null) {
+            response.setHeader("Retry-After", retryAfter);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
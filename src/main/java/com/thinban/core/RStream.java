@@ -0,0 +1,194 @@
+package com.thinban.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.apache.ibatis.cursor.Cursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 流式的 R&lt;List&gt; 响应：逐条序列化数据并定期flush，不需要先把整个列表加载到内存
+ * <p>
+ * 默认输出与 R.ok(list) 相同的 {"code":"0","msg":"ok","info":[...]} 结构；
+ * 接口声明 produces = "application/x-ndjson" 时每行输出一条数据（见 RStreamNdjsonHttpMessageConverter）。
+ * <p>
+ * 使用 MyBatis Cursor 时，SqlSession 必须在响应写完之前保持打开，可以通过 ok(cursor, sqlSession) 交给 RStream 关闭：
+ * <pre>
+ * SqlSession session = sqlSessionFactory.openSession();
+ * Cursor&lt;User&gt; cursor = session.getMapper(UserMapper.class).scanAll();
+ * return RStream.ok(cursor, session);
+ * </pre>
+ * 在请求线程中创建时会同时注册到请求结束回调：如果 RStream 没有被写出（如客户端Accept不匹配返回406、
+ * 异常处理器改写了响应），请求结束时也会关闭 Cursor 和 SqlSession。
+ * <p>
+ * 注意：数据一旦开始输出就无法再改为错误响应，中途出错只能中断连接。
+ * 流式接口建议加入 tb.sensitive.excludes，否则 SensitiveInfoFilter 仍会缓存整个响应体。
+ */
+@JsonSerialize(using = RStream.JsonArraySerializer.class)
+public class RStream<T> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RStream.class);
+
+    // 默认每写出多少条数据flush一次
+    public static final int DEFAULT_FLUSH_EVERY = 500;
+
+    // spring-web 是可选依赖，没有时不注册请求结束回调
+    private static final boolean WEB_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.context.request.RequestContextHolder", RStream.class.getClassLoader());
+
+    private final Iterator<T> iterator;
+    private final AutoCloseable[] resources;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private int flushEvery = DEFAULT_FLUSH_EVERY;
+
+    private RStream(Iterator<T> iterator, AutoCloseable... resources) {
+        this.iterator = iterator;
+        this.resources = resources;
+        if (WEB_PRESENT) {
+            RequestCompletion.register(this);
+        }
+    }
+
+    /**
+     * 包装 MyBatis Cursor，写完后关闭 cursor 以及额外传入的资源（如 SqlSession）
+     */
+    public static <T> RStream<T> ok(Cursor<T> cursor, AutoCloseable... resources) {
+        AutoCloseable[] all = new AutoCloseable[resources.length + 1];
+        all[0] = cursor;
+        System.arraycopy(resources, 0, all, 1, resources.length);
+        return new RStream<>(cursor.iterator(), all);
+    }
+
+    /**
+     * 包装 Stream，写完后关闭
+     */
+    public static <T> RStream<T> ok(Stream<T> stream) {
+        return new RStream<>(stream.iterator(), stream);
+    }
+
+    /**
+     * 包装任意迭代器，写完后关闭传入的资源
+     */
+    public static <T> RStream<T> ok(Iterator<T> iterator, AutoCloseable... resources) {
+        return new RStream<>(iterator, resources);
+    }
+
+    /**
+     * 设置每写出多少条数据flush一次
+     */
+    public RStream<T> flushEvery(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("flushEvery必须大于0");
+        }
+        this.flushEvery = rows;
+        return this;
+    }
+
+    /**
+     * 以NDJSON格式写出：每条数据一行，不包含 R 外层结构
+     *
+     * @param gen    输出目标
+     * @param writer 序列化单条数据用的ObjectWriter（需关闭 FLUSH_AFTER_WRITE_VALUE）
+     */
+    public void writeNdjson(JsonGenerator gen, ObjectWriter writer) throws IOException {
+        try {
+            long rows = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(gen, iterator.next());
+                gen.writeRaw('\n');
+                if (++rows % flushEvery == 0) {
+                    gen.flush();
+                }
+            }
+            gen.flush();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 以 R 结构写出：{"code":"0","msg":"ok","info":[...]}
+     */
+    void writeJsonArray(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        try {
+            gen.writeStartObject();
+            gen.writeStringField("code", "0");
+            gen.writeStringField("msg", "ok");
+            gen.writeArrayFieldStart("info");
+            long rows = 0;
+            while (iterator.hasNext()) {
+                provider.defaultSerializeValue(iterator.next(), gen);
+                if (++rows % flushEvery == 0) {
+                    gen.flush();
+                }
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 关闭底层资源（写出完成后或请求结束时自动调用，只关闭一次）
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("RStream资源关闭失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 请求结束回调（单独的类，没有spring-web时不会加载）
+     */
+    private static final class RequestCompletion {
+        // 回调按名称保存，每个 RStream 使用不同的名称
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        static void register(RStream<?> stream) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes != null) {
+                attributes.registerDestructionCallback(RStream.class.getName() + "#" + SEQUENCE.incrementAndGet(),
+                        stream::close, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+    }
+
+    /**
+     * Jackson序列化器：保持 R 的外层结构，info 部分逐条输出
+     */
+    static class JsonArraySerializer extends StdSerializer<RStream<?>> {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        JsonArraySerializer() {
+            super((Class) RStream.class);
+        }
+
+        @Override
+        public void serialize(RStream<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            value.writeJsonArray(gen, provider);
+        }
+    }
+}
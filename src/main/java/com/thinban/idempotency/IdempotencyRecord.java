@@ -0,0 +1,29 @@
+package com.thinban.idempotency;
+
+/**
+ * 幂等记录：执行中的占位标记，或已完成请求的响应（状态码、Content-Type、响应体）
+ *
+ * @param fingerprint 请求指纹（方法+路径+请求体哈希），同一个 Idempotency-Key 用于不同请求时拒绝重放
+ * @param owner       执行中标记的所有者令牌（每个请求随机生成），complete/remove 时校验，已完成的记录为null
+ * @param completed   false=执行中，true=已完成
+ * @param status      HTTP状态码，执行中时为0
+ * @param contentType 响应的Content-Type，执行中时为null
+ * @param body        响应体（脱敏后），执行中时为null
+ */
+public record IdempotencyRecord(String fingerprint, String owner, boolean completed, int status, String contentType, byte[] body) {
+
+    public static IdempotencyRecord inFlight(String fingerprint, String owner) {
+        return new IdempotencyRecord(fingerprint, owner, false, 0, null, null);
+    }
+
+    public static IdempotencyRecord completed(String fingerprint, int status, String contentType, byte[] body) {
+        return new IdempotencyRecord(fingerprint, null, true, status, contentType, body);
+    }
+
+    /**
+     * 是否为 inFlight 这个请求写入的执行中标记
+     */
+    public boolean isOwnedBy(IdempotencyRecord inFlight) {
+        return !completed && owner != null && owner.equals(inFlight.owner);
+    }
+}
@@ -0,0 +1,41 @@
+package com.thinban.idempotency;
+
+/**
+ * 幂等记录存储（SPI）
+ * <p>
+ * 请求第一次到达时用 putIfAbsent 写入执行中标记（过期时间较短，防止节点宕机后一直占用），
+ * 执行成功后用 complete 替换为响应（过期时间为 tb.idempotency.ttl-seconds），失败时 remove 允许客户端重试。
+ * complete 和 remove 须原子地校验执行中标记的所有者（IdempotencyRecord.owner）：
+ * 标记过期后 key 可能已被另一个请求重新占用，此时不能覆盖或删除对方的标记。
+ * 多节点部署时需要共享存储（如 RedisIdempotencyStore），否则只在单个节点内去重。
+ * 调用失败时抛出异常，由 IdempotencyFilter 放行请求（不去重）。
+ */
+public interface IdempotencyStore {
+
+    /**
+     * key 不存在（或已过期）时写入 record
+     *
+     * @return 写入成功返回null，否则返回已有的记录
+     */
+    IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, long ttlMillis) throws Exception;
+
+    /**
+     * @return 不存在或已过期时返回null
+     */
+    IdempotencyRecord get(String key) throws Exception;
+
+    /**
+     * 当前记录仍是 inFlight 写入的执行中标记时，用已完成的记录覆盖
+     *
+     * @param inFlight 本次请求 putIfAbsent 写入的执行中标记
+     * @return 是否覆盖；标记已过期或已被其他请求占用时返回false
+     */
+    boolean complete(String key, IdempotencyRecord inFlight, IdempotencyRecord record, long ttlMillis) throws Exception;
+
+    /**
+     * 当前记录仍是 inFlight 写入的执行中标记时删除
+     *
+     * @return 是否删除
+     */
+    boolean remove(String key, IdempotencyRecord inFlight) throws Exception;
+}
@@ -0,0 +1,105 @@
+package com.thinban.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单机幂等存储：按写入顺序保存的有界 LinkedHashMap
+ * <p>
+ * 超过 maxEntries 时淘汰最早写入的记录；过期记录在读取时判断，写入时从最早的记录开始顺带清理。
+ * 内存上限约为 maxEntries × tb.idempotency.max-body-bytes。只有带 Idempotency-Key 的写请求访问，用一把锁即可。
+ */
+public class LocalIdempotencyStore implements IdempotencyStore {
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * @param maxEntries 最多保存的记录数
+     */
+    public LocalIdempotencyStore(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries必须大于0");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null && existing.expiresAtMillis > now) {
+            return existing.record;
+        }
+        entries.remove(key);
+        entries.put(key, new Entry(record, now + ttlMillis));
+        return null;
+    }
+
+    @Override
+    public synchronized IdempotencyRecord get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.record;
+    }
+
+    @Override
+    public synchronized boolean complete(String key, IdempotencyRecord inFlight, IdempotencyRecord record, long ttlMillis) {
+        if (!isOwned(key, inFlight)) {
+            return false;
+        }
+        // 先删除再写入，移到末尾，保持写入顺序与过期顺序大致一致
+        entries.remove(key);
+        entries.put(key, new Entry(record, System.currentTimeMillis() + ttlMillis));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(String key, IdempotencyRecord inFlight) {
+        if (!isOwned(key, inFlight)) {
+            return false;
+        }
+        entries.remove(key);
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 未过期且是 inFlight 写入的执行中标记（与 Redis 一致，过期的标记视为已不存在）
+     */
+    private boolean isOwned(String key, IdempotencyRecord inFlight) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.expiresAtMillis > System.currentTimeMillis() && entry.record.isOwnedBy(inFlight);
+    }
+
+    /**
+     * 从最早写入的记录开始清理，遇到未过期的就停止
+     */
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAtMillis > now) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private record Entry(IdempotencyRecord record, long expiresAtMillis) {
+    }
+}
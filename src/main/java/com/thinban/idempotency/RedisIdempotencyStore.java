@@ -0,0 +1,86 @@
+package com.thinban.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redis 幂等存储：记录序列化为JSON（响应体为Base64），执行中标记用 SET NX PX 写入，多个节点共享
+ * <p>
+ * complete、remove 用 Lua 脚本比较当前值与本次写入的执行中标记（含随机的 owner），相同时才覆盖或删除。
+ */
+public class RedisIdempotencyStore implements IdempotencyStore {
+    // KEYS[1]=key，ARGV[1]=执行中标记，ARGV[2]=已完成的记录，ARGV[3]=过期时间（毫秒）
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+    // KEYS[1]=key，ARGV[1]=执行中标记
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+
+    /**
+     * @param redisTemplate Spring自动配置的StringRedisTemplate
+     * @param objectMapper  用于序列化 IdempotencyRecord
+     * @param keyPrefix     key前缀（tb.idempotency.redis-key-prefix）
+     */
+    public RedisIdempotencyStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, long ttlMillis) throws JsonProcessingException {
+        String value = objectMapper.writeValueAsString(record);
+        // SET NX 失败后记录可能恰好过期，重试一次
+        for (int i = 0; i < 2; i++) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(keyPrefix + key, value, Duration.ofMillis(ttlMillis)))) {
+                return null;
+            }
+            IdempotencyRecord existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        throw new IllegalStateException("写入幂等记录失败: " + key);
+    }
+
+    @Override
+    public IdempotencyRecord get(String key) throws JsonProcessingException {
+        String value = redisTemplate.opsForValue().get(keyPrefix + key);
+        return value == null ? null : objectMapper.readValue(value, IdempotencyRecord.class);
+    }
+
+    /**
+     * 执行中标记与 putIfAbsent 时用同一个 ObjectMapper 序列化，结果相同，直接比较字符串
+     */
+    @Override
+    public boolean complete(String key, IdempotencyRecord inFlight, IdempotencyRecord record, long ttlMillis)
+            throws JsonProcessingException {
+        Long result = redisTemplate.execute(COMPLETE_SCRIPT, List.of(keyPrefix + key),
+                objectMapper.writeValueAsString(inFlight), objectMapper.writeValueAsString(record), String.valueOf(ttlMillis));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public boolean remove(String key, IdempotencyRecord inFlight) throws JsonProcessingException {
+        Long result = redisTemplate.execute(REMOVE_SCRIPT, List.of(keyPrefix + key), objectMapper.writeValueAsString(inFlight));
+        return result != null && result == 1L;
+    }
+}
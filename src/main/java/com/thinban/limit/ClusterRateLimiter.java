@@ -0,0 +1,241 @@
+package com.thinban.limit;
+
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 集群限流：各节点共享 tb.rate-limit.max-requests 的额度，而不是每个节点各算一份
+ * <p>
+ * 请求路径上只做本地累加，用 "上次同步的全局计数 + 其他节点一个同步周期的预估增量 + 本节点未同步的增量" 判断是否超限；
+ * 后台线程每隔 syncIntervalMillis 把增量批量合并到 RateLimitBackend 并取回全局计数。
+ * 其他节点的增量按上一个同步周期估算，所以判断结果是近似的，接近上限时可能略微超出或提前拒绝，
+ * 超出量大约是 节点数 × 单节点在一个同步周期内的请求数。
+ * 窗口按 epochSecond / windowSeconds 对齐，所有节点一致。窗口切换时上一个窗口未同步的增量在下次同步时补到上一个窗口，
+ * 共享存储中每个窗口的计数是完整的（存储只保留当前和上一个窗口，更早的增量丢弃）。
+ * <p>
+ * 共享存储不可用时降级为单机限流（每个节点按本节点的计数判断，与不开启集群限流时相同），恢复后自动切回。
+ */
+public class ClusterRateLimiter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    private final RateLimitBackend backend;
+    private final int maxRequests;
+    private final int windowSeconds;
+    private final LongSupplier clock;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // 已切换窗口的客户端在旧窗口中未同步的增量
+    private final Queue<ClosedDelta> closedDeltas = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean degraded;
+
+    private final TbTimer syncTimer;
+    private final TbCounter syncFailures;
+
+    /**
+     * @param backend            共享计数存储
+     * @param maxRequests        每个窗口内单个客户端的最大请求数（全集群）
+     * @param windowSeconds      窗口长度（秒）
+     * @param syncIntervalMillis 同步间隔（毫秒）
+     * @param metrics            记录同步耗时（tb.rate-limit.sync）、同步失败次数（tb.rate-limit.sync.failures）和是否降级
+     */
+    public ClusterRateLimiter(RateLimitBackend backend, int maxRequests, int windowSeconds,
+                              long syncIntervalMillis, TbMetrics metrics) {
+        this(backend, maxRequests, windowSeconds, syncIntervalMillis, metrics, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 当前时间（毫秒），测试时替换
+     */
+    ClusterRateLimiter(RateLimitBackend backend, int maxRequests, int windowSeconds,
+                       long syncIntervalMillis, TbMetrics metrics, LongSupplier clock) {
+        this.backend = backend;
+        this.clock = clock;
+        this.maxRequests = maxRequests;
+        this.windowSeconds = windowSeconds;
+        this.syncTimer = metrics.timer("tb.rate-limit.sync");
+        this.syncFailures = metrics.counter("tb.rate-limit.sync.failures");
+        metrics.gauge("tb.rate-limit.degraded", this, limiter -> limiter.isDegraded() ? 1 : 0);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tb-rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次请求并判断是否超过限制
+     */
+    public boolean isOverLimit(String clientId) {
+        long windowId = currentWindowId();
+        Counter counter = counters.get(clientId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(clientId, k -> new Counter(windowId));
+        }
+        if (counter.windowId != windowId) {
+            counter.roll(clientId, windowId, closedDeltas);
+        }
+        counter.pending.increment();
+        counter.local.increment();
+        if (degraded) {
+            return counter.local.sum() > maxRequests;
+        }
+        return counter.global + counter.othersDelta + counter.pending.sum() > maxRequests;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    private long currentWindowId() {
+        return clock.getAsLong() / 1000 / windowSeconds;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (Throwable e) {
+            // 不能让异常终止定时任务
+            log.error("集群限流同步异常", e);
+        }
+    }
+
+    /**
+     * 把当前窗口的增量合并到共享存储，并清理过期窗口的计数
+     */
+    void sync() {
+        long windowId = currentWindowId();
+        // key=已结束的窗口编号，value=该窗口未同步的增量
+        Map<Long, Map<String, Long>> closed = new HashMap<>();
+        for (ClosedDelta closedDelta; (closedDelta = closedDeltas.poll()) != null; ) {
+            closed.computeIfAbsent(closedDelta.windowId, id -> new HashMap<>())
+                    .merge(closedDelta.clientId, closedDelta.delta, Long::sum);
+        }
+        Map<String, Long> deltas = new HashMap<>();
+        for (Iterator<Map.Entry<String, Counter>> it = counters.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Counter> entry = it.next();
+            Counter counter = entry.getValue();
+            if (counter.windowId < windowId) {
+                // 本窗口内没有请求，旧窗口未同步的增量补到旧窗口
+                it.remove();
+                long delta = counter.pending.sumThenReset();
+                if (delta > 0) {
+                    closed.computeIfAbsent(counter.windowId, id -> new HashMap<>()).merge(entry.getKey(), delta, Long::sum);
+                }
+                continue;
+            }
+            long delta = counter.pending.sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        closed.forEach((closedWindowId, closedWindowDeltas) -> flushClosed(closedWindowId, windowId, closedWindowDeltas));
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Map<String, Long> counts = backend.incrementAndGet(windowId, windowSeconds, deltas);
+            syncTimer.record(System.nanoTime() - start);
+            counts.forEach((clientId, count) -> {
+                Counter counter = counters.get(clientId);
+                if (counter != null && counter.windowId == windowId) {
+                    // 全局计数的增长中除去本节点的部分，即其他节点在一个同步周期内的增量
+                    counter.othersDelta = Math.max(0, count - counter.global - deltas.getOrDefault(clientId, 0L));
+                    counter.global = count;
+                }
+            });
+            if (degraded) {
+                degraded = false;
+                log.info("集群限流共享存储已恢复");
+            }
+        } catch (Exception e) {
+            syncFailures.increment();
+            // 放回未同步的增量，恢复后一起同步
+            deltas.forEach((clientId, delta) -> {
+                Counter counter = counters.get(clientId);
+                if (counter != null && counter.windowId == windowId) {
+                    counter.pending.add(delta);
+                }
+            });
+            if (!degraded) {
+                degraded = true;
+                log.warn("集群限流共享存储不可用，降级为单机限流: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 把已结束窗口的增量补到共享存储，只用于让该窗口的全局计数完整，不再取回结果；失败时丢弃（窗口已经结束）
+     */
+    private void flushClosed(long closedWindowId, long windowId, Map<String, Long> deltas) {
+        if (degraded || closedWindowId < windowId - 1) {
+            return;
+        }
+        try {
+            backend.incrementAndGet(closedWindowId, windowSeconds, deltas);
+        } catch (Exception e) {
+            syncFailures.increment();
+            log.debug("补同步已结束窗口的增量失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 单个客户端在当前窗口的计数
+     */
+    private static final class Counter {
+        volatile long windowId;
+        // 上次同步取回的全局计数（包含本节点已同步的部分）
+        volatile long global;
+        // 上个同步周期其他节点的增量，作为下个周期的预估
+        volatile long othersDelta;
+        // 本节点尚未同步的增量
+        final LongAdder pending = new LongAdder();
+        // 本节点在本窗口的总请求数，降级时使用
+        final LongAdder local = new LongAdder();
+
+        Counter(long windowId) {
+            this.windowId = windowId;
+        }
+
+        synchronized void roll(String clientId, long newWindowId, Queue<ClosedDelta> closedDeltas) {
+            if (windowId == newWindowId) {
+                return;
+            }
+            // 上一个窗口未同步的增量留给下次同步补到上一个窗口
+            long unsynced = pending.sumThenReset();
+            if (unsynced > 0) {
+                closedDeltas.add(new ClosedDelta(windowId, clientId, unsynced));
+            }
+            local.reset();
+            global = 0;
+            othersDelta = 0;
+            windowId = newWindowId;
+        }
+    }
+
+    private record ClosedDelta(long windowId, String clientId, long delta) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.thinban.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发上限（梯度算法，思路同 Netflix concurrency-limits 的 Gradient）
+ * <p>
+ * 每个采样窗口以窗口内平均耗时作为短期RTT，与无排队时的RTT（各窗口平均耗时的最小值）比较：
+ * 短期RTT超过 tolerance 倍说明请求开始排队（数据库或下游变慢），按比例降低上限（每个窗口最多减半）；
+ * 否则在当前上限上增加 sqrt(limit) 的排队余量，逐步探测更高的并发。
+ * 下游整体变慢后旧的最小值不再准确，所以每隔 PROBE_INTERVAL_WINDOWS 个窗口重新测量无排队RTT：
+ * 并发远没用满时本窗口本身就没有排队，直接用它的平均耗时；否则把上限减半测量一个窗口，测完立即恢复原上限，
+ * 之后由梯度正常调整（用当前上限测量会把排队时间算进基准，导致上限不断上涨）。
+ * <p>
+ * 请求路径上只有一次 AtomicInteger 自增/自减和 LongAdder 累加，窗口到期后由抢到 CAS 的那个线程计算新上限；
+ * 计算与并发写入之间可能丢失少量样本，不影响趋势。
+ */
+public class GradientConcurrencyLimiter {
+    // 窗口内样本少于该值时不调整上限（样本继续累积到下一个窗口）
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    // 每隔多少个窗口重新测量无排队RTT
+    private static final int PROBE_INTERVAL_WINDOWS = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    // 允许短期RTT超过长期RTT的倍数，超过后开始降低上限
+    private final double tolerance;
+    // 新上限的平滑系数，越小调整越慢
+    private final double smoothing;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    // 无排队RTT，0表示需要（重新）测量
+    private volatile double noLoadRttNanos;
+    // 距离上次测量无排队RTT的窗口数，只在 updateLimit 中修改（CAS 保证同一时间只有一个线程）
+    private volatile int windowsSinceProbe;
+    // 减半探测前的上限，探测窗口结束后恢复；0表示没有在探测
+    private volatile double limitBeforeProbe;
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Long::max, 0);
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param minLimit     最小并发上限
+     * @param maxLimit     最大并发上限，同时也是 CRITICAL 请求的硬上限
+     * @param tolerance    短期RTT超过长期RTT多少倍开始降低上限（如1.5）
+     * @param smoothing    新上限的平滑系数（0~1]
+     * @param windowMillis 采样窗口（毫秒）
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, long windowMillis) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("并发上限需满足 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1 || windowMillis <= 0) {
+            throw new IllegalArgumentException("需满足 tolerance >= 1，0 < smoothing <= 1，windowMillis > 0");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 请求优先级：过载时 LOW 最先被拒绝，CRITICAL（健康检查、登录）只受 maxLimit 限制
+     */
+    public enum Priority {
+        CRITICAL,
+        NORMAL,
+        LOW
+    }
+
+    /**
+     * 尝试占用一个并发名额，成功后必须调用 {@link #release(long)}
+     *
+     * @return false 表示超过上限，请求应被拒绝
+     */
+    public boolean tryAcquire(Priority priority) {
+        int current = inFlight.incrementAndGet();
+        if (current > capacity(priority)) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        windowMaxInFlight.accumulate(current);
+        return true;
+    }
+
+    /**
+     * 释放名额并记录本次请求耗时
+     */
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowStart.compareAndSet(start, now)) {
+            updateLimit();
+        }
+    }
+
+    private int capacity(Priority priority) {
+        return switch (priority) {
+            case CRITICAL -> maxLimit;
+            case NORMAL -> (int) limit;
+            // 低优先级只能使用80%的名额，过载时先被拒绝
+            case LOW -> Math.max(1, (int) (limit * 0.8));
+        };
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        long maxInFlight = windowMaxInFlight.getThenReset();
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) rttSum / samples;
+        double current = limit;
+        if (noLoadRttNanos == 0) {
+            // 首个窗口或探测窗口：上限已减半，本窗口的平均耗时作为新的无排队RTT，然后恢复原上限
+            noLoadRttNanos = shortRtt;
+            if (limitBeforeProbe > 0) {
+                limit = limitBeforeProbe;
+                limitBeforeProbe = 0;
+            }
+            return;
+        }
+        // 并发远没用满时RTT不能反映上限是否合适，不调整，避免上限无限上涨
+        boolean underutilized = maxInFlight < current / 2;
+        if (++windowsSinceProbe >= PROBE_INTERVAL_WINDOWS) {
+            windowsSinceProbe = 0;
+            if (underutilized) {
+                // 本窗口没有排队，直接作为新的无排队RTT，不需要减半
+                noLoadRttNanos = shortRtt;
+            } else {
+                noLoadRttNanos = 0;
+                limitBeforeProbe = current;
+                limit = Math.max(minLimit, current / 2);
+            }
+            return;
+        }
+        noLoadRttNanos = Math.min(noLoadRttNanos, shortRtt);
+        if (underutilized) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * noLoadRttNanos / shortRtt));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 无排队RTT（毫秒）
+     */
+    public double getNoLoadRttMillis() {
+        return noLoadRttNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.thinban.limit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库共享计数（MySQL）：一个批次的增量按 key 排序后批量 upsert，再一次查询取回全局计数
+ * <p>
+ * 表结构（表名可通过 tb.rate-limit.cluster.jdbc-table 修改）：
+ * <pre>
+ * CREATE TABLE tb_rate_limit (
+ *     limit_key VARCHAR(255) NOT NULL,
+ *     window_id BIGINT       NOT NULL,
+ *     cnt       BIGINT       NOT NULL,
+ *     PRIMARY KEY (limit_key, window_id)
+ * );
+ * </pre>
+ * 按 key 排序保证各节点的加锁顺序一致，避免死锁；窗口切换时删除更早窗口的数据。
+ */
+public class JdbcRateLimitBackend implements RateLimitBackend {
+    // 单条 IN 查询的最大参数数
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String upsertSql;
+    // 已清理过的窗口，只由同步线程访问
+    private long cleanedWindowId = -1;
+
+    /**
+     * @param jdbcTemplate Spring自动配置的JdbcTemplate
+     * @param table        表名（tb.rate-limit.cluster.jdbc-table）
+     */
+    public JdbcRateLimitBackend(JdbcTemplate jdbcTemplate, String table) {
+        if (!table.matches("[A-Za-z0-9_.]+")) {
+            throw new IllegalArgumentException("非法的表名: " + table);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.upsertSql = "INSERT INTO " + table + " (limit_key, window_id, cnt) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE cnt = cnt + VALUES(cnt)";
+    }
+
+    @Override
+    public Map<String, Long> incrementAndGet(long windowId, int windowSeconds, Map<String, Long> deltas) {
+        List<String> keys = new ArrayList<>(deltas.keySet());
+        Collections.sort(keys);
+
+        List<Object[]> batchArgs = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            batchArgs.add(new Object[]{key, windowId, deltas.get(key)});
+        }
+        jdbcTemplate.batchUpdate(upsertSql, batchArgs);
+
+        Map<String, Long> result = new HashMap<>(keys.size() * 2);
+        for (int from = 0; from < keys.size(); from += QUERY_BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + QUERY_BATCH_SIZE));
+            String sql = "SELECT limit_key, cnt FROM " + table + " WHERE window_id = ? AND limit_key IN ("
+                    + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            Object[] args = new Object[batch.size() + 1];
+            args[0] = windowId;
+            for (int i = 0; i < batch.size(); i++) {
+                args[i + 1] = batch.get(i);
+            }
+            jdbcTemplate.query(sql, rs -> {
+                result.put(rs.getString(1), rs.getLong(2));
+            }, args);
+        }
+
+        if (windowId > cleanedWindowId) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE window_id < ?", windowId - 1);
+            cleanedWindowId = windowId;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.thinban.limit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的共享计数存储：单节点部署、本地开发，或在同一个JVM里模拟多个节点共享计数时使用
+ */
+public class LocalRateLimitBackend implements RateLimitBackend {
+    // key=窗口编号，value=该窗口各客户端的计数
+    private final Map<Long, Map<String, AtomicLong>> windows = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Long> incrementAndGet(long windowId, int windowSeconds, Map<String, Long> deltas) {
+        // 只保留当前和上一个窗口
+        windows.keySet().removeIf(id -> id < windowId - 1);
+        Map<String, AtomicLong> counts = windows.computeIfAbsent(windowId, id -> new ConcurrentHashMap<>());
+        Map<String, Long> result = new HashMap<>(deltas.size() * 2);
+        deltas.forEach((key, delta) ->
+                result.put(key, counts.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta)));
+        return result;
+    }
+}
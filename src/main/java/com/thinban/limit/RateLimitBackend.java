@@ -0,0 +1,23 @@
+package com.thinban.limit;
+
+import java.util.Map;
+
+/**
+ * 集群限流的共享计数存储（SPI）
+ * <p>
+ * ClusterRateLimiter 每隔几毫秒把本节点新增的请求数批量合并到共享存储，并取回各客户端在当前窗口的全局计数，
+ * 请求路径上不访问共享存储。实现需要保证同一批次内的累加是原子的，调用失败时抛出异常，
+ * 由 ClusterRateLimiter 降级为单机限流。
+ */
+public interface RateLimitBackend {
+
+    /**
+     * 累加并返回全局计数
+     *
+     * @param windowId      窗口编号（epochSecond / windowSeconds），所有节点一致
+     * @param windowSeconds 窗口长度（秒），用于设置过期时间
+     * @param deltas        key=客户端标识，value=本节点自上次同步以来新增的请求数
+     * @return key=客户端标识，value=该客户端在本窗口的全局计数（包含本次增量）
+     */
+    Map<String, Long> incrementAndGet(long windowId, int windowSeconds, Map<String, Long> deltas) throws Exception;
+}
@@ -0,0 +1,101 @@
+package com.thinban.limit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis 共享计数：一个批次的增量按分桶分组，每个桶一次 Lua 脚本调用 INCRBY，首次创建的 key 设置过期时间
+ * <p>
+ * key 格式为 前缀{桶号}:窗口编号:客户端标识，桶号由客户端标识的哈希取模得到（所有节点一致）。
+ * 同一个桶的 key 在 Redis Cluster 中落在同一个槽，满足多 key 脚本的要求；不同的桶分散到不同的槽，
+ * 避免同一窗口的全部计数集中在一个节点上。每次同步的脚本调用次数不超过桶数。
+ */
+public class RedisRateLimitBackend implements RateLimitBackend {
+    // 默认分桶数
+    public static final int DEFAULT_BUCKETS = 16;
+
+    // KEYS[i]=计数key，ARGV[i]=增量，ARGV[#KEYS+1]=过期时间（秒）
+    private static final String SCRIPT_TEXT = """
+            local ttl = tonumber(ARGV[#KEYS + 1])
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                local delta = tonumber(ARGV[i])
+                local count = redis.call('INCRBY', key, delta)
+                if count == delta then
+                    redis.call('EXPIRE', key, ttl)
+                end
+                result[i] = count
+            end
+            return result
+            """;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT = new DefaultRedisScript<>(SCRIPT_TEXT, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final int buckets;
+
+    /**
+     * @param redisTemplate Spring自动配置的StringRedisTemplate
+     * @param keyPrefix     key前缀（tb.rate-limit.cluster.redis-key-prefix）
+     */
+    public RedisRateLimitBackend(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this(redisTemplate, keyPrefix, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param buckets 分桶数（tb.rate-limit.cluster.redis-buckets），各节点须一致
+     */
+    public RedisRateLimitBackend(StringRedisTemplate redisTemplate, String keyPrefix, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets必须大于0");
+        }
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public Map<String, Long> incrementAndGet(long windowId, int windowSeconds, Map<String, Long> deltas) {
+        Map<Integer, List<String>> clientIdsByBucket = new HashMap<>();
+        for (String clientId : deltas.keySet()) {
+            clientIdsByBucket.computeIfAbsent(bucket(clientId), b -> new ArrayList<>()).add(clientId);
+        }
+        // 过期时间取两个窗口，保证窗口结束前不会过期
+        String ttl = String.valueOf(windowSeconds * 2L);
+        Map<String, Long> result = new HashMap<>(deltas.size() * 2);
+        clientIdsByBucket.forEach((bucket, clientIds) -> {
+            String bucketPrefix = keyPrefix + "{" + bucket + "}:" + windowId + ":";
+            List<String> keys = new ArrayList<>(clientIds.size());
+            Object[] args = new Object[clientIds.size() + 1];
+            for (int i = 0; i < clientIds.size(); i++) {
+                keys.add(bucketPrefix + clientIds.get(i));
+                args[i] = String.valueOf(deltas.get(clientIds.get(i)));
+            }
+            args[clientIds.size()] = ttl;
+
+            List<?> counts = redisTemplate.execute(SCRIPT, keys, args);
+            if (counts == null || counts.size() != keys.size()) {
+                throw new IllegalStateException("限流脚本返回结果异常: " + counts);
+            }
+            for (int i = 0; i < clientIds.size(); i++) {
+                result.put(clientIds.get(i), ((Number) counts.get(i)).longValue());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * String.hashCode 的算法是固定的，各节点对同一个客户端得到相同的桶号
+     */
+    int bucket(String clientId) {
+        return Math.floorMod(clientId.hashCode(), buckets);
+    }
+}
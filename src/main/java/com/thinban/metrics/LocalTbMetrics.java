@@ -0,0 +1,267 @@
+package com.thinban.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于 LongAdder 的指标实现：记录时只做分段累加，没有锁和对象分配，读取时再汇总
+ * <p>
+ * 指标创建（通常在启动时）串行执行并通知 Listener，TbMeterBinder 借此把新指标注册到 Micrometer；
+ * snapshot() 提供给 TbMetricsEndpoint。
+ */
+public class LocalTbMetrics implements TbMetrics {
+    private final Map<MeterId, Object> meters = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    @Override
+    public TbCounter counter(String name, String... tags) {
+        return register(MeterId.of(name, tags), TbCounter.class, LongAdderCounter::new);
+    }
+
+    @Override
+    public TbTimer timer(String name, String... tags) {
+        return register(MeterId.of(name, tags), TbTimer.class, LongAdderTimer::new);
+    }
+
+    @Override
+    public TbSummary summary(String name, String... tags) {
+        return register(MeterId.of(name, tags), TbSummary.class, LongAdderSummary::new);
+    }
+
+    @Override
+    public <T> void functionCounter(String name, T obj, ToLongFunction<T> countFunction, String... tags) {
+        register(MeterId.of(name, tags), TbCounter.class, () -> new FunctionCounter<>(obj, countFunction));
+    }
+
+    @Override
+    public <T> void gauge(String name, T obj, ToDoubleFunction<T> valueFunction, String... tags) {
+        register(MeterId.of(name, tags), TbGauge.class, () -> new TbGauge(() -> valueFunction.applyAsDouble(obj)));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * 添加监听器，已创建的指标会立即回调一次
+     */
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+        meters.forEach(listener::onMeter);
+    }
+
+    /**
+     * 所有指标的当前值，key=指标名称{tags}，耗时单位为毫秒
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        meters.forEach((id, meter) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            if (meter instanceof TbCounter counter) {
+                values.put("count", counter.getCount());
+            } else if (meter instanceof TbTimer timer) {
+                values.put("count", timer.getCount());
+                values.put("totalMs", toMillis(timer.getTotalNanos()));
+                values.put("maxMs", toMillis(timer.getMaxNanos()));
+            } else if (meter instanceof TbSummary summary) {
+                values.put("count", summary.getCount());
+                values.put("total", summary.getTotal());
+                values.put("max", summary.getMax());
+            } else if (meter instanceof TbGauge gauge) {
+                values.put("value", gauge.getValue());
+            }
+            result.put(id.toString(), values);
+        });
+        return result;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private <M> M register(MeterId id, Class<M> type, Supplier<? extends M> factory) {
+        Object meter = meters.get(id);
+        if (meter == null) {
+            synchronized (this) {
+                meter = meters.get(id);
+                if (meter == null) {
+                    meter = factory.get();
+                    meters.put(id, meter);
+                    for (Listener listener : listeners) {
+                        listener.onMeter(id, meter);
+                    }
+                }
+            }
+        }
+        if (!type.isInstance(meter)) {
+            throw new IllegalArgumentException("指标" + id + "已注册为" + meter.getClass().getSimpleName());
+        }
+        return type.cast(meter);
+    }
+
+    /**
+     * 指标创建回调
+     */
+    public interface Listener {
+        /**
+         * @param meter TbCounter、TbTimer、TbSummary 或 TbGauge
+         */
+        void onMeter(MeterId id, Object meter);
+    }
+
+    /**
+     * 指标标识：名称 + tags（key/value 交替）
+     */
+    public record MeterId(String name, List<String> tags) {
+
+        static MeterId of(String name, String... tags) {
+            if (tags.length % 2 != 0) {
+                throw new IllegalArgumentException("tags必须是key/value成对出现: " + Arrays.toString(tags));
+            }
+            return new MeterId(name, Collections.unmodifiableList(Arrays.asList(tags.clone())));
+        }
+
+        @Override
+        public String toString() {
+            if (tags.isEmpty()) {
+                return name;
+            }
+            StringBuilder sb = new StringBuilder(name).append('{');
+            for (int i = 0; i < tags.size(); i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(tags.get(i)).append('=').append(tags.get(i + 1));
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    /**
+     * 瞬时值
+     */
+    public static final class TbGauge {
+        private final DoubleSupplier valueFunction;
+
+        TbGauge(DoubleSupplier valueFunction) {
+            this.valueFunction = valueFunction;
+        }
+
+        public double getValue() {
+            return valueFunction.getAsDouble();
+        }
+    }
+
+    private static final class LongAdderCounter implements TbCounter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public void increment(long amount) {
+            count.add(amount);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    private static final class FunctionCounter<T> implements TbCounter {
+        private final T obj;
+        private final ToLongFunction<T> countFunction;
+
+        FunctionCounter(T obj, ToLongFunction<T> countFunction) {
+            this.obj = obj;
+            this.countFunction = countFunction;
+        }
+
+        // 计数由函数提供，increment 忽略（同名同tag调用 counter() 时拿到的也是这个对象，不能抛异常影响请求）
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public void increment(long amount) {
+        }
+
+        @Override
+        public long getCount() {
+            return countFunction.applyAsLong(obj);
+        }
+    }
+
+    private static final class LongAdderTimer implements TbTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        @Override
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    private static final class LongAdderSummary implements TbSummary {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        @Override
+        public void record(long amount) {
+            count.increment();
+            total.add(amount);
+            max.accumulate(amount);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getTotal() {
+            return total.sum();
+        }
+
+        @Override
+        public long getMax() {
+            return max.get();
+        }
+    }
+}
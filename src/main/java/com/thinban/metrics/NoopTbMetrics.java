@@ -0,0 +1,84 @@
+package com.thinban.metrics;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 不记录任何数据的实现，所有指标共享同一个空对象
+ */
+final class NoopTbMetrics implements TbMetrics {
+    static final NoopTbMetrics INSTANCE = new NoopTbMetrics();
+
+    private static final NoopMeter METER = new NoopMeter();
+
+    private NoopTbMetrics() {
+    }
+
+    @Override
+    public TbCounter counter(String name, String... tags) {
+        return METER;
+    }
+
+    @Override
+    public TbTimer timer(String name, String... tags) {
+        return METER;
+    }
+
+    @Override
+    public TbSummary summary(String name, String... tags) {
+        return METER;
+    }
+
+    @Override
+    public <T> void functionCounter(String name, T obj, ToLongFunction<T> countFunction, String... tags) {
+    }
+
+    @Override
+    public <T> void gauge(String name, T obj, ToDoubleFunction<T> valueFunction, String... tags) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    private static final class NoopMeter implements TbCounter, TbTimer, TbSummary {
+
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public void increment(long amount) {
+        }
+
+        @Override
+        public void record(long value) {
+        }
+
+        @Override
+        public long getCount() {
+            return 0;
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return 0;
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return 0;
+        }
+
+        @Override
+        public long getTotal() {
+            return 0;
+        }
+
+        @Override
+        public long getMax() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.thinban.metrics;
+
+/**
+ * 单调递增的计数器
+ */
+public interface TbCounter {
+
+    void increment();
+
+    void increment(long amount);
+
+    long getCount();
+}
@@ -0,0 +1,52 @@
+package com.thinban.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 LocalTbMetrics 的指标以函数式指标注册到 Micrometer：请求路径上不经过 Micrometer，只在抓取时读取 LongAdder 的汇总值
+ * <p>
+ * 计数器对应 FunctionCounter，耗时对应 FunctionTimer 加 .max 的 Gauge，数值分布对应 .count/.total 两个 FunctionCounter 加 .max 的 Gauge，
+ * 瞬时值对应 Gauge。
+ */
+public class TbMeterBinder implements MeterBinder {
+    private final LocalTbMetrics metrics;
+
+    public TbMeterBinder(LocalTbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        metrics.addListener((id, meter) -> register(registry, id, meter));
+    }
+
+    private void register(MeterRegistry registry, LocalTbMetrics.MeterId id, Object meter) {
+        Tags tags = Tags.of(id.tags().toArray(new String[0]));
+        if (meter instanceof TbCounter counter) {
+            FunctionCounter.builder(id.name(), counter, c -> c.getCount())
+                    .tags(tags).register(registry);
+        } else if (meter instanceof TbTimer timer) {
+            FunctionTimer.builder(id.name(), timer, t -> t.getCount(), t -> t.getTotalNanos(), TimeUnit.NANOSECONDS)
+                    .tags(tags).register(registry);
+            Gauge.builder(id.name() + ".max", timer, t -> (double) t.getMaxNanos() / TimeUnit.SECONDS.toNanos(1))
+                    .tags(tags).baseUnit("seconds").register(registry);
+        } else if (meter instanceof TbSummary summary) {
+            FunctionCounter.builder(id.name() + ".count", summary, s -> s.getCount())
+                    .tags(tags).register(registry);
+            FunctionCounter.builder(id.name() + ".total", summary, s -> s.getTotal())
+                    .tags(tags).register(registry);
+            Gauge.builder(id.name() + ".max", summary, s -> s.getMax())
+                    .tags(tags).register(registry);
+        } else if (meter instanceof LocalTbMetrics.TbGauge gauge) {
+            Gauge.builder(id.name(), gauge, LocalTbMetrics.TbGauge::getValue)
+                    .tags(tags).register(registry);
+        }
+    }
+}
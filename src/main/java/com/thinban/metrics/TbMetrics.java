@@ -0,0 +1,42 @@
+package com.thinban.metrics;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * starter 的指标门面：过滤器、全局异常处理、@StepMonitor 通过它记录计数和耗时
+ * <p>
+ * 引入 Micrometer 时使用 LocalTbMetrics（热点路径上只做 LongAdder 累加，由 TbMeterBinder 以函数式指标注册到 MeterRegistry），
+ * 否则或 tb.metrics.enabled=false 时使用 noop 实现。
+ * tags 为 key/value 交替的字符串，同一名称和 tags 多次获取返回同一个指标，调用方应在初始化时获取并持有。
+ */
+public interface TbMetrics {
+
+    TbCounter counter(String name, String... tags);
+
+    TbTimer timer(String name, String... tags);
+
+    /**
+     * 数值分布（如缓冲区字节数）
+     */
+    TbSummary summary(String name, String... tags);
+
+    /**
+     * 注册由已有计数值提供的只读计数器（如 EtagFilter 自带的计数）
+     */
+    <T> void functionCounter(String name, T obj, ToLongFunction<T> countFunction, String... tags);
+
+    /**
+     * 注册瞬时值（如当前并发数）
+     */
+    <T> void gauge(String name, T obj, ToDoubleFunction<T> valueFunction, String... tags);
+
+    /**
+     * 是否实际记录指标，为 false 时调用方可以省去 System.nanoTime() 等准备工作
+     */
+    boolean isEnabled();
+
+    static TbMetrics noop() {
+        return NoopTbMetrics.INSTANCE;
+    }
+}
@@ -0,0 +1,25 @@
+package com.thinban.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * actuator 端点 /actuator/tbmetrics：返回 starter 所有指标的当前值
+ * <p>
+ * 需要 management.endpoints.web.exposure.include 包含 tbmetrics。
+ */
+@Endpoint(id = "tbmetrics")
+public class TbMetricsEndpoint {
+    private final LocalTbMetrics metrics;
+
+    public TbMetricsEndpoint(LocalTbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> metrics() {
+        return metrics.snapshot();
+    }
+}
@@ -0,0 +1,15 @@
+package com.thinban.metrics;
+
+/**
+ * 数值分布统计：次数、总量、最大值（启动以来）
+ */
+public interface TbSummary {
+
+    void record(long amount);
+
+    long getCount();
+
+    long getTotal();
+
+    long getMax();
+}
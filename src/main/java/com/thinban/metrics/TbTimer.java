@@ -0,0 +1,15 @@
+package com.thinban.metrics;
+
+/**
+ * 耗时统计：次数、总耗时、最大耗时（启动以来）
+ */
+public interface TbTimer {
+
+    void record(long nanos);
+
+    long getCount();
+
+    long getTotalNanos();
+
+    long getMaxNanos();
+}
@@ -0,0 +1,263 @@
+package com.thinban.monitor;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢SQL监控拦截器：按 MappedStatement id 统计耗时分布和影响行数，只打印超过阈值的SQL
+ * <p>
+ * 用于替代生产环境的 mybatis-plus.configuration.log-impl=StdOutImpl（每条SQL都打印，开销过大）。
+ * MyBatis-Plus 的 InnerInterceptor 只有执行前回调，无法计时，所以这里实现为标准 MyBatis 插件，
+ * 在 TbMybatisAutoConfiguration 中和 MybatisPlusInterceptor 一起注册。
+ * <p>
+ * 每个 MappedStatement 第一次执行时向 TbMetrics 注册 tb.sql（耗时）、tb.sql.rows（行数）、tb.sql.slow（慢SQL次数），
+ * 标签 statement 为 MappedStatement id（数量由mapper方法决定，是有限的）；耗时分布桶只在 getStats() 中提供。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SlowSqlInterceptor implements Interceptor {
+    private static final Logger log = LoggerFactory.getLogger(SlowSqlInterceptor.class);
+
+    // 耗时分布桶的上边界（毫秒），最后一个桶存放超过最大边界的请求
+    private static final long[] BUCKET_BOUNDS_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    // 分页等插件会在同一次调用中再次进入 Executor.query，用于避免重复计时
+    private static final ThreadLocal<Boolean> TIMING = new ThreadLocal<>();
+
+    // 慢SQL阈值（纳秒）
+    private final long thresholdNanos;
+    // 打印参数时单个参数值的最大长度
+    private final int paramMaxLength;
+
+    private final TbMetrics metrics;
+
+    // key=MappedStatement id
+    private final Map<String, SqlStat> stats = new ConcurrentHashMap<>();
+
+    public SlowSqlInterceptor(long thresholdMillis, int paramMaxLength) {
+        this(thresholdMillis, paramMaxLength, TbMetrics.noop());
+    }
+
+    /**
+     * @param metrics 按 MappedStatement 记录 tb.sql、tb.sql.rows、tb.sql.slow
+     */
+    public SlowSqlInterceptor(long thresholdMillis, int paramMaxLength, TbMetrics metrics) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.paramMaxLength = paramMaxLength;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (TIMING.get() != null) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+
+        TIMING.set(Boolean.TRUE);
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            long cost = System.nanoTime() - start;
+            TIMING.remove();
+            long rows = countRows(result);
+            boolean slow = cost >= thresholdNanos;
+            stats.computeIfAbsent(ms.getId(), id -> new SqlStat(metrics, id)).record(cost, rows, slow);
+            if (slow) {
+                logSlowSql(ms, args, cost, rows);
+            }
+        }
+    }
+
+    /**
+     * 获取各 MappedStatement 的统计信息（实时数据，只读）
+     */
+    public Map<String, SqlStat> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * 清空统计信息（已注册到 TbMetrics 的指标是启动以来的累计值，不受影响）
+     */
+    public void resetStats() {
+        stats.clear();
+    }
+
+    private long countRows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        return 0;
+    }
+
+    private void logSlowSql(MappedStatement ms, Object[] args, long costNanos, long rows) {
+        try {
+            Object parameter = args[1];
+            BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(parameter);
+            String sql = boundSql.getSql().replaceAll("\\s+", " ");
+            log.warn("[SlowSql] traceId={}, id={}, costTime={}ms, rows={}, sql={}, params={}",
+                    TraceIdUtils.getTraceId(), ms.getId(), TimeUnit.NANOSECONDS.toMillis(costNanos), rows,
+                    sql, getParams(ms.getConfiguration(), boundSql, parameter));
+        } catch (Exception e) {
+            // 日志失败不能影响业务
+            log.warn("[SlowSql] traceId={}, id={}, costTime={}ms, rows={}, errorMsg={}",
+                    TraceIdUtils.getTraceId(), ms.getId(), TimeUnit.NANOSECONDS.toMillis(costNanos), rows, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析绑定参数（与 DefaultParameterHandler 的取值规则一致），超长的值会被截断
+     */
+    private String getParams(Configuration configuration, BoundSql boundSql, Object parameter) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        if (mappings == null || mappings.isEmpty()) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        MetaObject metaObject = null;
+        for (ParameterMapping mapping : mappings) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameter);
+                }
+                value = metaObject.getValue(property);
+            }
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(truncate(String.valueOf(value)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String truncate(String value) {
+        if (value.length() <= paramMaxLength) {
+            return value;
+        }
+        return value.substring(0, paramMaxLength) + "...(" + value.length() + ")";
+    }
+
+    /**
+     * 单个 MappedStatement 的统计信息
+     */
+    public static class SqlStat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final TbTimer timer;
+        private final TbCounter rowCounter;
+        private final TbCounter slowCounter;
+
+        SqlStat(TbMetrics metrics, String statementId) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            this.timer = metrics.timer("tb.sql", "statement", statementId);
+            this.rowCounter = metrics.counter("tb.sql.rows", "statement", statementId);
+            this.slowCounter = metrics.counter("tb.sql.slow", "statement", statementId);
+        }
+
+        void record(long costNanos, long rowCount, boolean slow) {
+            count.increment();
+            totalNanos.add(costNanos);
+            maxNanos.accumulate(costNanos);
+            rows.add(rowCount);
+            buckets[bucketIndex(costNanos)].increment();
+            timer.record(costNanos);
+            rowCounter.increment(rowCount);
+            if (slow) {
+                slowCounter.increment();
+            }
+        }
+
+        private static int bucketIndex(long costNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(costNanos);
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (millis < BUCKET_BOUNDS_MS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * 耗时分布桶的上边界（毫秒），与 getHistogram() 一一对应，最后一个桶无上边界
+         */
+        public long[] getBucketBoundsMillis() {
+            return BUCKET_BOUNDS_MS.clone();
+        }
+
+        public long[] getHistogram() {
+            long[] histogram = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                histogram[i] = buckets[i].sum();
+            }
+            return histogram;
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package com.thinban.monitor;
 
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbTimer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-// 标记为切面组件
+// 标记为切面（由 TbMonitorAutoConfiguration 注册）
 @Aspect
-@Component
 public class StepMonitorAspect {
     private static final Logger log = LoggerFactory.getLogger(StepMonitorAspect.class);
 
+    private final TbMetrics metrics;
+    // 按步骤名称缓存耗时指标 tb.step{step=步骤名称,outcome=success|error}，[0]=success，[1]=error
+    private final Map<String, TbTimer[]> stepTimers = new ConcurrentHashMap<>();
+
+    public StepMonitorAspect() {
+        this(TbMetrics.noop());
+    }
+
+    public StepMonitorAspect(TbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     // 拦截所有被 @StepMonitor 注解的方法
     @Around("@annotation(com.thinban.monitor.StepMonitor)") // 替换为你的注解全路径
     public Object monitorStep(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -31,7 +46,7 @@ public class StepMonitorAspect {
         String traceId = TraceIdUtils.getTraceId();
 
         // 3. 步骤开始日志：包含 traceId
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 //        log.info("[StepMonitor] traceId={}, step={}, action=start, threadId={}, msgId={}, method={}",
 //                traceId, stepName, threadId, msgId, method.getName());
 
@@ -39,19 +54,33 @@ public class StepMonitorAspect {
         try {
             result = joinPoint.proceed();
             // 4. 成功日志：包含 traceId 和耗时
-            long costTime = System.currentTimeMillis() - startTime;
+            long costNanos = System.nanoTime() - startNanos;
+            record(stepName, 0, costNanos);
+            long costTime = TimeUnit.NANOSECONDS.toMillis(costNanos);
             log.info("[StepMonitor] step={}, action=success, threadId={},costTime={}ms",
                     stepName, threadId, costTime);
             return result;
         } catch (Exception e) {
             // 5. 异常日志：包含 traceId 和异常信息
-            long costTime = System.currentTimeMillis() - startTime;
+            long costNanos = System.nanoTime() - startNanos;
+            record(stepName, 1, costNanos);
+            long costTime = TimeUnit.NANOSECONDS.toMillis(costNanos);
             log.error("[StepMonitor]  step={}, action=error, threadId={}, costTime={}ms, errorMsg={}",
                     stepName, threadId, costTime, e.getMessage(), e);
             throw e;
         }
     }
 
+    private void record(String stepName, int outcome, long costNanos) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        stepTimers.computeIfAbsent(stepName, step -> new TbTimer[]{
+                metrics.timer("tb.step", "step", step, "outcome", "success"),
+                metrics.timer("tb.step", "step", step, "outcome", "error")
+        })[outcome].record(costNanos);
+    }
+
     /**
      * 辅助方法：从方法参数中提取MQ消息ID（需根据你的消息实体结构调整）
      * 示例：若参数是自定义Msg类，且有getId()方法，则通过反射获取
@@ -0,0 +1,74 @@
+package com.thinban.revoke;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.time.LocalDateTime;
+
+/**
+ * 吊销记录
+ * <pre>
+ * CREATE TABLE tb_revoked_token (
+ *     id         BIGINT       NOT NULL AUTO_INCREMENT,
+ *     type       VARCHAR(8)   NOT NULL COMMENT 'jti或user',
+ *     subject    VARCHAR(128) NOT NULL COMMENT 'Token的jti或用户ID',
+ *     revoked_at DATETIME     NOT NULL,
+ *     expires_at DATETIME     NOT NULL COMMENT '超过Token有效期后不再需要，可删除',
+ *     PRIMARY KEY (id),
+ *     KEY idx_expires_at (expires_at)
+ * );
+ * </pre>
+ */
+@TableName("tb_revoked_token")
+public class RevokedToken {
+    public static final String TYPE_JTI = "jti";
+    public static final String TYPE_USER = "user";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String type;
+    private String subject;
+    private LocalDateTime revokedAt;
+    private LocalDateTime expiresAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
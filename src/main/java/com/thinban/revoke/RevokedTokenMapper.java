@@ -0,0 +1,9 @@
+package com.thinban.revoke;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * 吊销记录 mapper，由 TokenRevocationService 注册到 MyBatis 配置中，不参与 mapper 扫描
+ */
+public interface RevokedTokenMapper extends BaseMapper<RevokedToken> {
+}
@@ -0,0 +1,205 @@
+package com.thinban.revoke;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.thinban.metrics.TbCounter;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.metrics.TbTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token吊销：吊销记录保存在 tb_revoked_token 表（见 RevokedToken），内存中维护 RevocationList 供 JwtFilter 查询
+ * <p>
+ * 后台线程每隔 refreshIntervalMillis 按自增id增量加载新记录。事务提交顺序与id顺序可能不一致（较小的id晚提交），
+ * 所以每次从已加载的最大id往回 OVERLAP_IDS 个id开始重新扫描，重复加载的记录不影响结果。
+ * 每隔 rebuildIntervalMillis 全量重建一次，清理已过期的记录（布隆过滤器不支持删除），同时补上超出重扫范围的遗漏；
+ * 记录数超过名单的预计容量时（误判率会升高）提前重建，新名单容量取 max(expectedEntries, 记录数×1.25)。
+ * 本节点调用 revokeXxx 立即生效，其他节点在一个刷新间隔内生效。
+ * <p>
+ * 加载失败时保留已加载的名单继续使用，不影响请求。
+ */
+public class TokenRevocationService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // 每次查询的最大行数
+    private static final int BATCH_SIZE = 1000;
+    // 增量加载时往回重新扫描的id数，覆盖同时未提交的吊销事务
+    static final int OVERLAP_IDS = 256;
+
+    private final RevokedTokenMapper mapper;
+    private final int expectedEntries;
+    private final double fpp;
+    private final long rebuildIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile RevocationList revocationList;
+
+    // 已加载的最大id和上次全量重建的时间，只由刷新线程访问
+    private long lastId;
+    private long lastRebuildMillis;
+
+    private final TbTimer refreshTimer;
+    private final TbCounter refreshFailures;
+
+    /**
+     * @param mapper                吊销记录mapper
+     * @param expectedEntries       预计吊销记录数，全量重建时按实际记录数扩容
+     * @param fpp                   布隆过滤器误判率
+     * @param refreshIntervalMillis 增量加载间隔（毫秒）
+     * @param rebuildIntervalMillis 全量重建间隔（毫秒）
+     * @param metrics               记录加载耗时（tb.jwt.revocation.refresh）、加载失败次数、名单大小和布隆过滤器误判次数
+     */
+    public TokenRevocationService(RevokedTokenMapper mapper, int expectedEntries, double fpp,
+                                  long refreshIntervalMillis, long rebuildIntervalMillis, TbMetrics metrics) {
+        this.mapper = mapper;
+        this.expectedEntries = expectedEntries;
+        this.fpp = fpp;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        this.revocationList = new RevocationList(expectedEntries, fpp);
+        this.refreshTimer = metrics.timer("tb.jwt.revocation.refresh");
+        this.refreshFailures = metrics.counter("tb.jwt.revocation.refresh.failures");
+        metrics.gauge("tb.jwt.revocation.size", this, service -> service.revocationList.size());
+        metrics.functionCounter("tb.jwt.revocation.false-positives", this, service -> service.revocationList.getFalsePositives());
+
+        // 启动时先同步加载一次，避免启动后的第一个刷新间隔内已吊销的Token仍然有效
+        refreshQuietly();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tb-jwt-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 吊销单个Token（按jti），expiresAt取Token的过期时间
+     */
+    public void revokeToken(String jti, LocalDateTime expiresAt) {
+        insert(RevokedToken.TYPE_JTI, jti, LocalDateTime.now(), expiresAt);
+        revocationList.revokeToken(jti);
+    }
+
+    /**
+     * 吊销用户当前已签发的所有Token（iat早于当前秒），之后重新登录签发的Token不受影响（包括同一秒内签发的）；
+     * Token中没有iat时，该用户的所有Token在expiresAt之前都视为已吊销。expiresAt取Token的最长有效期
+     */
+    public void revokeUser(Long userId, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        insert(RevokedToken.TYPE_USER, userId.toString(), now, expiresAt);
+        revocationList.revokeUser(userId, toEpochSecond(now));
+    }
+
+    /**
+     * @param jti      Token的jti，没有时传null
+     * @param userId   Token中的用户ID
+     * @param issuedAt Token的iat（秒），没有时传null
+     */
+    public boolean isRevoked(String jti, Long userId, Long issuedAt) {
+        return revocationList.isRevoked(jti, userId, issuedAt);
+    }
+
+    public RevocationList getRevocationList() {
+        return revocationList;
+    }
+
+    private void insert(String type, String subject, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        RevokedToken record = new RevokedToken();
+        record.setType(type);
+        record.setSubject(subject);
+        record.setRevokedAt(revokedAt);
+        record.setExpiresAt(expiresAt);
+        mapper.insert(record);
+    }
+
+    /**
+     * 加载一次吊销记录（定时任务调用）
+     */
+    void refreshQuietly() {
+        long start = System.nanoTime();
+        try {
+            RevocationList current = revocationList;
+            if (System.currentTimeMillis() - lastRebuildMillis >= rebuildIntervalMillis
+                    || current.size() > current.getExpectedEntries()) {
+                rebuild();
+            } else {
+                lastId = Math.max(lastId, load(current, Math.max(0, lastId - OVERLAP_IDS), false));
+            }
+            refreshTimer.record(System.nanoTime() - start);
+        } catch (Throwable e) {
+            // 不能让异常终止定时任务，继续使用已加载的名单
+            refreshFailures.increment();
+            log.warn("Token吊销名单加载失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 全量加载未过期的记录到新的名单后替换，容量按实际记录数留25%余量，避免布隆过滤器超出容量后误判率升高
+     */
+    private void rebuild() {
+        long count = mapper.selectCount(Wrappers.lambdaQuery(RevokedToken.class)
+                .gt(RevokedToken::getExpiresAt, LocalDateTime.now()));
+        long capacity = Math.max(expectedEntries, count + count / 4);
+        RevocationList rebuilt = new RevocationList((int) capacity, fpp);
+        long maxId = load(rebuilt, 0, true);
+        revocationList = rebuilt;
+        lastId = Math.max(lastId, maxId);
+        lastRebuildMillis = System.currentTimeMillis();
+        if (count > expectedEntries) {
+            log.info("Token吊销记录数{}超过预计值{}，已按实际记录数重建，容量{}", count, expectedEntries, capacity);
+        }
+    }
+
+    /**
+     * 按id分批加载 afterId 之后的记录，返回加载到的最大id
+     */
+    private long load(RevocationList target, long afterId, boolean unexpiredOnly) {
+        LocalDateTime now = LocalDateTime.now();
+        long cursor = afterId;
+        List<RevokedToken> records;
+        do {
+            LambdaQueryWrapper<RevokedToken> query = Wrappers.lambdaQuery(RevokedToken.class)
+                    .gt(RevokedToken::getId, cursor)
+                    .gt(unexpiredOnly, RevokedToken::getExpiresAt, now)
+                    .orderByAsc(RevokedToken::getId)
+                    .last("limit " + BATCH_SIZE);
+            records = mapper.selectList(query);
+            for (RevokedToken record : records) {
+                cursor = Math.max(cursor, record.getId());
+                if (record.getExpiresAt() == null || record.getExpiresAt().isAfter(now)) {
+                    add(target, record);
+                }
+            }
+        } while (records.size() == BATCH_SIZE);
+        return cursor;
+    }
+
+    private void add(RevocationList target, RevokedToken record) {
+        if (RevokedToken.TYPE_JTI.equals(record.getType())) {
+            target.revokeToken(record.getSubject());
+        } else if (RevokedToken.TYPE_USER.equals(record.getType())) {
+            try {
+                target.revokeUser(Long.parseLong(record.getSubject()), toEpochSecond(record.getRevokedAt()));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的用户吊销记录: id={}, subject={}", record.getId(), record.getSubject());
+            }
+        } else {
+            log.warn("忽略未知类型的吊销记录: id={}, type={}", record.getId(), record.getType());
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,214 @@
+package com.thinban.util;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 缓存响应体的包装类：下游写出的内容先放在内存中，由过滤器决定最终如何写出
+ * <p>
+ * 下游设置的 Content-Length 会被忽略（内容变化后长度由过滤器重新设置），flushBuffer 默认也被忽略，
+ * 子类可以重写 onFlushBuffer 改为调用 stopBuffering，把已缓存的内容写出并改为直接透传。
+ * 子类可以重写 onWrite 在写入时顺带处理数据（如计算哈希），避免写完后再遍历一遍。
+ */
+public class BufferingResponseWrapper extends HttpServletResponseWrapper {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+    private final ServletOutputStream outputStream = new BufferingOutputStream();
+    private PrintWriter writer;
+    // 停止缓存后直接写入的被包装响应的输出流，见 stopBuffering
+    private ServletOutputStream passThrough;
+
+    public BufferingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * 写入数据时的回调
+     */
+    protected void onWrite(byte[] b, int off, int len) throws IOException {
+    }
+
+    /**
+     * 写入单个字节时的回调
+     */
+    protected void onWrite(int b) throws IOException {
+    }
+
+    /**
+     * 下游调用 flushBuffer 时的回调（仍在缓存时），默认忽略
+     */
+    protected void onFlushBuffer() throws IOException {
+    }
+
+    /**
+     * 缓存被清空时的回调
+     */
+    protected void onReset() {
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!"Content-Length".equalsIgnoreCase(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!"Content-Length".equalsIgnoreCase(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flushWriter();
+        if (isBuffering()) {
+            onFlushBuffer();
+        }
+        if (!isBuffering()) {
+            getResponse().flushBuffer();
+        }
+    }
+
+    /**
+     * 停止缓存：已缓存的内容写入被包装的响应，之后的写入直接透传，不再回调 onWrite
+     * <p>
+     * 可以在 onWrite 中调用；不 flush writer，writer 中尚未写出的字符随后直接透传，顺序不变。
+     */
+    protected void stopBuffering() throws IOException {
+        if (passThrough != null) {
+            return;
+        }
+        ServletOutputStream target = getResponse().getOutputStream();
+        buffer.writeTo(target);
+        buffer.reset();
+        passThrough = target;
+    }
+
+    /**
+     * 是否仍在缓存响应体（未调用过 stopBuffering）
+     */
+    public boolean isBuffering() {
+        return passThrough == null;
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        buffer.reset();
+        onReset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        buffer.reset();
+        onReset();
+    }
+
+    /**
+     * 已缓存的响应体
+     */
+    public byte[] getBody() {
+        flushWriter();
+        return buffer.toByteArray();
+    }
+
+    public int getBodySize() {
+        flushWriter();
+        return buffer.size();
+    }
+
+    /**
+     * 把缓存的响应体原样写入被包装的响应（已停止缓存时只 flush writer）
+     */
+    public void copyBodyToResponse() throws IOException {
+        flushWriter();
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        if (buffer.size() > 0) {
+            if (!response.isCommitted()) {
+                response.setContentLength(buffer.size());
+            }
+            buffer.writeTo(response.getOutputStream());
+        }
+    }
+
+    private class BufferingOutputStream extends ServletOutputStream {
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            // 无需实现
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (passThrough != null) {
+                passThrough.write(b);
+                return;
+            }
+            buffer.write(b);
+            onWrite(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (passThrough != null) {
+                passThrough.write(b, off, len);
+                return;
+            }
+            buffer.write(b, off, len);
+            onWrite(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // 仍在缓存时忽略（Spring的消息转换器每次写完都会flush输出流）
+            if (passThrough != null) {
+                passThrough.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.thinban.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater 对象池：Deflater 每个实例在堆外分配约256KB（窗口+哈希表），每次请求新建再 end() 会让这部分堆外内存反复分配、释放
+ * <p>
+ * 复用对耗时没有可测的影响（reset() 和新建时一样要清空哈希表，见 benchmarks/BASELINE.md 的 DeflaterPoolBenchmark），
+ * 保留对象池是为了内存：多个线程同时压缩时，每次新建的 Deflater 由 malloc 在各线程的 arena 中分配，释放后不一定归还给操作系统，
+ * 16个线程时进程 RSS 比复用时高约10MB；复用后堆外内存固定为最多 capacity 个实例，每次请求也不再新建 Deflater 对象和注册 Cleaner。
+ * <p>
+ * 取出时池为空则新建，归还时 reset() 后放回，池满则直接 end() 释放堆外内存，池中最多保留 capacity 个。
+ * 使用 nowrap 模式（不带zlib头），由调用方自己写 gzip 头和尾。
+ */
+public final class DeflaterPool {
+    private final ArrayBlockingQueue<Deflater> pool;
+    private final int level;
+
+    /**
+     * @param capacity 最多保留的实例数，取同时压缩的线程数即可（如CPU核数×2）
+     * @param level    压缩级别 1~9
+     */
+    public DeflaterPool(int capacity, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level必须在1~9之间");
+        }
+        this.pool = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.level = level;
+    }
+
+    public Deflater borrow() {
+        Deflater deflater = pool.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    /**
+     * 归还（使用中途出错也可以归还，reset 会清空状态）
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 池中空闲的实例数
+     */
+    public int getIdle() {
+        return pool.size();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,83 @@
+package com.thinban.util;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预编译的Ant风格路径匹配器，启动时把配置的路径分成三类，请求时按代价从低到高依次匹配：
+ * <ul>
+ *     <li>不含通配符的路径：HashSet精确匹配</li>
+ *     <li>形如 /app/** 的路径：前缀比较</li>
+ *     <li>其他路径：交给 AntPathMatcher</li>
+ * </ul>
+ */
+public final class RouteMatcher {
+    private static final RouteMatcher EMPTY = new RouteMatcher(Set.of(), new String[0], new String[0]);
+    private static final PathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    private final Set<String> exactPaths;
+    private final String[] prefixes;
+    private final String[] patterns;
+
+    private RouteMatcher(Set<String> exactPaths, String[] prefixes, String[] patterns) {
+        this.exactPaths = exactPaths;
+        this.prefixes = prefixes;
+        this.patterns = patterns;
+    }
+
+    /**
+     * 编译路径列表，null或空列表返回不匹配任何路径的实例
+     */
+    public static RouteMatcher compile(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> exactPaths = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        List<String> patterns = new ArrayList<>();
+        for (String path : paths) {
+            if (!StringUtils.hasText(path)) {
+                continue;
+            }
+            String p = path.trim();
+            if (!ANT_PATH_MATCHER.isPattern(p)) {
+                exactPaths.add(p);
+            } else if (p.endsWith("/**") && !ANT_PATH_MATCHER.isPattern(p.substring(0, p.length() - 3))) {
+                prefixes.add(p.substring(0, p.length() - 3));
+            } else {
+                patterns.add(p);
+            }
+        }
+        return new RouteMatcher(Set.copyOf(exactPaths), prefixes.toArray(new String[0]), patterns.toArray(new String[0]));
+    }
+
+    public boolean matches(String path) {
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            // 与AntPathMatcher一致：/app/** 同时匹配 /app 和 /app/下的所有路径
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        for (String pattern : patterns) {
+            if (ANT_PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return exactPaths.isEmpty() && prefixes.length == 0 && patterns.length == 0;
+    }
+}
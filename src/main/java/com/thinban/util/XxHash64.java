@@ -0,0 +1,162 @@
+package com.thinban.util;
+
+/**
+ * 流式 xxHash64（非加密哈希，用于 ETag 等内容指纹），可以边写边算，不需要先拿到完整内容
+ * <p>
+ * 非线程安全，每次请求使用一个实例。
+ */
+public final class XxHash64 {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+    // 不足32字节的剩余数据
+    private final byte[] buffer = new byte[32];
+    private int bufferSize;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public void reset() {
+        v1 = seed + PRIME64_1 + PRIME64_2;
+        v2 = seed + PRIME64_2;
+        v3 = seed;
+        v4 = seed - PRIME64_1;
+        totalLength = 0;
+        bufferSize = 0;
+    }
+
+    public void update(int b) {
+        buffer[bufferSize++] = (byte) b;
+        totalLength++;
+        if (bufferSize == 32) {
+            processStripe(buffer, 0);
+            bufferSize = 0;
+        }
+    }
+
+    public void update(byte[] b, int off, int len) {
+        totalLength += len;
+        if (bufferSize + len < 32) {
+            System.arraycopy(b, off, buffer, bufferSize, len);
+            bufferSize += len;
+            return;
+        }
+        int end = off + len;
+        if (bufferSize > 0) {
+            int fill = 32 - bufferSize;
+            System.arraycopy(b, off, buffer, bufferSize, fill);
+            processStripe(buffer, 0);
+            off += fill;
+            bufferSize = 0;
+        }
+        while (off + 32 <= end) {
+            processStripe(b, off);
+            off += 32;
+        }
+        if (off < end) {
+            bufferSize = end - off;
+            System.arraycopy(b, off, buffer, 0, bufferSize);
+        }
+    }
+
+    /**
+     * 计算当前哈希值（不影响后续继续 update）
+     */
+    public long getValue() {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += totalLength;
+
+        int i = 0;
+        while (i + 8 <= bufferSize) {
+            h ^= round(0, readLongLE(buffer, i));
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+            i += 8;
+        }
+        if (i + 4 <= bufferSize) {
+            h ^= (readIntLE(buffer, i) & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+            i += 4;
+        }
+        while (i < bufferSize) {
+            h ^= (buffer[i] & 0xFFL) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+            i++;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * 一次性计算
+     */
+    public static long hash(byte[] b, int off, int len) {
+        XxHash64 hash = new XxHash64();
+        hash.update(b, off, len);
+        return hash.getValue();
+    }
+
+    private void processStripe(byte[] b, int off) {
+        v1 = round(v1, readLongLE(b, off));
+        v2 = round(v2, readLongLE(b, off + 8));
+        v3 = round(v3, readLongLE(b, off + 16));
+        v4 = round(v4, readLongLE(b, off + 24));
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLongLE(byte[] b, int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int readIntLE(byte[] b, int i) {
+        return (b[i] & 0xFF)
+                | (b[i + 1] & 0xFF) << 8
+                | (b[i + 2] & 0xFF) << 16
+                | (b[i + 3] & 0xFF) << 24;
+    }
+}
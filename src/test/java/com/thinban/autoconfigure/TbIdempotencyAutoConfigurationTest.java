@@ -0,0 +1,42 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.idempotency.LocalIdempotencyStore;
+import com.thinban.idempotency.RedisIdempotencyStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbIdempotencyAutoConfigurationTest {
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class, TbAutoConfiguration.class,
+                    TbIdempotencyAutoConfiguration.class))
+            .withPropertyValues("tb.idempotency.enabled=true");
+
+    @Test
+    void usesLocalStoreByDefault() {
+        runner.run(context -> assertThat(context).hasSingleBean(LocalIdempotencyStore.class));
+    }
+
+    @Test
+    void usesRedisStoreWhenTemplatePresent() {
+        runner.withPropertyValues("tb.idempotency.backend=redis")
+                .withBean(StringRedisTemplate.class, () -> Mockito.mock(StringRedisTemplate.class))
+                .run(context -> {
+                    assertThat(context).hasSingleBean(RedisIdempotencyStore.class);
+                    assertThat(context).doesNotHaveBean(LocalIdempotencyStore.class);
+                });
+    }
+
+    @Test
+    void failsWhenRedisBackendHasNoTemplate() {
+        runner.withPropertyValues("tb.idempotency.backend=redis").run(context -> {
+            assertThat(context).hasFailed();
+            assertThat(context.getStartupFailure()).rootCause().hasMessageContaining("tb.idempotency.backend=redis");
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package com.thinban.autoconfigure;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TbLegacyPropertiesEnvironmentPostProcessorTest {
+    private final TbLegacyPropertiesEnvironmentPostProcessor processor =
+            new TbLegacyPropertiesEnvironmentPostProcessor(Supplier::get);
+
+    @Test
+    void mapsLegacyRateLimitKeys() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("security.rate-limit.max-requests", "5")
+                .withProperty("security.rate-limit.window-seconds", "10");
+
+        TbProperties.RateLimit rateLimit = bind(environment);
+
+        assertEquals(5, rateLimit.getMaxRequests());
+        assertEquals(10, rateLimit.getWindowSeconds());
+    }
+
+    @Test
+    void newKeysWinOverLegacyKeys() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("security.rate-limit.max-requests", "5")
+                .withProperty("tb.rate-limit.max-requests", "7");
+
+        TbProperties.RateLimit rateLimit = bind(environment);
+
+        assertEquals(7, rateLimit.getMaxRequests());
+        assertEquals(60, rateLimit.getWindowSeconds());
+    }
+
+    @Test
+    void addsNothingWithoutLegacyKeys() {
+        MockEnvironment environment = new MockEnvironment();
+
+        processor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertFalse(environment.getPropertySources().contains(TbLegacyPropertiesEnvironmentPostProcessor.PROPERTY_SOURCE_NAME));
+    }
+
+    private TbProperties.RateLimit bind(MockEnvironment environment) {
+        processor.postProcessEnvironment(environment, new SpringApplication());
+        ConfigurationPropertySources.attach(environment);
+        return Binder.get(environment).bindOrCreate("tb", TbProperties.class).getRateLimit();
+    }
+}
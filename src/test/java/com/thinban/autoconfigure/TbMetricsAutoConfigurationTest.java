@@ -0,0 +1,41 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.metrics.LocalTbMetrics;
+import com.thinban.metrics.TbMeterBinder;
+import com.thinban.metrics.TbMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbMetricsAutoConfigurationTest {
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TbAutoConfiguration.class, TbMetricsAutoConfiguration.class));
+
+    @Test
+    void usesLocalMetricsWithMicrometer() {
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(LocalTbMetrics.class);
+            assertThat(context).hasSingleBean(TbMeterBinder.class);
+        });
+    }
+
+    @Test
+    void customMetricsSkipsBinder() {
+        runner.withBean(TbMetrics.class, TbMetrics::noop).run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(LocalTbMetrics.class);
+            assertThat(context).doesNotHaveBean(TbMeterBinder.class);
+        });
+    }
+
+    @Test
+    void disabledUsesNoop() {
+        runner.withPropertyValues("tb.metrics.enabled=false").run(context -> {
+            assertThat(context).hasSingleBean(TbMetrics.class);
+            assertThat(context.getBean(TbMetrics.class).isEnabled()).isFalse();
+            assertThat(context).doesNotHaveBean(TbMeterBinder.class);
+        });
+    }
+}
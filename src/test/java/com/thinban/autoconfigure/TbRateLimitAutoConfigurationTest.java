@@ -0,0 +1,38 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.limit.LocalRateLimitBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbRateLimitAutoConfigurationTest {
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TbAutoConfiguration.class, TbMetricsAutoConfiguration.class,
+                    TbRateLimitAutoConfiguration.class))
+            .withPropertyValues("tb.rate-limit.cluster.enabled=true");
+
+    @Test
+    void usesLocalBackendWhenConfigured() {
+        runner.withPropertyValues("tb.rate-limit.cluster.backend=local").run(context -> {
+            assertThat(context).hasSingleBean(LocalRateLimitBackend.class);
+            assertThat(context).hasSingleBean(ClusterRateLimiter.class);
+        });
+    }
+
+    @Test
+    void failsWhenRedisBackendHasNoTemplate() {
+        runner.run(context -> {
+            assertThat(context).hasFailed();
+            assertThat(context.getStartupFailure()).rootCause().hasMessageContaining("tb.rate-limit.cluster.backend=redis");
+        });
+    }
+
+    @Test
+    void notCreatedWhenClusterDisabled() {
+        runner.withPropertyValues("tb.rate-limit.cluster.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(ClusterRateLimiter.class));
+    }
+}
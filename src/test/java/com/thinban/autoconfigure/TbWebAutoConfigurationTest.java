@@ -0,0 +1,148 @@
+package com.thinban.autoconfigure;
+
+import com.thinban.config.AbstractStageFilter;
+import com.thinban.config.FusedFilter;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TbWebAutoConfigurationTest {
+    // 开启所有阶段
+    private static final String[] ALL_STAGES = {
+            "tb.concurrency-limit.enabled=true",
+            "tb.compression.enabled=true",
+            "tb.etag.enabled=true",
+            "tb.sensitive.enabled=true",
+            "tb.idempotency.enabled=true"
+    };
+
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class, TbAutoConfiguration.class,
+                    TbMetricsAutoConfiguration.class, TbRateLimitAutoConfiguration.class, TbRevocationAutoConfiguration.class,
+                    TbIdempotencyAutoConfiguration.class, TbWebAutoConfiguration.class))
+            .withPropertyValues("tb.jwt.key=0123456789abcdef0123456789abcdef");
+
+    @Test
+    void classicOrderFollowsOrderAnnotation() {
+        List<String> classic = new ArrayList<>();
+        runner.withPropertyValues(ALL_STAGES).run(context -> {
+            assertFalse(context.containsBean("fusedFilterRegistration"));
+            context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                    .sorted(Comparator.comparingInt(FilterRegistrationBean::getOrder))
+                    .forEach(registration -> {
+                        AbstractStageFilter filter = (AbstractStageFilter) registration.getFilter();
+                        assertTrue(registration.isEnabled());
+                        assertEquals(OrderUtils.getOrder(filter.getClass()), registration.getOrder());
+                        classic.add(filter.getStageName());
+                    });
+        });
+        assertEquals(List.of("concurrency-limit", "xss", "compression", "rate-limit", "security-header", "etag", "jwt",
+                "idempotency", "sensitive"), classic);
+    }
+
+    @Test
+    void failsWithoutJwtKeyUnlessJwtDisabled() {
+        WebApplicationContextRunner withoutKey = runner.withPropertyValues("tb.jwt.key=");
+        withoutKey.run(context -> {
+            assertNotNull(context.getStartupFailure());
+            assertTrue(rootCause(context.getStartupFailure()).getMessage().contains("tb.jwt.key"));
+        });
+        withoutKey.withPropertyValues("tb.jwt.enabled=false").run(context -> {
+            assertNull(context.getStartupFailure());
+            assertFalse(context.containsBean("jwtFilterRegistration"));
+        });
+    }
+
+    @Test
+    void jwtFilterAlsoRunsOnForward() {
+        runner.withPropertyValues(ALL_STAGES).run(context -> {
+            FilterRegistrationBean<?> jwt = context.getBean("jwtFilterRegistration", FilterRegistrationBean.class);
+            assertEquals(EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD), getDispatcherTypes(jwt));
+        });
+    }
+
+    @Test
+    void bindsNamedSecurityHeaderProfiles() {
+        runner.withPropertyValues("tb.security-header.profiles.docs.paths=/swagger-ui/**",
+                "tb.security-header.profiles.docs.headers.X-Frame-Options=SAMEORIGIN").run(context -> {
+            FilterRegistrationBean<?> registration = context.getBean("securityHeaderFilterRegistration", FilterRegistrationBean.class);
+            MockHttpServletResponse docs = new MockHttpServletResponse();
+            registration.getFilter().doFilter(new MockHttpServletRequest("GET", "/swagger-ui/index.html"), docs,
+                    new MockFilterChain());
+            MockHttpServletResponse api = new MockHttpServletResponse();
+            registration.getFilter().doFilter(new MockHttpServletRequest("GET", "/api/users"), api, new MockFilterChain());
+
+            assertEquals("SAMEORIGIN", docs.getHeader("X-Frame-Options"));
+            assertEquals("DENY", api.getHeader("X-Frame-Options"));
+        });
+        runner.withPropertyValues("tb.security-header.profiles.docs.headers.X-Frame-Options=SAMEORIGIN").run(context -> {
+            assertNotNull(context.getStartupFailure());
+            assertTrue(rootCause(context.getStartupFailure()).getMessage().contains("tb.security-header.profiles.docs.paths"));
+        });
+    }
+
+    @Test
+    void fusedDefaultOrderRunsAuthBeforeRateLimit() {
+        assertEquals(List.of("concurrency-limit", "xss", "compression", "security-header", "jwt", "rate-limit", "idempotency",
+                "etag", "sensitive"), fusedStages(ALL_STAGES));
+        // 未启用的阶段不执行
+        assertEquals(List.of("xss", "security-header", "jwt", "rate-limit", "sensitive"), fusedStages());
+    }
+
+    @Test
+    void fusedWithEmptyStagesFollowsClassicOrder() {
+        List<String> classic = new ArrayList<>();
+        runner.withPropertyValues(ALL_STAGES).run(context -> context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                .sorted(Comparator.comparingInt(FilterRegistrationBean::getOrder))
+                .forEach(registration -> classic.add(((AbstractStageFilter) registration.getFilter()).getStageName())));
+        assertEquals(9, classic.size());
+
+        List<String> properties = new ArrayList<>(List.of(ALL_STAGES));
+        properties.add("tb.filter.fused.stages=");
+        assertEquals(classic, fusedStages(properties.toArray(new String[0])));
+    }
+
+    @Test
+    void fusedUsesConfiguredStages() {
+        assertEquals(List.of("security-header", "xss"), fusedStages("tb.filter.fused.stages=security-header,xss,unknown"));
+    }
+
+    private List<String> fusedStages(String... properties) {
+        List<String> stages = new ArrayList<>();
+        runner.withPropertyValues(properties).withPropertyValues("tb.filter.mode=fused").run(context -> {
+            FilterRegistrationBean<?> fused = context.getBean("fusedFilterRegistration", FilterRegistrationBean.class);
+            stages.addAll(((FusedFilter) fused.getFilter()).getStageNames());
+            // 各阶段的注册被禁用，只保留 FusedFilter
+            assertEquals(1, context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                    .filter(FilterRegistrationBean::isEnabled).count());
+        });
+        return stages;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EnumSet<DispatcherType> getDispatcherTypes(FilterRegistrationBean<?> registration) {
+        return (EnumSet<DispatcherType>) ReflectionTestUtils.getField(registration, "dispatcherTypes");
+    }
+}
@@ -0,0 +1,159 @@
+package com.thinban.config;
+
+import com.thinban.compress.GzipEncoder;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.DeflaterPool;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+    private static final int MIN_SIZE = 64;
+    private static final String LARGE = "{\"data\":\"" + "abc".repeat(200) + "\"}";
+
+    private final DeflaterPool pool = new DeflaterPool(4, 6);
+    private final CompressionFilter filter = new CompressionFilter(List.of(new GzipEncoder(pool)), MIN_SIZE,
+            List.of("application/json"), TbMetrics.noop());
+
+    @Test
+    void writesSmallBodyUncompressed() throws Exception {
+        MockHttpServletResponse response = get(json("{\"a\":1}"));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(7, response.getContentLength());
+        assertEquals("{\"a\":1}", response.getContentAsString());
+    }
+
+    @Test
+    void compressesBodyAboveMinSize() throws Exception {
+        MockHttpServletResponse response = get(json(LARGE));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(List.of("Accept-Encoding"), response.getHeaders("Vary"));
+        assertEquals(LARGE, gunzip(response.getContentAsByteArray()));
+        assertEquals(1, filter.getCompressedResponses());
+        assertEquals(LARGE.length(), filter.getBytesIn());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void skipsTypesNotConfigured() throws Exception {
+        MockHttpServletResponse response = get((req, res) -> {
+            res.setContentType("image/png");
+            res.getOutputStream().write(LARGE.getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(LARGE, response.getContentAsString());
+    }
+
+    @Test
+    void resetBufferRestartsCompressedStream() throws Exception {
+        MockHttpServletResponse response = get((req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(LARGE.getBytes(StandardCharsets.UTF_8));
+            res.resetBuffer();
+            res.getOutputStream().write(LARGE.getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(LARGE, gunzip(response.getContentAsByteArray()));
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void dropsEncodingHeadersWhenDownstreamFailsBeforeCommit() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.addHeader("Vary", "Origin");
+        response.setHeader("X-Frame-Options", "DENY");
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(gzipRequest(), response, (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(LARGE.getBytes(StandardCharsets.UTF_8));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertFalse(response.isCommitted());
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(List.of("Origin"), response.getHeaders("Vary"));
+        assertEquals("DENY", response.getHeader("X-Frame-Options"));
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(0, filter.getCompressedResponses());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void discardsBufferedBodyWhenDownstreamFails() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(gzipRequest(), response, (req, res) -> {
+            res.setContentType("application/json");
+            res.getWriter().write("{\"a\":");
+            throw new IllegalStateException("boom");
+        }));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void releasesDeflaterWithoutTrailerWhenDownstreamFailsAfterCommit() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[][] written = new byte[1][];
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(gzipRequest(), response, (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(LARGE.getBytes(StandardCharsets.UTF_8));
+            res.flushBuffer();
+            written[0] = response.getContentAsByteArray();
+            throw new IllegalStateException("boom");
+        }));
+
+        // 已提交的响应头不能修改，压缩流不写结尾（客户端能发现响应不完整）
+        assertTrue(response.isCommitted());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertArrayEquals(written[0], response.getContentAsByteArray());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void negotiatesByQuality() {
+        assertTrue(CompressionFilter.accepts("gzip, deflate", "gzip"));
+        assertFalse(CompressionFilter.accepts("gzip;q=0, br", "gzip"));
+        assertTrue(CompressionFilter.accepts("*;q=0.5", "gzip"));
+        assertFalse(CompressionFilter.accepts("br, *;q=0", "gzip"));
+    }
+
+    private MockHttpServletResponse get(FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(gzipRequest(), response, chain);
+        return response;
+    }
+
+    private static FilterChain json(String body) {
+        return (req, res) -> {
+            res.setContentType("application/json");
+            res.getWriter().write(body);
+        };
+    }
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/data");
+        request.addHeader("Accept-Encoding", "gzip");
+        return request;
+    }
+
+    private static String gunzip(byte[] compressed) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
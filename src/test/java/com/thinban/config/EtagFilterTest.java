@@ -0,0 +1,93 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtagFilterTest {
+    private static final String BODY = "{\"code\":\"0\",\"info\":[1,2,3]}";
+
+    private final EtagFilter filter = new EtagFilter(List.of("/stream/**"), 64, TbMetrics.noop());
+
+    @Test
+    void returnsNotModifiedWhenEtagMatches() throws Exception {
+        MockHttpServletResponse first = get("/user", null, BODY);
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/\""));
+        assertEquals(BODY, first.getContentAsString());
+
+        MockHttpServletResponse second = get("/user", etag, BODY);
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getContentAsByteArray().length);
+        assertEquals(1, filter.getNotModifiedResponses());
+        assertEquals(BODY.length(), filter.getBytesSaved());
+    }
+
+    @Test
+    void skipsExcludedPaths() throws Exception {
+        MockHttpServletResponse response = get("/stream/users", null, BODY);
+        assertNull(response.getHeader("ETag"));
+        assertEquals(BODY, response.getContentAsString());
+    }
+
+    @Test
+    void stopsBufferingAboveMaxBodyBytes() throws Exception {
+        String body = "x".repeat(100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/big"), response, (req, res) -> {
+            res.getOutputStream().write(body.substring(0, 40).getBytes());
+            res.getOutputStream().write(body.substring(40).getBytes());
+            // 超过上限后直接写出，不等到请求结束
+            assertEquals(100, ((MockHttpServletResponse) unwrap(res)).getContentAsByteArray().length);
+        });
+        assertNull(response.getHeader("ETag"));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    void stopsBufferingOnFlushBuffer() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/flush"), response, (req, res) -> {
+            res.getWriter().write("{\"a\":");
+            res.flushBuffer();
+            assertTrue(res.isCommitted());
+            res.getWriter().write("1}");
+        });
+        assertNull(response.getHeader("ETag"));
+        assertEquals("{\"a\":1}", response.getContentAsString());
+    }
+
+    @Test
+    void ordersBetweenSecurityHeaderAndSensitive() {
+        int order = OrderUtils.getOrder(EtagFilter.class, 0);
+        assertTrue(order > OrderUtils.getOrder(SecurityHeaderFilter.class, 0));
+        assertTrue(order < OrderUtils.getOrder(SensitiveInfoFilter.class, 0));
+    }
+
+    private MockHttpServletResponse get(String uri, String ifNoneMatch, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            res.setContentType("application/json");
+            res.getWriter().write(body);
+        });
+        return response;
+    }
+
+    private static jakarta.servlet.ServletResponse unwrap(jakarta.servlet.ServletResponse response) {
+        while (response instanceof jakarta.servlet.ServletResponseWrapper wrapper) {
+            response = wrapper.getResponse();
+        }
+        return response;
+    }
+}
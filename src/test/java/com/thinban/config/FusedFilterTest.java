@@ -0,0 +1,126 @@
+package com.thinban.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FusedFilterTest {
+    private final List<String> events = new ArrayList<>();
+    private final FilterChain chain = (req, res) -> events.add("chain");
+
+    @Test
+    void runsStagesInOrderAndPostHandleInReverse() throws Exception {
+        FusedFilter filter = new FusedFilter(List.of(stage("a"), stage("b"), stage("c")), Map.of());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api"), new MockHttpServletResponse(), chain);
+
+        assertEquals(List.of("a.pre", "b.pre", "c.pre", "chain", "c.post", "b.post", "a.post",
+                "c.after", "b.after", "a.after"), events);
+        assertEquals(List.of("a", "b", "c"), filter.getStageNames());
+    }
+
+    @Test
+    void shortCircuitsWhenPreHandleReturnsFalse() throws Exception {
+        RecordingStage b = stage("b");
+        b.proceed = false;
+        FusedFilter filter = new FusedFilter(List.of(stage("a"), b, stage("c")), Map.of());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api"), new MockHttpServletResponse(), chain);
+
+        // 后续阶段和业务处理都不执行；拦截的阶段不执行 postHandle，但执行 afterCompletion
+        assertEquals(List.of("a.pre", "b.pre", "a.post", "b.after", "a.after"), events);
+    }
+
+    @Test
+    void runsAfterCompletionWhenChainThrows() {
+        FusedFilter filter = new FusedFilter(List.of(stage("a"), stage("b")), Map.of());
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(new MockHttpServletRequest("GET", "/api"),
+                new MockHttpServletResponse(), (req, res) -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals(List.of("a.pre", "b.pre", "b.after", "a.after"), events);
+    }
+
+    @Test
+    void runsAfterCompletionWhenPreHandleThrows() {
+        RecordingStage b = stage("b");
+        b.failure = new IllegalStateException("boom");
+        FusedFilter filter = new FusedFilter(List.of(stage("a"), b, stage("c")), Map.of());
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(new MockHttpServletRequest("GET", "/api"),
+                new MockHttpServletResponse(), chain));
+
+        assertEquals(List.of("a.pre", "b.pre", "b.after", "a.after"), events);
+    }
+
+    @Test
+    void skipsStagesByRoute() throws Exception {
+        FusedFilter filter = new FusedFilter(List.of(stage("a"), stage("b"), stage("c")),
+                Map.of("b", List.of("/static/**")));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/static/app.js"), new MockHttpServletResponse(), chain);
+        assertEquals(List.of("a.pre", "c.pre", "chain", "c.post", "a.post", "c.after", "a.after"), events);
+
+        events.clear();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api"), new MockHttpServletResponse(), chain);
+        assertEquals(10, events.size());
+    }
+
+    @Test
+    void rejectsMoreThan64Stages() {
+        List<FilterStage> stages = new ArrayList<>();
+        for (int i = 0; i <= Long.SIZE; i++) {
+            stages.add(stage("s" + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new FusedFilter(stages, Map.of()));
+    }
+
+    private RecordingStage stage(String name) {
+        return new RecordingStage(name, events);
+    }
+
+    private static final class RecordingStage implements FilterStage {
+        private final String name;
+        private final List<String> events;
+        boolean proceed = true;
+        RuntimeException failure;
+
+        RecordingStage(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public String getStageName() {
+            return name;
+        }
+
+        @Override
+        public boolean preHandle(RequestContext ctx) {
+            events.add(name + ".pre");
+            if (failure != null) {
+                throw failure;
+            }
+            return proceed;
+        }
+
+        @Override
+        public void postHandle(RequestContext ctx) {
+            events.add(name + ".post");
+        }
+
+        @Override
+        public void afterCompletion(RequestContext ctx) {
+            events.add(name + ".after");
+        }
+    }
+}
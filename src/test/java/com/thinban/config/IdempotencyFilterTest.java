@@ -0,0 +1,247 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.idempotency.IdempotencyRecord;
+import com.thinban.idempotency.LocalIdempotencyStore;
+import com.thinban.metrics.TbMetrics;
+import com.thinban.util.JwtThreadLocalHolder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+    private static final String HEADER = "Idempotency-Key";
+
+    private final LocalIdempotencyStore store = new LocalIdempotencyStore(100);
+    private final IdempotencyFilter filter = new IdempotencyFilter(new ObjectMapper(), store, HEADER, List.of("POST"),
+            60_000, 5_000, 2_000, 8192, 64, TbMetrics.noop());
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void login() {
+        JwtThreadLocalHolder.setUserId(1L);
+    }
+
+    @AfterEach
+    void logout() {
+        JwtThreadLocalHolder.clear();
+    }
+
+    @Test
+    void replaysCompletedResponse() throws Exception {
+        MockHttpServletResponse first = post("k1", "{\"amount\":1}", echo());
+        MockHttpServletResponse second = post("k1", "{\"amount\":1}", echo());
+
+        assertEquals(1, executions.get());
+        assertEquals("{\"amount\":1}", first.getContentAsString());
+        assertEquals(200, second.getStatus());
+        assertEquals("true", second.getHeader("Idempotent-Replayed"));
+        assertEquals("{\"amount\":1}", second.getContentAsString());
+    }
+
+    @Test
+    void rejectsSameKeyWithDifferentBody() throws Exception {
+        post("k2", "{\"amount\":1}", echo());
+        MockHttpServletResponse second = post("k2", "{\"amount\":100}", echo());
+
+        assertEquals(1, executions.get());
+        assertEquals(422, second.getStatus());
+    }
+
+    @Test
+    void rejectsSameKeyWithDifferentPath() throws Exception {
+        post("k3", "{}", echo());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("/other", "k3", "{}"), response, echo());
+
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    void rejectsSameKeyWithDifferentFormParameters() throws Exception {
+        MockHttpServletRequest first = request("/order", "k4", null);
+        first.setContentType("application/x-www-form-urlencoded");
+        first.addParameter("amount", "1");
+        filter.doFilter(first, new MockHttpServletResponse(), echo());
+
+        MockHttpServletRequest second = request("/order", "k4", null);
+        second.setContentType("application/x-www-form-urlencoded");
+        second.addParameter("amount", "100");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(second, response, echo());
+
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    void usesContentLengthAndDigestAboveMaxRequestBytes() throws Exception {
+        String body = "x".repeat(100);
+        MockHttpServletRequest first = request("/upload", "k5", body);
+        first.addHeader("Content-Digest", "sha-256=:a:");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        filter.doFilter(first, firstResponse, echo());
+        // 超过上限的请求体不缓存，下游仍能完整读取
+        assertEquals(body, firstResponse.getContentAsString());
+
+        MockHttpServletRequest second = request("/upload", "k5", body);
+        second.addHeader("Content-Digest", "sha-256=:b:");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(second, response, echo());
+
+        assertEquals(422, response.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForFirstResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (req, res) -> {
+            started.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            echo().doFilter(req, res);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> {
+                JwtThreadLocalHolder.setUserId(1L);
+                return post("k6", "{}", slow);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> second = executor.submit(() -> {
+                JwtThreadLocalHolder.setUserId(1L);
+                return post("k6", "{}", echo());
+            });
+            Thread.sleep(50);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals("{}", first.get(5, TimeUnit.SECONDS).getContentAsString());
+            MockHttpServletResponse replayed = second.get(5, TimeUnit.SECONDS);
+            assertEquals("true", replayed.getHeader("Idempotent-Replayed"));
+            assertEquals("{}", replayed.getContentAsString());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void releasesKeyWhenDownstreamFails() {
+        assertThrows(IllegalStateException.class, () -> post("k7", "{}", (req, res) -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertNull(store.get("1:k7"));
+    }
+
+    @Test
+    void keepsMarkerClaimedByAnotherRequestAfterExpiry() throws Exception {
+        // 执行中标记1ms后过期
+        IdempotencyFilter shortLived = new IdempotencyFilter(new ObjectMapper(), store, HEADER, List.of("POST"),
+                60_000, 1, 2_000, 8192, 64, TbMetrics.noop());
+        IdempotencyRecord other = IdempotencyRecord.inFlight("POST /order -", "other-node");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        shortLived.doFilter(request("/order", "k8", "{}"), response, (req, res) -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            // 标记过期后被其他节点的请求占用
+            assertNull(store.putIfAbsent("1:k8", other, 60_000));
+            echo().doFilter(req, res);
+        });
+
+        assertEquals("{}", response.getContentAsString());
+        assertSame(other, store.get("1:k8"));
+    }
+
+    @Test
+    void notifiesReadListenerWithCachedBody() throws Exception {
+        List<String> events = new ArrayList<>();
+        MockHttpServletResponse response = post("k9", "{\"amount\":1}", (req, res) -> {
+            ServletInputStream in = req.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add("data:" + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        });
+
+        assertEquals(200, response.getStatus());
+        assertEquals(List.of("data:{\"amount\":1}", "done"), events);
+    }
+
+    @Test
+    void storesMaskedBodyWhenSensitiveRunsInside() throws Exception {
+        SensitiveInfoFilter sensitive = new SensitiveInfoFilter(List.of());
+        FilterChain masked = (req, res) -> sensitive.doFilter(req, res, echo());
+
+        MockHttpServletResponse first = post("k10", "{\"phone\":\"13812345678\"}", masked);
+        MockHttpServletResponse second = post("k10", "{\"phone\":\"13812345678\"}", masked);
+
+        assertEquals("{\"phone\":\"138****5678\"}", first.getContentAsString());
+        assertEquals("{\"phone\":\"138****5678\"}", second.getContentAsString());
+        assertEquals("true", second.getHeader("Idempotent-Replayed"));
+        // 存储中不含原始手机号
+        assertEquals("{\"phone\":\"138****5678\"}", new String(store.get("1:k10").body(), StandardCharsets.UTF_8));
+    }
+
+    private FilterChain echo() {
+        return (req, res) -> {
+            executions.incrementAndGet();
+            res.setContentType("application/json");
+            req.getInputStream().transferTo(res.getOutputStream());
+        };
+    }
+
+    private MockHttpServletResponse post(String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("/order", key, body), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.addHeader(HEADER, key);
+        if (body != null) {
+            request.setContentType("application/json");
+            request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return request;
+    }
+}
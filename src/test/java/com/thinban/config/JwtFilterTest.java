@@ -0,0 +1,114 @@
+package com.thinban.config;
+
+import cn.hutool.jwt.JWT;
+import cn.hutool.jwt.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.metrics.LocalTbMetrics;
+import com.thinban.revoke.TokenRevocationService;
+import com.thinban.util.JwtThreadLocalHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JwtFilterTest {
+    private static final String KEY = "test-key";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalTbMetrics metrics = new LocalTbMetrics();
+    private final List<Long> users = new ArrayList<>();
+
+    @Test
+    void passesValidTokenAndClearsUserAfterRequest() throws Exception {
+        JwtFilter filter = new JwtFilter(objectMapper, KEY, List.of("/login"), metrics);
+
+        MockHttpServletResponse response = get(filter, "/api/users", token(Map.of("id", 7L), KEY));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(List.of(7L), users);
+        assertNull(JwtThreadLocalHolder.getCurrentUserId());
+    }
+
+    @Test
+    void rejectsMissingTokenWith401() throws Exception {
+        JwtFilter filter = new JwtFilter(objectMapper, KEY, List.of("/login"), metrics);
+
+        MockHttpServletResponse response = get(filter, "/api/users", null);
+
+        assertEquals(401, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+        assertArrayEquals(body("未获取到有效Token"), response.getContentAsByteArray());
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+        assertTrue(users.isEmpty());
+        assertEquals(1, metrics.counter("tb.jwt.failures", "reason", "missing").getCount());
+        assertEquals(1, metrics.counter("tb.filter.rejected", "stage", "jwt").getCount());
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() throws Exception {
+        JwtFilter filter = new JwtFilter(objectMapper, KEY, List.of(), metrics);
+
+        MockHttpServletResponse response = get(filter, "/api/users", token(Map.of("id", 7L), "other-key"));
+
+        assertEquals(401, response.getStatus());
+        assertArrayEquals(body("Token验证失败"), response.getContentAsByteArray());
+        assertEquals(1, metrics.counter("tb.jwt.failures", "reason", "invalid").getCount());
+    }
+
+    @Test
+    void rejectsRevokedToken() throws Exception {
+        TokenRevocationService revocationService = mock(TokenRevocationService.class);
+        when(revocationService.isRevoked(eq("jti-1"), eq(7L), any())).thenReturn(true);
+        JwtFilter filter = new JwtFilter(objectMapper, KEY, List.of(), revocationService, metrics);
+
+        MockHttpServletResponse revoked = get(filter, "/api/users", token(Map.of("id", 7L, JWT.JWT_ID, "jti-1"), KEY));
+        MockHttpServletResponse other = get(filter, "/api/users", token(Map.of("id", 7L, JWT.JWT_ID, "jti-2"), KEY));
+
+        assertEquals(401, revoked.getStatus());
+        assertArrayEquals(body("Token已失效"), revoked.getContentAsByteArray());
+        assertEquals(200, other.getStatus());
+        assertEquals(1, metrics.counter("tb.jwt.failures", "reason", "revoked").getCount());
+    }
+
+    @Test
+    void skipsExcludedPaths() throws Exception {
+        JwtFilter filter = new JwtFilter(objectMapper, KEY, List.of("/login", "/public/**"), metrics);
+
+        assertEquals(200, get(filter, "/public/a/b", null).getStatus());
+        assertEquals(200, get(filter, "/login", null).getStatus());
+        assertEquals(0, metrics.counter("tb.jwt.failures", "reason", "missing").getCount());
+    }
+
+    private MockHttpServletResponse get(JwtFilter filter, String uri, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            Long userId = JwtThreadLocalHolder.getCurrentUserId();
+            if (userId != null) {
+                users.add(userId);
+            }
+        });
+        return response;
+    }
+
+    private static String token(Map<String, Object> payload, String key) {
+        return JWTUtil.createToken(payload, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] body(String msg) {
+        return ("{\"code\":\"1\",\"msg\":\"" + msg + "\",\"info\":null}").getBytes(StandardCharsets.UTF_8);
+    }
+}
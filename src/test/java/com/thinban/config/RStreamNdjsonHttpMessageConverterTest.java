@@ -0,0 +1,106 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.core.RStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RStreamNdjsonHttpMessageConverterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RStreamNdjsonHttpMessageConverter converter = new RStreamNdjsonHttpMessageConverter(objectMapper);
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    void writesOneLinePerRow() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(RStream.ok(List.of(Map.of("a", 1), Map.of("a", 2)).iterator(), closed::incrementAndGet),
+                RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON, message);
+
+        assertEquals("{\"a\":1}\n{\"a\":2}\n", message.getBodyAsString(StandardCharsets.UTF_8));
+        assertEquals(RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON, message.getHeaders().getContentType());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void supportsOnlyWritingRStream() {
+        assertTrue(converter.canWrite(RStream.class, RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON));
+        assertFalse(converter.canWrite(RStream.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(List.class, RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON));
+        assertFalse(converter.canRead(RStream.class, RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON));
+    }
+
+    @Test
+    void closesStreamWhenBodyCannotBeOpened() {
+        MockHttpOutputMessage message = new MockHttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                throw new IllegalStateException("response closed");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> converter.write(RStream.ok(List.of(1).iterator(),
+                closed::incrementAndGet), RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON, message));
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void streamsNdjsonThroughMvc() throws Exception {
+        MockMvc mvc = mockMvc();
+
+        mvc.perform(get("/rows").accept(RStreamNdjsonHttpMessageConverter.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1\n2\n"));
+        mvc.perform(get("/rows").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"code\":\"0\",\"msg\":\"ok\",\"info\":[1,2]}"));
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    void closesStreamWhenResponseIsNotAcceptable() throws Exception {
+        mockMvc().perform(get("/rows").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+
+        // 没有写出，请求结束时关闭
+        assertEquals(1, closed.get());
+    }
+
+    private MockMvc mockMvc() {
+        return MockMvcBuilders.standaloneSetup(new RowsController(closed))
+                .setMessageConverters(converter, new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @RestController
+    static class RowsController {
+        private final AtomicInteger closed;
+
+        RowsController(AtomicInteger closed) {
+            this.closed = closed;
+        }
+
+        @GetMapping("/rows")
+        RStream<Integer> rows() throws IOException {
+            return RStream.ok(List.of(1, 2).iterator(), closed::incrementAndGet);
+        }
+    }
+}
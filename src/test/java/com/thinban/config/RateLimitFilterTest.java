@@ -0,0 +1,73 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.limit.ClusterRateLimiter;
+import com.thinban.metrics.LocalTbMetrics;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RateLimitFilterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalTbMetrics metrics = new LocalTbMetrics();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final FilterChain chain = (req, res) -> executions.incrementAndGet();
+
+    @Test
+    void rejectsRequestsOverLimitWith429() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, 2, 60, metrics);
+
+        assertEquals(200, get(filter, "10.0.0.1").getStatus());
+        assertEquals(200, get(filter, "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = get(filter, "10.0.0.1");
+
+        assertEquals(2, executions.get());
+        assertEquals(429, rejected.getStatus());
+        assertEquals("60", rejected.getHeader("Retry-After"));
+        assertEquals("application/json;charset=UTF-8", rejected.getContentType());
+        JsonNode body = objectMapper.readTree(rejected.getContentAsByteArray());
+        // code 保持原来的429
+        assertEquals("429", body.get("code").asText());
+        assertEquals("请求过于频繁，请稍后再试", body.get("msg").asText());
+        assertEquals(rejected.getContentAsByteArray().length, rejected.getContentLength());
+        assertEquals(1, metrics.counter("tb.filter.rejected", "stage", "rate-limit").getCount());
+    }
+
+    @Test
+    void countsClientsSeparatelyByForwardedFor() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, 1, 60, metrics);
+
+        assertEquals(200, get(filter, "10.0.0.1, 192.168.0.1").getStatus());
+        assertEquals(200, get(filter, "10.0.0.2").getStatus());
+        assertEquals(429, get(filter, "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void delegatesToClusterLimiter() throws Exception {
+        ClusterRateLimiter clusterLimiter = mock(ClusterRateLimiter.class);
+        when(clusterLimiter.isOverLimit("10.0.0.1")).thenReturn(false, true);
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, 100, 30, clusterLimiter, metrics);
+
+        assertEquals(200, get(filter, "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = get(filter, "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader("Retry-After"));
+        verify(clusterLimiter, times(2)).isOverLimit("10.0.0.1");
+    }
+
+    private MockHttpServletResponse get(RateLimitFilter filter, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
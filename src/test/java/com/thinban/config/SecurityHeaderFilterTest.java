@@ -0,0 +1,90 @@
+package com.thinban.config;
+
+import com.thinban.metrics.TbMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityHeaderFilterTest {
+    private static final String CACHEABLE = "public, max-age=3600";
+
+    @Test
+    void writesNoStoreByDefault() throws Exception {
+        SecurityHeaderFilter filter = new SecurityHeaderFilter(List.of(), CACHEABLE);
+
+        MockHttpServletResponse response = request(filter, "GET", "/api/users");
+
+        assertEquals("no-store", response.getHeader("Cache-Control"));
+        assertEquals("no-cache", response.getHeader("Pragma"));
+        assertEquals("DENY", response.getHeader("X-Frame-Options"));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertNotNull(response.getHeader("Content-Security-Policy"));
+    }
+
+    @Test
+    void usesCacheControlForCacheableGetAndHead() throws Exception {
+        SecurityHeaderFilter filter = new SecurityHeaderFilter(List.of("/static/**"), CACHEABLE);
+
+        assertEquals(CACHEABLE, request(filter, "GET", "/static/app.js").getHeader("Cache-Control"));
+        MockHttpServletResponse head = request(filter, "HEAD", "/static/app.js");
+        assertEquals(CACHEABLE, head.getHeader("Cache-Control"));
+        assertNull(head.getHeader("Pragma"));
+        assertEquals("DENY", head.getHeader("X-Frame-Options"));
+        // 其他方法和路径仍禁止缓存
+        assertEquals("no-store", request(filter, "POST", "/static/app.js").getHeader("Cache-Control"));
+        assertEquals("no-store", request(filter, "GET", "/api/users").getHeader("Cache-Control"));
+    }
+
+    @Test
+    void customProfileOverridesAndRemovesHeaders() throws Exception {
+        SecurityHeaderFilter.Profile docs = new SecurityHeaderFilter.Profile("docs", List.of("/swagger-ui/**"), List.of(),
+                Map.of("x-frame-options", "SAMEORIGIN", "Content-Security-Policy", "default-src 'self' 'unsafe-eval'",
+                        "Allow", ""));
+        SecurityHeaderFilter filter = new SecurityHeaderFilter(List.of("/**"), CACHEABLE, List.of(docs), TbMetrics.noop());
+
+        MockHttpServletResponse response = request(filter, "GET", "/swagger-ui/index.html");
+
+        // 自定义策略优先于可缓存策略，未覆盖的响应头沿用默认策略
+        assertEquals("SAMEORIGIN", response.getHeader("X-Frame-Options"));
+        assertEquals(1, response.getHeaders("X-Frame-Options").size());
+        assertEquals("default-src 'self' 'unsafe-eval'", response.getHeader("Content-Security-Policy"));
+        assertNull(response.getHeader("Allow"));
+        assertEquals("no-store", response.getHeader("Cache-Control"));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertEquals(CACHEABLE, request(filter, "GET", "/static/app.js").getHeader("Cache-Control"));
+    }
+
+    @Test
+    void matchesProfilesInOrderAndByMethod() throws Exception {
+        SecurityHeaderFilter.Profile upload = new SecurityHeaderFilter.Profile("upload", List.of("/api/files/**"),
+                List.of("post"), Map.of("Cache-Control", "no-cache"));
+        SecurityHeaderFilter.Profile api = new SecurityHeaderFilter.Profile("api", List.of("/api/**"), null,
+                Map.of("Cache-Control", "private"));
+        SecurityHeaderFilter filter = new SecurityHeaderFilter(List.of(), CACHEABLE, List.of(upload, api), TbMetrics.noop());
+
+        assertEquals("no-cache", request(filter, "POST", "/api/files/1").getHeader("Cache-Control"));
+        assertEquals("private", request(filter, "GET", "/api/files/1").getHeader("Cache-Control"));
+        assertEquals("no-store", request(filter, "GET", "/home").getHeader("Cache-Control"));
+    }
+
+    @Test
+    void rejectsProfileWithoutPaths() {
+        SecurityHeaderFilter.Profile empty = new SecurityHeaderFilter.Profile("docs", List.of(), List.of(), Map.of());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new SecurityHeaderFilter(List.of(), CACHEABLE, List.of(empty), TbMetrics.noop()));
+        assertTrue(e.getMessage().contains("tb.security-header.profiles.docs.paths"));
+    }
+
+    private static MockHttpServletResponse request(SecurityHeaderFilter filter, String method, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, (req, res) -> {
+        });
+        return response;
+    }
+}
@@ -0,0 +1,81 @@
+package com.thinban.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensitiveInfoFilterTest {
+
+    @Test
+    void masksWholeStringValues() {
+        assertEquals("138****5678", SensitiveInfoFilter.mask("13812345678"));
+        assertEquals("110101********123X", SensitiveInfoFilter.mask("11010119900101123X"));
+        assertEquals("************4321", SensitiveInfoFilter.mask("6222020200114321"));
+        assertEquals("zh***@example.com.cn", SensitiveInfoFilter.mask("zhangsan@example.com.cn"));
+    }
+
+    @Test
+    void masksValuesEmbeddedInText() {
+        assertEquals("订单138****5678已发货", SensitiveInfoFilter.mask("订单13812345678已发货"));
+        assertEquals("联系人：zh***@example.com，电话139****0000", SensitiveInfoFilter.mask("联系人：zhangsan@example.com，电话13900000000"));
+        assertEquals("身份证110101********123X，卡号************4321",
+                SensitiveInfoFilter.mask("身份证11010119900101123X，卡号6222020200114321"));
+    }
+
+    @Test
+    void leavesOtherStringsUntouched() {
+        String code = "A1381234567";
+        assertSame(code, SensitiveInfoFilter.mask(code));
+        // 更长数字串中的一段不当作手机号
+        String orderNo = "NO.202410191381234567890";
+        assertSame(orderNo, SensitiveInfoFilter.mask(orderNo));
+    }
+
+    @Test
+    void leavesNumbersAndFieldNamesUntouched() throws Exception {
+        String json = "{\"id\":1846372836485120001,\"createTime\":1729331200000,\"13812345678\":13812345678,"
+                + "\"price\":0.10,\"phone\":\"13812345678\",\"tags\":[\"a\",null,true]}";
+        byte[] masked = SensitiveInfoFilter.maskJson(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals("{\"id\":1846372836485120001,\"createTime\":1729331200000,\"13812345678\":13812345678,"
+                + "\"price\":0.10,\"phone\":\"138****5678\",\"tags\":[\"a\",null,true]}", new String(masked, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void returnsNullWhenNothingChangesOrInvalid() throws Exception {
+        assertNull(SensitiveInfoFilter.maskJson("{\"id\":13812345678}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(SensitiveInfoFilter.maskJson("{\"phone\":\"13812345678\"".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void keepsNdjsonLines() throws Exception {
+        String ndjson = "{\"phone\":\"13812345678\"}\n{\"phone\":\"13912345678\"}\n";
+        byte[] masked = SensitiveInfoFilter.maskJson(ndjson.getBytes(StandardCharsets.UTF_8));
+        assertEquals("{\"phone\":\"138****5678\"}\n{\"phone\":\"139****5678\"}\n", new String(masked, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void filterMasksJsonAndPassesOtherContentThrough() throws Exception {
+        SensitiveInfoFilter filter = new SensitiveInfoFilter(List.of("/stream/**"));
+
+        MockHttpServletResponse json = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/user"), json, (req, res) -> {
+            res.setContentType("application/json");
+            res.setContentLength(100);
+            res.getWriter().write("{\"id\":1846372836485120001,\"phone\":\"13812345678\"}");
+        });
+        assertEquals("{\"id\":1846372836485120001,\"phone\":\"138****5678\"}", json.getContentAsString());
+        assertEquals(json.getContentAsByteArray().length, json.getContentLength());
+
+        MockHttpServletResponse text = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/page"), text, (req, res) -> {
+            res.setContentType("text/plain");
+            res.getWriter().write("13812345678");
+        });
+        assertEquals("13812345678", text.getContentAsString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.thinban.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StringUtils;
+
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssFilterTest {
+    // 加快速判断之前的实现，作为对照
+    private static final Pattern[] REFERENCE_PATTERNS = {
+            Pattern.compile("<script>(.*?)</script>", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("src[\r\n]*=[\r\n]*\\\'(.*?)\\\'", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL),
+            Pattern.compile("src[\r\n]*=[\r\n]*\\\"(.*?)\\\"", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL),
+            Pattern.compile("</script>", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("<script(.*?)>", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL),
+            Pattern.compile("eval\\((.*?)\\)", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL),
+            Pattern.compile("expression\\((.*?)\\)", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL),
+            Pattern.compile("javascript:", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("vbscript:", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("onload(.*?)=", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL)
+    };
+
+    // 随机字符串的组成部分：各正则的关键字、需要转义的字符、非ASCII的形近字符
+    private static final String[] FRAGMENTS = {
+            "script", "<script>", "</script>", "<script ", "src", "=", "\r", "\n", "'", "\"", "eval", "eval(", "(", ")",
+            "expression", "expression(", "javascript", "javascript:", "vbscript", "vbscript:", ":", "onload", "onl0ad",
+            "<", ">", "&", " ", "a", "z", "0", "9", "中文", "ſ", "K", "ı", "İ", "е", "о",
+            "＜", "＞", "é", "😀"
+    };
+
+    // 默认20万个，-Dtb.xss.fuzz-strings=2000000 运行完整的200万个
+    private static final int FUZZ_STRINGS = Integer.getInteger("tb.xss.fuzz-strings", 200_000);
+
+    @Test
+    void fastPathMatchesRegexChain() {
+        SplittableRandom random = new SplittableRandom(20261019L);
+        StringBuilder sb = new StringBuilder();
+        int slowPath = 0;
+        for (int n = 0; n < FUZZ_STRINGS; n++) {
+            sb.setLength(0);
+            int parts = random.nextInt(12);
+            for (int i = 0; i < parts; i++) {
+                appendRandomCase(sb, FRAGMENTS[random.nextInt(FRAGMENTS.length)], random);
+            }
+            String value = sb.toString();
+            String expected = referenceStripXss(value);
+            String actual = XssFilter.stripXss(value);
+            assertEquals(expected, actual, () -> "input: " + value);
+            if (XssFilter.mightContainXss(value)) {
+                slowPath++;
+            } else {
+                assertSame(value, actual);
+            }
+        }
+        // 两条路径都要覆盖到
+        assertTrue(slowPath > FUZZ_STRINGS / 10 && slowPath < FUZZ_STRINGS, "slowPath=" + slowPath);
+    }
+
+    @Test
+    void sanitizesParametersAndHeaders() throws Exception {
+        XssFilter filter = new XssFilter();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/search");
+        request.addParameter("q", "<script>alert(1)</script>abc");
+        request.addParameter("tags", "a", "javascript:x");
+        request.addHeader("X-Name", "Tom & Jerry");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            assertEquals("abc", req.getParameter("q"));
+            assertArrayEquals(new String[]{"a", "x"}, req.getParameterValues("tags"));
+            assertEquals("Tom &amp; Jerry", ((jakarta.servlet.http.HttpServletRequest) req).getHeader("X-Name"));
+        });
+    }
+
+    private static void appendRandomCase(StringBuilder sb, String fragment, SplittableRandom random) {
+        for (int i = 0; i < fragment.length(); i++) {
+            char c = fragment.charAt(i);
+            sb.append(random.nextBoolean() ? Character.toUpperCase(c) : c);
+        }
+    }
+
+    private static String referenceStripXss(String value) {
+        if (!StringUtils.hasText(value)) {
+            return value;
+        }
+        String cleanValue = value;
+        for (Pattern pattern : REFERENCE_PATTERNS) {
+            cleanValue = pattern.matcher(cleanValue).replaceAll("");
+        }
+        return cleanValue.replaceAll("<", "&lt;")
+                .replaceAll(">", "&gt;")
+                .replaceAll("&", "&amp;")
+                .replaceAll("\"", "&quot;")
+                .replaceAll("'", "&#39;");
+    }
+}
@@ -0,0 +1,99 @@
+package com.thinban.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinban.metrics.TbMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XssJsonHttpMessageConverterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final XssJsonHttpMessageConverter converter = new XssJsonHttpMessageConverter(objectMapper, TbMetrics.noop());
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void bindRequest() {
+        request = new MockHttpServletRequest("POST", "/api/comment");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readsOnlyMarkedRequests() {
+        assertFalse(converter.canRead(Map.class, MediaType.APPLICATION_JSON));
+        request.setAttribute(XssFilter.JSON_SANITIZE_ATTRIBUTE, Boolean.TRUE);
+        assertTrue(converter.canRead(Map.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Map.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void leavesRawBodyTypesToOtherConverters() {
+        request.setAttribute(XssFilter.JSON_SANITIZE_ATTRIBUTE, Boolean.TRUE);
+        assertFalse(converter.canRead(String.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(byte[].class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(Resource.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(String.class, null, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canRead(new ParameterizedTypeReference<List<String>>() {
+        }.getType(), null, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sanitizesStringValuesOnly() throws Exception {
+        String json = "{\"<b>\":\"<script>alert(1)</script>hi\",\"id\":1846372836485120001,\"ok\":true,"
+                + "\"tags\":[\"javascript:x\",\"a&b\"],\"nested\":{\"name\":\"Tom\"}}";
+        MockHttpInputMessage input = new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8));
+        input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Object> result = (Map<String, Object>) converter.read(Map.class, null, input);
+
+        assertEquals("hi", result.get("<b>"));
+        assertEquals(1846372836485120001L, result.get("id"));
+        assertEquals(Boolean.TRUE, result.get("ok"));
+        assertEquals(List.of("x", "a&amp;b"), result.get("tags"));
+        assertEquals(Map.of("name", "Tom"), result.get("nested"));
+    }
+
+    @Test
+    void insertsBeforeJacksonConverter() {
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter(new ObjectMapper());
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(), new ResourceHttpMessageConverter(), jackson));
+
+        new XssJsonWebConfig(objectMapper, TbMetrics.noop(), true).extendMessageConverters(converters);
+
+        assertEquals(5, converters.size());
+        XssJsonHttpMessageConverter xss = assertInstanceOf(XssJsonHttpMessageConverter.class, converters.get(3));
+        assertSame(jackson, converters.get(4));
+        assertSame(jackson.getObjectMapper(), xss.getObjectMapper());
+    }
+
+    @Test
+    void notRegisteredWithoutJsonPaths() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(new StringHttpMessageConverter()));
+        new XssJsonWebConfig(objectMapper, TbMetrics.noop(), false).extendMessageConverters(converters);
+        assertEquals(1, converters.size());
+    }
+}
@@ -0,0 +1,43 @@
+package com.thinban.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreEncodedResponseTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesBytesEncodedAtStartup() throws Exception {
+        R<?> r = R.fail("未获取到有效Token", null);
+        PreEncodedResponse encoded = PreEncodedResponse.of(objectMapper, 401, r);
+        // 之后修改R不影响已编码的内容
+        r.setMsg("changed");
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        encoded.write(first);
+        encoded.write(second);
+
+        byte[] expected = "{\"code\":\"1\",\"msg\":\"未获取到有效Token\",\"info\":null}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(401, first.getStatus());
+        assertEquals("application/json;charset=UTF-8", first.getContentType());
+        assertEquals(expected.length, first.getContentLength());
+        assertArrayEquals(expected, first.getContentAsByteArray());
+        assertArrayEquals(expected, second.getContentAsByteArray());
+        assertNull(first.getHeader("Retry-After"));
+    }
+
+    @Test
+    void writesRetryAfterWhenGiven() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        PreEncodedResponse.of(objectMapper, 429, R.fail("busy", null), 60).write(response);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+    }
+}
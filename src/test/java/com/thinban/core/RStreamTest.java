@@ -0,0 +1,107 @@
+package com.thinban.core;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RStreamTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writesSameStructureAsR() throws Exception {
+        List<Map<String, Integer>> list = List.of(Map.of("a", 1), Map.of("a", 2));
+
+        String streamed = objectMapper.writeValueAsString(RStream.ok(list.iterator(), closed::incrementAndGet));
+
+        assertEquals(objectMapper.writeValueAsString(R.ok(list)), streamed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void closesStreamAfterWrite() throws Exception {
+        Stream<Integer> stream = Stream.of(1, 2, 3).onClose(closed::incrementAndGet);
+
+        assertEquals("{\"code\":\"0\",\"msg\":\"ok\",\"info\":[1,2,3]}", objectMapper.writeValueAsString(RStream.ok(stream)));
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void flushesEveryGivenRows() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValue(out, RStream.ok(List.of(1, 2, 3, 4, 5).iterator()).flushEvery(2));
+
+        // 第2、4条后各flush一次（结束时由Jackson关闭输出流，不再flush）
+        assertEquals(2, flushes.get());
+        assertThrows(IllegalArgumentException.class, () -> RStream.ok(List.of().iterator()).flushEvery(0));
+    }
+
+    @Test
+    void closesResourcesWhenIterationFails() {
+        Iterator<Integer> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                throw new IllegalStateException("cursor broken");
+            }
+        };
+
+        assertThrows(JsonMappingException.class,
+                () -> objectMapper.writeValueAsString(RStream.ok(failing, closed::incrementAndGet)));
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void closesUnwrittenStreamWhenRequestCompletes() {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        RStream.ok(List.of(1).iterator(), closed::incrementAndGet);
+        RStream.ok(List.of(2).iterator(), closed::incrementAndGet);
+
+        assertEquals(0, closed.get());
+        attributes.requestCompleted();
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    void closesResourcesOnlyOnce() throws Exception {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        objectMapper.writeValueAsString(RStream.ok(List.of(1).iterator(), closed::incrementAndGet));
+        attributes.requestCompleted();
+
+        assertEquals(1, closed.get());
+    }
+}
@@ -0,0 +1,56 @@
+package com.thinban.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisIdempotencyStoreTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisIdempotencyStore store = new RedisIdempotencyStore(redisTemplate, objectMapper, "idem:");
+    private final IdempotencyRecord inFlight = IdempotencyRecord.inFlight("POST /order -", "owner-1");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void completeComparesInFlightMarkerInScript() throws Exception {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("idem:1:k")), any(), any(), any())).thenReturn(1L);
+        IdempotencyRecord completed = IdempotencyRecord.completed("POST /order -", 200, "application/json",
+                "{}".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(store.complete("1:k", inFlight, completed, 1000));
+
+        ArgumentCaptor<RedisScript<Long>> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(redisTemplate).execute(script.capture(), eq(List.of("idem:1:k")),
+                eq(objectMapper.writeValueAsString(inFlight)), eq(objectMapper.writeValueAsString(completed)), eq("1000"));
+        assertTrue(script.getValue().getScriptAsString().contains("GET"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void removeReportsMarkerOwnedByAnotherRequest() throws Exception {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("idem:1:k")), any())).thenReturn(0L);
+
+        assertFalse(store.remove("1:k", inFlight));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("idem:1:k")), eq(objectMapper.writeValueAsString(inFlight)));
+        verify(redisTemplate, never()).delete(any(String.class));
+    }
+
+    @Test
+    void recordRoundTripsWithOwner() throws Exception {
+        IdempotencyRecord read = objectMapper.readValue(objectMapper.writeValueAsString(inFlight), IdempotencyRecord.class);
+
+        assertEquals("owner-1", read.owner());
+        assertTrue(read.isOwnedBy(inFlight));
+        assertFalse(read.isOwnedBy(IdempotencyRecord.inFlight("POST /order -", "owner-2")));
+    }
+}
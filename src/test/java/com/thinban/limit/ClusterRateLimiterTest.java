@@ -0,0 +1,144 @@
+package com.thinban.limit;
+
+import com.thinban.metrics.TbMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterRateLimiterTest {
+    // 窗口足够长、同步由测试手动触发，避免定时任务和窗口切换影响结果
+    private static final int WINDOW_SECONDS = 86400;
+    private static final long SYNC_INTERVAL_MILLIS = 3_600_000;
+
+    private final List<ClusterRateLimiter> limiters = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        limiters.forEach(ClusterRateLimiter::close);
+    }
+
+    @Test
+    void nodesShareQuotaAfterSync() {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend();
+        ClusterRateLimiter a = limiter(backend, 5);
+        ClusterRateLimiter b = limiter(backend, 5);
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(a.isOverLimit("c1"));
+            assertFalse(b.isOverLimit("c1"));
+        }
+        a.sync();
+        b.sync();
+
+        // b 同步后取回全局计数6
+        assertTrue(b.isOverLimit("c1"));
+        // a 上次同步时全局只有3，要到下次同步才知道（误差在一个同步周期内）
+        assertFalse(a.isOverLimit("c1"));
+        a.sync();
+        assertTrue(a.isOverLimit("c1"));
+        // 其他客户端不受影响
+        assertFalse(a.isOverLimit("c2"));
+    }
+
+    @Test
+    void estimatesOtherNodesGrowthFromLastSync() {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend();
+        ClusterRateLimiter a = limiter(backend, 10);
+        ClusterRateLimiter b = limiter(backend, 10);
+
+        a.isOverLimit("c1");
+        a.sync();
+        for (int i = 0; i < 4; i++) {
+            b.isOverLimit("c1");
+        }
+        b.sync();
+        a.isOverLimit("c1");
+        a.sync();
+
+        // a: 全局6 + 预估其他节点增量4 + 本次1 = 11
+        assertTrue(a.isOverLimit("c1"));
+    }
+
+    @Test
+    void degradesToLocalLimitAndRecovers() {
+        FlakyBackend backend = new FlakyBackend();
+        ClusterRateLimiter limiter = limiter(backend, 3);
+
+        backend.failing = true;
+        limiter.isOverLimit("c1");
+        limiter.isOverLimit("c1");
+        limiter.sync();
+        assertTrue(limiter.isDegraded());
+        assertFalse(limiter.isOverLimit("c1"));
+        assertTrue(limiter.isOverLimit("c1"));
+
+        backend.failing = false;
+        limiter.sync();
+        assertFalse(limiter.isDegraded());
+        // 降级期间的增量在恢复后一起同步
+        assertEquals(4L, backend.delegate.incrementAndGet(currentWindowId(), WINDOW_SECONDS, Map.of("c1", 0L)).get("c1"));
+    }
+
+    @Test
+    void localBackendAccumulatesPerWindow() {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend();
+
+        assertEquals(Map.of("a", 2L, "b", 1L), backend.incrementAndGet(10, 60, Map.of("a", 2L, "b", 1L)));
+        assertEquals(Map.of("a", 5L), backend.incrementAndGet(10, 60, Map.of("a", 3L)));
+        assertEquals(Map.of("a", 1L), backend.incrementAndGet(11, 60, Map.of("a", 1L)));
+        // 只保留当前和上一个窗口
+        backend.incrementAndGet(12, 60, Map.of("a", 1L));
+        assertEquals(Map.of("a", 1L), backend.incrementAndGet(10, 60, Map.of("a", 1L)));
+    }
+
+    @Test
+    void flushesUnsyncedDeltasIntoClosingWindow() throws Exception {
+        LocalRateLimitBackend backend = new LocalRateLimitBackend();
+        AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toMillis(60 * 10));
+        ClusterRateLimiter limiter = new ClusterRateLimiter(backend, 100, 60, SYNC_INTERVAL_MILLIS, TbMetrics.noop(), now::get);
+        limiters.add(limiter);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.isOverLimit("c1");
+        }
+        limiter.isOverLimit("c2");
+        // 进入下一个窗口，c1 有新请求（切换窗口），c2 没有
+        now.addAndGet(TimeUnit.SECONDS.toMillis(60));
+        limiter.isOverLimit("c1");
+        limiter.sync();
+
+        assertEquals(Map.of("c1", 3L, "c2", 1L), backend.incrementAndGet(10, 60, Map.of("c1", 0L, "c2", 0L)));
+        assertEquals(Map.of("c1", 1L), backend.incrementAndGet(11, 60, Map.of("c1", 0L)));
+    }
+
+    private ClusterRateLimiter limiter(RateLimitBackend backend, int maxRequests) {
+        ClusterRateLimiter limiter = new ClusterRateLimiter(backend, maxRequests, WINDOW_SECONDS, SYNC_INTERVAL_MILLIS,
+                TbMetrics.noop());
+        limiters.add(limiter);
+        return limiter;
+    }
+
+    private static long currentWindowId() {
+        return System.currentTimeMillis() / 1000 / WINDOW_SECONDS;
+    }
+
+    private static final class FlakyBackend implements RateLimitBackend {
+        final LocalRateLimitBackend delegate = new LocalRateLimitBackend();
+        volatile boolean failing;
+
+        @Override
+        public Map<String, Long> incrementAndGet(long windowId, int windowSeconds, Map<String, Long> deltas) throws Exception {
+            if (failing) {
+                throw new IllegalStateException("backend down");
+            }
+            return delegate.incrementAndGet(windowId, windowSeconds, deltas);
+        }
+    }
+}
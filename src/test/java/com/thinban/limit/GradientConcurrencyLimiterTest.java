@@ -0,0 +1,85 @@
+package com.thinban.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.thinban.limit.GradientConcurrencyLimiter.Priority.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimiterTest {
+    private static final long WINDOW_MS = 20;
+
+    @Test
+    void rejectsAboveLimitByPriority() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 20, 1.5, 1, WINDOW_MS);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.tryAcquire(NORMAL));
+        }
+        // LOW 只能使用80%的名额
+        assertFalse(limiter.tryAcquire(LOW));
+        assertTrue(limiter.tryAcquire(NORMAL));
+        assertTrue(limiter.tryAcquire(NORMAL));
+        assertFalse(limiter.tryAcquire(NORMAL));
+        // CRITICAL 只受 maxLimit 限制
+        assertTrue(limiter.tryAcquire(CRITICAL));
+        assertEquals(11, limiter.getInFlight());
+    }
+
+    @Test
+    void lowersLimitWhenRttRises() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 5, 200, 1.5, 1, WINDOW_MS);
+        for (int i = 0; i < 3; i++) {
+            window(limiter, limiter.getLimit(), 1);
+        }
+        int before = limiter.getLimit();
+        assertTrue(before > 50, "RTT稳定时上限应逐步上涨");
+        window(limiter, limiter.getLimit(), 10);
+        assertTrue(limiter.getLimit() < before);
+        assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    void doesNotHalveWhenUnderutilized() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(100, 10, 200, 1.5, 1, WINDOW_MS);
+        for (int i = 0; i < 40; i++) {
+            window(limiter, 20, 1);
+            assertEquals(100, limiter.getLimit(), "window " + i);
+        }
+    }
+
+    @Test
+    void restoresLimitAfterProbeWindow() throws InterruptedException {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(20, 5, 60, 1.5, 1, WINDOW_MS);
+        List<Integer> limits = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            window(limiter, limiter.getLimit(), 1);
+            limits.add(limiter.getLimit());
+        }
+        assertEquals(60, limits.get(limits.size() - 1));
+        int probe = limits.indexOf(30);
+        assertTrue(probe > 0, "满载时应减半探测一次: " + limits);
+        assertEquals(limits.get(probe - 1), limits.get(probe + 1), "探测窗口后应恢复原上限: " + limits);
+        assertEquals(1, limits.stream().filter(limit -> limit == 30).count());
+    }
+
+    /**
+     * 模拟一个采样窗口：占用 concurrency 个名额并以 rttMillis 释放，最后一个名额等窗口到期后释放（触发一次上限计算）
+     */
+    private static void window(GradientConcurrencyLimiter limiter, int concurrency, long rttMillis) throws InterruptedException {
+        int acquired = 0;
+        for (int i = 0; i < Math.max(concurrency, 10); i++) {
+            if (limiter.tryAcquire(NORMAL)) {
+                acquired++;
+            }
+        }
+        long rttNanos = TimeUnit.MILLISECONDS.toNanos(rttMillis);
+        for (int i = 1; i < acquired; i++) {
+            limiter.release(rttNanos);
+        }
+        Thread.sleep(WINDOW_MS + 1);
+        limiter.release(rttNanos);
+    }
+}
@@ -0,0 +1,64 @@
+package com.thinban.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RedisRateLimitBackendTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void spreadsClientsOverHashTagBuckets() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        List<List<String>> calls = new ArrayList<>();
+        // 脚本返回每个key的增量（模拟新建的key）
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            calls.add(keys);
+            List<Long> counts = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                counts.add(Long.parseLong((String) invocation.getArgument(2 + i)));
+            }
+            return counts;
+        });
+        RedisRateLimitBackend backend = new RedisRateLimitBackend(redisTemplate, "rl:", 4);
+        Map<String, Long> deltas = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            deltas.put("10.0.0." + i, (long) i + 1);
+        }
+
+        assertEquals(deltas, backend.incrementAndGet(7, 60, deltas));
+
+        // 每个桶一次脚本调用，同一次调用的key哈希标签相同，不同调用的标签不同
+        assertEquals(4, calls.size());
+        Set<String> tags = new HashSet<>();
+        for (List<String> keys : calls) {
+            String tag = keys.get(0).substring(0, keys.get(0).indexOf('}') + 1);
+            assertTrue(keys.stream().allMatch(key -> key.startsWith(tag + ":7:")));
+            tags.add(tag);
+        }
+        assertEquals(4, tags.size());
+    }
+
+    @Test
+    void bucketIsStableAcrossInstances() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        RedisRateLimitBackend a = new RedisRateLimitBackend(redisTemplate, "rl:", 16);
+        RedisRateLimitBackend b = new RedisRateLimitBackend(redisTemplate, "rl:", 16);
+
+        assertEquals(a.bucket("10.0.0.1"), b.bucket("10.0.0.1"));
+        assertTrue(a.bucket("10.0.0.1") >= 0 && a.bucket("10.0.0.1") < 16);
+    }
+}
@@ -0,0 +1,42 @@
+package com.thinban.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTbMetricsTest {
+
+    @Test
+    void countsAndTimes() {
+        LocalTbMetrics metrics = new LocalTbMetrics();
+        TbCounter counter = metrics.counter("tb.test", "k", "v");
+        counter.increment();
+        counter.increment(2);
+        assertSame(counter, metrics.counter("tb.test", "k", "v"));
+        assertEquals(3, counter.getCount());
+
+        TbTimer timer = metrics.timer("tb.test.timer");
+        timer.record(5_000_000);
+        timer.record(1_000_000);
+        assertEquals(2, timer.getCount());
+        assertEquals(6_000_000, timer.getTotalNanos());
+        assertEquals(5_000_000, timer.getMaxNanos());
+    }
+
+    @Test
+    void functionCounterIgnoresIncrement() {
+        LocalTbMetrics metrics = new LocalTbMetrics();
+        AtomicLong source = new AtomicLong(7);
+        metrics.functionCounter("tb.test.fn", source, AtomicLong::get);
+
+        // 同名的 counter() 拿到函数计数器，increment 不抛异常也不改变结果
+        TbCounter counter = metrics.counter("tb.test.fn");
+        counter.increment();
+        counter.increment(10);
+        assertEquals(7, counter.getCount());
+        source.set(9);
+        assertEquals(9, counter.getCount());
+    }
+}
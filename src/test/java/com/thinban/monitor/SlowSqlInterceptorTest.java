@@ -0,0 +1,129 @@
+package com.thinban.monitor;
+
+import com.thinban.metrics.LocalTbMetrics;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SlowSqlInterceptorTest {
+    private static final String SELECT = "UserMapper.selectById";
+    private static final String UPDATE = "UserMapper.updateById";
+
+    private final Configuration configuration = new Configuration();
+    private final MappedStatement select = statement(SELECT, SqlCommandType.SELECT);
+    private final MappedStatement update = statement(UPDATE, SqlCommandType.UPDATE);
+    private final LocalTbMetrics metrics = new LocalTbMetrics();
+    private final Executor target = mock(Executor.class);
+
+    @Test
+    void countsSlowSqlByThreshold() throws Exception {
+        when(target.query(any(), any(), any(), any())).thenReturn(List.of("a"));
+
+        // 阈值0：每条都是慢SQL；阈值很大：都不是
+        query(wrap(0), 1L);
+        query(wrap(0), 2L);
+        query(wrap(60_000), 3L);
+
+        assertEquals(2, metrics.counter("tb.sql.slow", "statement", SELECT).getCount());
+        assertEquals(3, metrics.timer("tb.sql", "statement", SELECT).getCount());
+    }
+
+    @Test
+    void recordsStatsPerStatement() throws Exception {
+        when(target.query(any(), any(), any(), any())).thenReturn(List.of("a", "b", "c"));
+        when(target.update(any(), any())).thenReturn(2);
+        SlowSqlInterceptor interceptor = new SlowSqlInterceptor(60_000, 200, metrics);
+        Executor executor = (Executor) interceptor.plugin(target);
+
+        query(executor, 1L);
+        query(executor, 2L);
+        executor.update(update, 1L);
+
+        SlowSqlInterceptor.SqlStat selectStat = interceptor.getStats().get(SELECT);
+        assertEquals(2, selectStat.getCount());
+        assertEquals(6, selectStat.getRows());
+        assertTrue(selectStat.getMaxNanos() <= selectStat.getTotalNanos());
+        assertEquals(2, sum(selectStat.getHistogram()));
+        assertEquals(selectStat.getBucketBoundsMillis().length + 1, selectStat.getHistogram().length);
+
+        assertEquals(2, interceptor.getStats().get(UPDATE).getRows());
+        assertEquals(6, metrics.counter("tb.sql.rows", "statement", SELECT).getCount());
+        assertEquals(2, metrics.counter("tb.sql.rows", "statement", UPDATE).getCount());
+        assertEquals(0, metrics.counter("tb.sql.slow", "statement", SELECT).getCount());
+
+        // resetStats 只清空本地统计，TbMetrics 是累计值
+        interceptor.resetStats();
+        assertTrue(interceptor.getStats().isEmpty());
+        assertEquals(2, metrics.timer("tb.sql", "statement", SELECT).getCount());
+    }
+
+    @Test
+    void timesNestedQueryOnlyOnce() throws Exception {
+        SlowSqlInterceptor interceptor = new SlowSqlInterceptor(0, 200, metrics);
+        Executor executor = (Executor) interceptor.plugin(target);
+        // 模拟分页等插件在同一次调用中再次进入 Executor.query
+        when(target.query(any(), any(), any(), any())).thenAnswer(invocation -> executor.query(select, 1L,
+                RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, new CacheKey(), select.getBoundSql(1L)));
+        when(target.query(any(), any(), any(), any(), any(), any())).thenReturn(List.of("a"));
+
+        query(executor, 1L);
+
+        assertEquals(1, interceptor.getStats().get(SELECT).getCount());
+        assertEquals(1, metrics.timer("tb.sql", "statement", SELECT).getCount());
+        assertEquals(1, metrics.counter("tb.sql.slow", "statement", SELECT).getCount());
+    }
+
+    @Test
+    void recordsFailedSqlAndClearsGuard() throws Exception {
+        SlowSqlInterceptor interceptor = new SlowSqlInterceptor(60_000, 200, metrics);
+        Executor executor = (Executor) interceptor.plugin(target);
+        when(target.query(any(), any(), any(), any())).thenThrow(new SQLException("boom"));
+
+        assertThrows(SQLException.class, () -> query(executor, 1L));
+        assertEquals(1, interceptor.getStats().get(SELECT).getCount());
+        assertEquals(0, interceptor.getStats().get(SELECT).getRows());
+
+        // 防重入标记已清除，同一线程的下一条SQL仍会计时
+        reset(target);
+        when(target.query(any(), any(), any(), any())).thenReturn(List.of("a"));
+        query(executor, 2L);
+        assertEquals(2, interceptor.getStats().get(SELECT).getCount());
+    }
+
+    private Executor wrap(long thresholdMillis) {
+        return (Executor) new SlowSqlInterceptor(thresholdMillis, 200, metrics).plugin(target);
+    }
+
+    private void query(Executor executor, Object parameter) throws SQLException {
+        executor.query(select, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    }
+
+    private MappedStatement statement(String id, SqlCommandType type) {
+        String sql = type == SqlCommandType.SELECT ? "select * from user where id = ?" : "update user set name = 'a' where id = ?";
+        List<ParameterMapping> mappings = List.of(new ParameterMapping.Builder(configuration, "id", Long.class).build());
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, sql, mappings), type).build();
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
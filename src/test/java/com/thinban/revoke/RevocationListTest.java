@@ -0,0 +1,49 @@
+package com.thinban.revoke;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationListTest {
+
+    @Test
+    void revokesTokensByJti() {
+        RevocationList list = new RevocationList(100, 0.01);
+        list.revokeToken("a1b2c3");
+        assertTrue(list.isRevoked("a1b2c3", 1L, 100L));
+        assertFalse(list.isRevoked("a1b2c4", 1L, 100L));
+        assertFalse(list.isRevoked(null, null, null));
+    }
+
+    @Test
+    void revokesUserTokensIssuedBeforeRevocation() {
+        RevocationList list = new RevocationList(100, 0.01);
+        list.revokeUser(7L, 1_000L);
+        assertTrue(list.isRevoked(null, 7L, 999L));
+        // 重新登录后签发的Token不受影响，包括与吊销同一秒签发的
+        assertFalse(list.isRevoked(null, 7L, 1_000L));
+        assertFalse(list.isRevoked(null, 7L, 1_001L));
+        // 没有iat时视为已吊销
+        assertTrue(list.isRevoked("x", 7L, null));
+        assertFalse(list.isRevoked(null, 8L, 999L));
+
+        // 重复吊销取较晚的时间
+        list.revokeUser(7L, 500L);
+        assertTrue(list.isRevoked(null, 7L, 999L));
+        list.revokeUser(7L, 2_000L);
+        assertTrue(list.isRevoked(null, 7L, 1_500L));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void growsBeyondExpectedEntries() {
+        RevocationList list = new RevocationList(16, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            list.revokeToken("jti-" + i);
+        }
+        assertEquals(1_000, list.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(list.isRevoked("jti-" + i, null, null));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.thinban.revoke;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.thinban.metrics.TbMetrics;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationServiceTest {
+    private static final long HOUR = 3_600_000L;
+
+    // 已提交的吊销记录
+    private final List<RevokedToken> table = new ArrayList<>();
+    private final RevokedTokenMapper mapper = mock(RevokedTokenMapper.class);
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaQueryWrapper 生成条件时需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), RevokedToken.class);
+    }
+
+    TokenRevocationServiceTest() {
+        // 模拟按id分页查询：id > cursor [and expires_at > now] order by id limit 1000
+        when(mapper.selectList(any())).thenAnswer(invocation -> {
+            AbstractWrapper<?, ?, ?> query = invocation.getArgument(0);
+            query.getSqlSegment();
+            Map<String, Object> params = query.getParamNameValuePairs();
+            long cursor = (Long) params.get("MPGENVAL1");
+            LocalDateTime now = (LocalDateTime) params.get("MPGENVAL2");
+            return table.stream()
+                    .filter(r -> r.getId() > cursor)
+                    .filter(r -> now == null || r.getExpiresAt().isAfter(now))
+                    .sorted(Comparator.comparing(RevokedToken::getId))
+                    .limit(1000)
+                    .toList();
+        });
+        when(mapper.selectCount(any())).thenAnswer(invocation ->
+                table.stream().filter(r -> r.getExpiresAt().isAfter(LocalDateTime.now())).count());
+    }
+
+    @Test
+    void reloadsRowsCommittedOutOfIdOrder() {
+        commit(1, "a");
+        commit(3, "c");
+        try (TokenRevocationService service = new TokenRevocationService(mapper, 100, 0.01, HOUR, HOUR, TbMetrics.noop())) {
+            assertTrue(service.isRevoked("a", null, null));
+            assertTrue(service.isRevoked("c", null, null));
+            assertFalse(service.isRevoked("b", null, null));
+
+            // id=2 的事务在 id=3 之后才提交
+            commit(2, "b");
+            commit(4, "d");
+            service.refreshQuietly();
+            assertTrue(service.isRevoked("b", null, null));
+            assertTrue(service.isRevoked("d", null, null));
+        }
+    }
+
+    @Test
+    void skipsExpiredRows() {
+        RevokedToken expired = commit(1, "old");
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        commit(2, "new");
+        try (TokenRevocationService service = new TokenRevocationService(mapper, 100, 0.01, HOUR, HOUR, TbMetrics.noop())) {
+            assertFalse(service.isRevoked("old", null, null));
+            assertTrue(service.isRevoked("new", null, null));
+        }
+    }
+
+    @Test
+    void rebuildsWithLargerCapacityWhenEntriesExceedIt() {
+        try (TokenRevocationService service = new TokenRevocationService(mapper, 10, 0.01, HOUR, HOUR, TbMetrics.noop())) {
+            assertEquals(10, service.getRevocationList().getExpectedEntries());
+            for (int i = 1; i <= 40; i++) {
+                commit(i, "jti-" + i);
+            }
+            // 增量加载后超过容量，下一次刷新按实际记录数重建
+            service.refreshQuietly();
+            assertEquals(40, service.getRevocationList().size());
+            service.refreshQuietly();
+            assertEquals(50, service.getRevocationList().getExpectedEntries());
+            assertEquals(40, service.getRevocationList().size());
+            for (int i = 1; i <= 40; i++) {
+                assertTrue(service.isRevoked("jti-" + i, null, null));
+            }
+        }
+    }
+
+    @Test
+    void revokeTakesEffectLocallyAndIsPersisted() {
+        try (TokenRevocationService service = new TokenRevocationService(mapper, 100, 0.01, HOUR, HOUR, TbMetrics.noop())) {
+            service.revokeUser(9L, LocalDateTime.now().plusHours(1));
+            assertTrue(service.isRevoked(null, 9L, 0L));
+            verify(mapper).insert(any(RevokedToken.class));
+        }
+    }
+
+    private RevokedToken commit(long id, String jti) {
+        RevokedToken record = new RevokedToken();
+        record.setId(id);
+        record.setType(RevokedToken.TYPE_JTI);
+        record.setSubject(jti);
+        record.setRevokedAt(LocalDateTime.now());
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        table.add(record);
+        return record;
+    }
+}
@@ -0,0 +1,42 @@
+package com.thinban.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAndBoundedFalsePositives() {
+        int n = 100_000;
+        BloomFilter bloom = new BloomFilter(n, 0.01);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] added = new long[n];
+        for (int i = 0; i < n; i++) {
+            added[i] = random.nextLong();
+            bloom.put(added[i]);
+        }
+        for (long hash : added) {
+            assertTrue(bloom.mightContain(hash));
+        }
+
+        int trials = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < trials; i++) {
+            if (bloom.mightContain(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        // 分块的误判率略高于标准布隆过滤器，位数已按20%补偿
+        double fpp = (double) falsePositives / trials;
+        assertTrue(fpp < 0.015, "fpp=" + fpp);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+}
@@ -0,0 +1,65 @@
+package com.thinban.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteMatcherTest {
+
+    @Test
+    void matchesExactPaths() {
+        RouteMatcher matcher = RouteMatcher.compile(List.of("/login", " /logout "));
+
+        assertTrue(matcher.matches("/login"));
+        assertTrue(matcher.matches("/logout"));
+        assertFalse(matcher.matches("/login/"));
+        assertFalse(matcher.matches("/login2"));
+    }
+
+    @Test
+    void prefixMatchesRootAndChildrenOnly() {
+        RouteMatcher matcher = RouteMatcher.compile(List.of("/static/**"));
+
+        assertTrue(matcher.matches("/static"));
+        assertTrue(matcher.matches("/static/"));
+        assertTrue(matcher.matches("/static/js/app.js"));
+        assertFalse(matcher.matches("/staticfiles/app.js"));
+        assertFalse(matcher.matches("/api/static"));
+    }
+
+    @Test
+    void fallsBackToAntPatterns() {
+        RouteMatcher matcher = RouteMatcher.compile(List.of("/api/dict/*", "/**/*.css", "/user/{id}/**"));
+
+        assertTrue(matcher.matches("/api/dict/gender"));
+        assertFalse(matcher.matches("/api/dict/gender/1"));
+        assertTrue(matcher.matches("/assets/site.css"));
+        assertTrue(matcher.matches("/user/1/orders"));
+    }
+
+    @Test
+    void emptyOrBlankPathsMatchNothing() {
+        assertTrue(RouteMatcher.compile(null).isEmpty());
+        assertTrue(RouteMatcher.compile(List.of()).isEmpty());
+        RouteMatcher blank = RouteMatcher.compile(Arrays.asList("", " ", null));
+        assertTrue(blank.isEmpty());
+        assertFalse(blank.matches("/"));
+    }
+
+    @Test
+    void agreesWithAntPathMatcher() {
+        List<String> patterns = List.of("/login", "/static/**", "/api/*/list", "/docs/**/index.html");
+        RouteMatcher matcher = RouteMatcher.compile(patterns);
+        AntPathMatcher ant = new AntPathMatcher();
+
+        for (String path : List.of("/login", "/static", "/static/a/b", "/api/user/list", "/api/user/list/1",
+                "/docs/v1/index.html", "/docs/index.html", "/other")) {
+            boolean expected = patterns.stream().anyMatch(pattern -> ant.match(pattern, path));
+            assertEquals(expected, matcher.matches(path), path);
+        }
+    }
+}